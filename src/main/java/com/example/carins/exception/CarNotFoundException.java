@@ -5,4 +5,8 @@ public class CarNotFoundException extends RuntimeException {
     public CarNotFoundException(Long carId) {
         super("Car with id " + carId + " does not exist.");
     }
+
+    public CarNotFoundException(String vin) {
+        super("Car with VIN " + vin + " does not exist.");
+    }
 }
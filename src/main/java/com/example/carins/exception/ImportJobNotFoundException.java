@@ -0,0 +1,8 @@
+package com.example.carins.exception;
+
+public class ImportJobNotFoundException extends RuntimeException {
+
+    public ImportJobNotFoundException(String jobId) {
+        super("Import job " + jobId + " does not exist.");
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.carins.exception;
+
+public class PolicyOverlapException extends RuntimeException {
+
+    private final Long conflictingPolicyId;
+
+    public PolicyOverlapException(Long carId, Long conflictingPolicyId) {
+        super("Car with id " + carId + " is already insured by policy " + conflictingPolicyId + " for part of this period.");
+        this.conflictingPolicyId = conflictingPolicyId;
+    }
+
+    public Long getConflictingPolicyId() {
+        return conflictingPolicyId;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.carins.model;
 
+import com.example.carins.service.cache.ReferenceCacheInvalidator;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -7,10 +8,12 @@ import org.hibernate.validator.constraints.UniqueElements;
 
 @Entity
 @Table(name = "car")
+@EntityListeners(ReferenceCacheInvalidator.class)
 public class Car {
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "policy_seq")
-    @SequenceGenerator(name = "policy_seq", sequenceName = "policy_seq", initialValue = 10, allocationSize = 1)
+    // a pooled block ends at the sequence value, so the first ids handed out are 10 to 59
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "car_seq")
+    @SequenceGenerator(name = "car_seq", sequenceName = "car_seq", initialValue = 59, allocationSize = 50)
     private Long id;
 
     @Size(min = 5, max = 32)
@@ -0,0 +1,24 @@
+package com.example.carins.model;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Running claim count and amount of one car, kept up to date by the transactions that store its claims.
+ */
+@Entity
+@Table(name = "car_claim_total")
+public class CarClaimTotal {
+    @Id
+    private Long carId;
+    private long claimCount;
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalAmount;
+
+    public CarClaimTotal() {}
+
+    public Long getCarId() { return carId; }
+    public long getClaimCount() { return claimCount; }
+    public BigDecimal getTotalAmount() { return totalAmount; }
+}
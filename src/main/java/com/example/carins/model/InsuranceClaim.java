@@ -7,10 +7,12 @@ import jakarta.validation.constraints.Positive;
 import java.util.Date;
 
 @Entity
-@Table(name = "insuranceclaim")
+@Table(name = "insuranceclaim", indexes = @Index(name = "idx_claim_car_date", columnList = "car_id, claim_date, id"))
 public class InsuranceClaim {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // a pooled block ends at the sequence value, so the first ids handed out are 1 to 50
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "claim_seq")
+    @SequenceGenerator(name = "claim_seq", sequenceName = "claim_seq", initialValue = 50, allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
@@ -6,11 +6,15 @@ import jakarta.validation.constraints.NotNull;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "insurancepolicy")
+@Table(name = "insurancepolicy", indexes = {
+        @Index(name = "idx_policy_end_date", columnList = "end_date, id"),
+        @Index(name = "idx_policy_car_start", columnList = "car_id, start_date"),
+        @Index(name = "idx_policy_car_end", columnList = "car_id, end_date")})
 public class InsurancePolicy {
     @Id
+    // a pooled block ends at the sequence value, so the first ids handed out are 10 to 59
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "policy_seq")
-    @SequenceGenerator(name = "policy_seq", sequenceName = "policy_seq", initialValue = 10, allocationSize = 1)
+    @SequenceGenerator(name = "policy_seq", sequenceName = "policy_seq", initialValue = 59, allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
@@ -0,0 +1,20 @@
+package com.example.carins.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "job_checkpoint")
+public class JobCheckpoint {
+    @Id
+    private String name;
+    private LocalDate processedThrough;
+
+    public JobCheckpoint() {}
+    public JobCheckpoint(String name, LocalDate processedThrough) { this.name = name; this.processedThrough = processedThrough; }
+
+    public String getName() { return name; }
+    public LocalDate getProcessedThrough() { return processedThrough; }
+    public void setProcessedThrough(LocalDate processedThrough) { this.processedThrough = processedThrough; }
+}
@@ -0,0 +1,51 @@
+package com.example.carins.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Running claim count and amount of one calendar month ({@code yyyymm}), split over a fixed number of slots chosen
+ * by car id so that concurrent claims for different cars rarely update the same row. The month's totals are the
+ * sum of its slots.
+ */
+@Entity
+@Table(name = "month_claim_total")
+@IdClass(MonthClaimTotal.Key.class)
+public class MonthClaimTotal {
+    @Id
+    @Column(name = "claim_month")
+    private int month;
+    @Id
+    private int slot;
+    private long claimCount;
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalAmount;
+
+    public MonthClaimTotal() {}
+
+    public int getMonth() { return month; }
+    public int getSlot() { return slot; }
+    public long getClaimCount() { return claimCount; }
+    public BigDecimal getTotalAmount() { return totalAmount; }
+
+    public static class Key implements Serializable {
+        private int month;
+        private int slot;
+
+        public Key() {}
+        public Key(int month, int slot) { this.month = month; this.slot = slot; }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && month == key.month && slot == key.slot;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(month, slot);
+        }
+    }
+}
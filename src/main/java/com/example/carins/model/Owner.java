@@ -1,12 +1,14 @@
 package com.example.carins.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.example.carins.service.cache.ReferenceCacheInvalidator;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 
 @Entity
 @Table(name = "owner")
+@EntityListeners(ReferenceCacheInvalidator.class)
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Owner {
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,24 @@
+package com.example.carins.model;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Running claim count and amount over the cars of one owner, attributed to the owner at the time of the claim.
+ */
+@Entity
+@Table(name = "owner_claim_total")
+public class OwnerClaimTotal {
+    @Id
+    private Long ownerId;
+    private long claimCount;
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalAmount;
+
+    public OwnerClaimTotal() {}
+
+    public Long getOwnerId() { return ownerId; }
+    public long getClaimCount() { return claimCount; }
+    public BigDecimal getTotalAmount() { return totalAmount; }
+}
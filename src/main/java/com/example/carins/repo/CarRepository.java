@@ -1,12 +1,22 @@
 package com.example.carins.repo;
 
 import com.example.carins.model.*;
+import com.example.carins.repo.projection.CarEventRow;
+import com.example.carins.repo.projection.CarOwner;
+import com.example.carins.repo.projection.CarVin;
+import com.example.carins.repo.projection.PolicyInterval;
+import com.example.carins.web.dto.CarDto;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface CarRepository extends JpaRepository<Car, Long> {
@@ -14,5 +24,82 @@ public interface CarRepository extends JpaRepository<Car, Long> {
     List<Car> findAll();
     Optional<Car> findByVin(String vin);
 
+    @EntityGraph(attributePaths = {"owner"})
+    Optional<Car> findWithOwnerById(Long id);
+
     boolean existsById(Long id);
-}
\ No newline at end of file
+
+    @Query("select new com.example.carins.repo.projection.CarOwner(c.id, c.owner.id) from Car c where c.id in :carIds")
+    List<CarOwner> findOwnerIds(@Param("carIds") Collection<Long> carIds);
+
+    @Query("select new com.example.carins.repo.projection.CarVin(c.vin, c.id) from Car c where c.vin in :vins")
+    List<CarVin> findByVinIn(@Param("vins") Collection<String> vins);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.example.carins.repo.projection.CarVin(c.vin, c.id) from Car c")
+    Stream<CarVin> streamAllVins();
+
+    @Query("select new com.example.carins.web.dto.CarDto(c.id, c.vin, c.make, c.model, c.yearOfManufacture, o.id, o.name, o.email) " +
+            "from Car c join c.owner o " +
+            "where c.id > :afterId " +
+            "order by c.id asc")
+    List<CarDto> findCarDtosAfter(@Param("afterId") Long afterId, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.example.carins.web.dto.CarDto(c.id, c.vin, c.make, c.model, c.yearOfManufacture, o.id, o.name, o.email) " +
+            "from Car c join c.owner o " +
+            "order by c.id asc")
+    Stream<CarDto> streamAllCarDtos();
+
+    /**
+     * One row per (car, policy) for the given cars; cars without policies yield no row.
+     */
+    @Query("select new com.example.carins.repo.projection.PolicyInterval(c.id, p.startDate, p.endDate) " +
+            "from Car c join InsurancePolicy p on p.car = c " +
+            "where c.id in :carIds")
+    List<PolicyInterval> findPolicyIntervalsByCarIds(@Param("carIds") Collection<Long> carIds);
+
+    /**
+     * Claim, policy start and policy end events of one car in {@code [from, to]}, ordered by
+     * (date, type, source id) and starting strictly after the given position, at most {@code limit} rows.
+     * Each branch applies the range and the position itself and reads at most {@code limit} rows of the car from its
+     * {@code (car_id, date)} index, so the final sort only merges up to three times {@code limit} rows, however long
+     * the history is. The reactive repository runs the same statement.
+     */
+    String HISTORY_SQL = "select e.type as type, e.event_date as eventDate, e.details as details, e.source_id as sourceId from (" +
+            "(select 'CLAIM' as type, cast(c.claim_date as date) as event_date, c.description as details, c.id as source_id " +
+            "from insuranceclaim c where c.car_id = :carId and c.claim_date >= :afterDate " +
+            "and cast(c.claim_date as date) between :from and :to " +
+            "and (cast(c.claim_date as date) > :afterDate or (cast(c.claim_date as date) = :afterDate " +
+            "and ('CLAIM' > :afterType or ('CLAIM' = :afterType and c.id > :afterSourceId)))) " +
+            "order by event_date, source_id limit :limit) " +
+            "union all " +
+            "(select 'POLICY_START', p.start_date, p.provider, p.id " +
+            "from insurancepolicy p where p.car_id = :carId " +
+            "and p.start_date between :from and :to " +
+            "and (p.start_date > :afterDate or (p.start_date = :afterDate " +
+            "and ('POLICY_START' > :afterType or ('POLICY_START' = :afterType and p.id > :afterSourceId)))) " +
+            "order by p.start_date, p.id limit :limit) " +
+            "union all " +
+            "(select 'POLICY_END', p.end_date, p.provider, p.id " +
+            "from insurancepolicy p where p.car_id = :carId " +
+            "and p.end_date between :from and :to " +
+            "and (p.end_date > :afterDate or (p.end_date = :afterDate " +
+            "and ('POLICY_END' > :afterType or ('POLICY_END' = :afterType and p.id > :afterSourceId)))) " +
+            "order by p.end_date, p.id limit :limit)" +
+            ") e " +
+            "order by e.event_date, e.type, e.source_id " +
+                "limit :limit";
+
+    /**
+     * Runs {@link #HISTORY_SQL}.
+     */
+    @Query(value = HISTORY_SQL, nativeQuery = true)
+    List<CarEventRow> findHistory(@Param("carId") Long carId,
+                                  @Param("from") LocalDate from,
+                                  @Param("to") LocalDate to,
+                                  @Param("afterDate") LocalDate afterDate,
+                                  @Param("afterType") String afterType,
+                                  @Param("afterSourceId") Long afterSourceId,
+                                  @Param("limit") int limit);
+}
@@ -0,0 +1,177 @@
+package com.example.carins.repo;
+
+import com.example.carins.repo.projection.ClaimTotal;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Claim counts and amounts per car, per owner and per month, stored in {@code car_claim_total},
+ * {@code owner_claim_total} and {@code month_claim_total} and changed by relative updates
+ * ({@code claim_count = claim_count + ?}). Concurrent transactions therefore never lose an increment; they wait
+ * only for the rows they both change. Rows are always changed in the same order (cars, owners, months, each by
+ * key), so two transactions cannot deadlock on them.
+ */
+@Repository
+public class ClaimTotalsRepository {
+
+    /**
+     * Rows per month; a claim goes to the slot of its car id, so unrelated cars rarely wait for each other.
+     */
+    public static final int MONTH_SLOTS = 16;
+
+    private static final Target CARS = new Target(
+            "update car_claim_total set claim_count = claim_count + ?, total_amount = total_amount + ? where car_id = ?",
+            "insert into car_claim_total (claim_count, total_amount, car_id) values (?, ?, ?)");
+    private static final Target OWNERS = new Target(
+            "update owner_claim_total set claim_count = claim_count + ?, total_amount = total_amount + ? where owner_id = ?",
+            "insert into owner_claim_total (claim_count, total_amount, owner_id) values (?, ?, ?)");
+    private static final Target MONTHS = new Target(
+            "update month_claim_total set claim_count = claim_count + ?, total_amount = total_amount + ? where claim_month = ? and slot = ?",
+            "insert into month_claim_total (claim_count, total_amount, claim_month, slot) values (?, ?, ?, ?)");
+
+    private static final String AMOUNT = "cast(amount as numeric(19, 2))";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ClaimTotalsRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Adds the changes within the caller's transaction, one JDBC batch per table, plus an insert for each row
+     * that does not exist yet.
+     */
+    public void apply(Changes changes) {
+        add(CARS, changes.cars);
+        add(OWNERS, changes.owners);
+        add(MONTHS, changes.months);
+    }
+
+    public ClaimTotal findForCar(Long carId) {
+        return find("select claim_count, total_amount from car_claim_total where car_id = ?", carId);
+    }
+
+    public ClaimTotal findForOwner(Long ownerId) {
+        return find("select claim_count, total_amount from owner_claim_total where owner_id = ?", ownerId);
+    }
+
+    public ClaimTotal findForMonth(YearMonth month) {
+        return find("select sum(claim_count), sum(total_amount) from month_claim_total where claim_month = ?", monthKey(month));
+    }
+
+    /**
+     * Recomputes every total from the claims table, for claims written without going through {@link #apply}.
+     */
+    public void rebuild() {
+        jdbcTemplate.update("delete from car_claim_total");
+        jdbcTemplate.update("delete from owner_claim_total");
+        jdbcTemplate.update("delete from month_claim_total");
+        jdbcTemplate.update("insert into car_claim_total (car_id, claim_count, total_amount) " +
+                "select car_id, count(*), sum(" + AMOUNT + ") from insuranceclaim group by car_id");
+        jdbcTemplate.update("insert into owner_claim_total (owner_id, claim_count, total_amount) " +
+                "select c.owner_id, count(*), sum(cast(cl.amount as numeric(19, 2))) " +
+                "from insuranceclaim cl join car c on c.id = cl.car_id group by c.owner_id");
+        jdbcTemplate.update("insert into month_claim_total (claim_month, slot, claim_count, total_amount) " +
+                "select m.claim_month, m.slot, count(*), sum(m.amount) from (" +
+                "select year(claim_date) * 100 + month(claim_date) as claim_month, mod(car_id, " + MONTH_SLOTS + ") as slot, " + AMOUNT + " as amount " +
+                "from insuranceclaim) m group by m.claim_month, m.slot");
+    }
+
+    private ClaimTotal find(String sql, Object key) {
+        return jdbcTemplate.query(sql, rs -> {
+            if (!rs.next() || rs.getBigDecimal(2) == null) {
+                return ClaimTotal.NONE;
+            }
+            return new ClaimTotal(rs.getLong(1), rs.getBigDecimal(2));
+        }, key);
+    }
+
+    private <K> void add(Target target, SortedMap<K, Delta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        for (Map.Entry<K, Delta> entry : deltas.entrySet()) {
+            rows.add(entry.getValue().arguments(entry.getKey()));
+        }
+        int[] updated = jdbcTemplate.batchUpdate(target.update(), rows);
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                insertOrUpdate(target, rows.get(i));
+            }
+        }
+    }
+
+    private void insertOrUpdate(Target target, Object[] row) {
+        try {
+            jdbcTemplate.update(target.insert(), row);
+        } catch (DuplicateKeyException e) {
+            // another transaction inserted the row after our update found none
+            jdbcTemplate.update(target.update(), row);
+        }
+    }
+
+    static int monthKey(YearMonth month) {
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+
+    private record Target(String update, String insert) {
+    }
+
+    /**
+     * Claims to add, summed per row. Amounts are rounded to cents per claim, as {@link #rebuild()} does.
+     */
+    public static final class Changes {
+
+        private final SortedMap<Long, Delta> cars = new TreeMap<>();
+        private final SortedMap<Long, Delta> owners = new TreeMap<>();
+        private final SortedMap<MonthSlot, Delta> months = new TreeMap<>();
+
+        public Changes add(long carId, long ownerId, YearMonth month, double amount) {
+            BigDecimal cents = BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP);
+            cars.computeIfAbsent(carId, key -> new Delta()).add(cents);
+            owners.computeIfAbsent(ownerId, key -> new Delta()).add(cents);
+            months.computeIfAbsent(new MonthSlot(monthKey(month), (int) Math.floorMod(carId, (long) MONTH_SLOTS)), key -> new Delta()).add(cents);
+            return this;
+        }
+
+        public boolean isEmpty() {
+            return cars.isEmpty();
+        }
+    }
+
+    private static final class Delta {
+
+        private long claims;
+        private BigDecimal amount = BigDecimal.ZERO;
+
+        void add(BigDecimal cents) {
+            claims++;
+            amount = amount.add(cents);
+        }
+
+        Object[] arguments(Object key) {
+            return key instanceof MonthSlot slot
+                    ? new Object[]{claims, amount, slot.month(), slot.slot()}
+                    : new Object[]{claims, amount, key};
+        }
+    }
+
+    private record MonthSlot(int month, int slot) implements Comparable<MonthSlot> {
+
+        @Override
+        public int compareTo(MonthSlot other) {
+            return month != other.month ? Integer.compare(month, other.month) : Integer.compare(slot, other.slot);
+        }
+    }
+}
@@ -1,12 +1,21 @@
 package com.example.carins.repo;
 
 import com.example.carins.model.*;
+import com.example.carins.repo.projection.ExpiredPolicy;
+import com.example.carins.repo.projection.IdRange;
+import com.example.carins.repo.projection.PolicyInterval;
+import com.example.carins.repo.projection.PolicySpan;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface InsurancePolicyRepository extends JpaRepository<InsurancePolicy, Long> {
@@ -18,16 +27,51 @@ public interface InsurancePolicyRepository extends JpaRepository<InsurancePolicy
             "and (p.endDate is null or p.endDate >= :date)")
     boolean existsActiveOnDate(@Param("carId") Long carId, @Param("date") LocalDate date);
 
-    @Query("select p from InsurancePolicy p " +
+    List<InsurancePolicy> findByCarId(Long carId);
+
+    /**
+     * Ids of the car's policies covering any day of {@code [startDate, endDate]}, a {@code null} end meaning
+     * open-ended. Answered from the {@code (car_id, start_date)} index.
+     */
+    @Query("select p.id from InsurancePolicy p " +
             "where p.car.id = :carId " +
-            "order by p.startDate asc")
-    List<InsurancePolicy> findAllByCarIdOrderByStartDate(@Param("carId") Long carId);
+            "and (:endDate is null or p.startDate <= :endDate) " +
+            "and (p.endDate is null or p.endDate >= :startDate) " +
+            "order by p.startDate")
+    List<Long> findOverlappingIds(@Param("carId") Long carId, @Param("startDate") LocalDate startDate,
+                                  @Param("endDate") LocalDate endDate, Limit limit);
 
-    List<InsurancePolicy> findByCarId(Long carId);
+    @Query("select new com.example.carins.repo.projection.PolicySpan(p.id, p.car.id, p.startDate, p.endDate) " +
+            "from InsurancePolicy p " +
+            "where p.car.id in :carIds")
+    List<PolicySpan> findSpansByCarIdIn(@Param("carIds") Collection<Long> carIds);
+
+    @Query("select new com.example.carins.repo.projection.ExpiredPolicy(p.id, p.car.id, p.endDate) " +
+            "from InsurancePolicy p " +
+            "where p.endDate = :endDate and p.id > :afterId " +
+            "order by p.id")
+    List<ExpiredPolicy> findExpiredPolicies(@Param("endDate") LocalDate endDate, @Param("afterId") Long afterId, Limit limit);
 
-    @Query("select p " +
-    "from InsurancePolicy p " +
-    "where p.endDate = :endDate")
-    List<InsurancePolicy> findExpiredPolicies(@Param("endDate") LocalDate endDate);
+    @Query("select new com.example.carins.repo.projection.ExpiredPolicy(p.id, p.car.id, p.endDate) " +
+            "from InsurancePolicy p " +
+            "where p.endDate >= :from and p.endDate < :to")
+    Stream<ExpiredPolicy> streamEndingBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("select new com.example.carins.repo.projection.PolicyInterval(p.car.id, p.startDate, p.endDate) " +
+            "from InsurancePolicy p")
+    Stream<PolicyInterval> streamAllIntervals();
+
+    @Query("select new com.example.carins.repo.projection.IdRange(min(p.car.id), max(p.car.id)) from InsurancePolicy p")
+    IdRange findCarIdRange();
+
+    /**
+     * Policies of the cars with ids in {@code [fromCarId, toCarId)}, ordered by car and start date.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.example.carins.repo.projection.PolicySpan(p.id, p.car.id, p.startDate, p.endDate) " +
+            "from InsurancePolicy p " +
+            "where p.car.id >= :fromCarId and p.car.id < :toCarId " +
+            "order by p.car.id, p.startDate, p.id")
+    Stream<PolicySpan> streamSpansOfCars(@Param("fromCarId") Long fromCarId, @Param("toCarId") Long toCarId);
 
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package com.example.carins.repo;
+
+import com.example.carins.model.JobCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, String> {
+}
@@ -1,14 +1,33 @@
 package com.example.carins.repo;
 
 import com.example.carins.model.*;
+import com.example.carins.repo.projection.PortfolioRow;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface OwnerRepository extends JpaRepository<Owner, Long> {}
+public interface OwnerRepository extends JpaRepository<Owner, Long> {
+
+    @Query("select o.id from Owner o where o.id in :ownerIds")
+    List<Long> findExistingIds(@Param("ownerIds") Collection<Long> ownerIds);
+
+    /**
+     * The owner with each of its cars and the policies covering that car on {@code date}, ordered by car and with
+     * the latest starting policy first. The owner is returned even without cars, so no row means no owner.
+     */
+    @Query("select new com.example.carins.repo.projection.PortfolioRow(o.id, o.name, c.id, c.vin, c.make, c.model, c.yearOfManufacture, " +
+            "p.id, p.provider, p.startDate, p.endDate) " +
+            "from Owner o " +
+            "left join Car c on c.owner = o " +
+            "left join InsurancePolicy p on p.car = c and p.startDate <= :date and (p.endDate is null or p.endDate >= :date) " +
+            "where o.id = :ownerId " +
+            "order by c.id asc, p.startDate desc, p.id desc")
+    List<PortfolioRow> findPortfolio(@Param("ownerId") Long ownerId, @Param("date") LocalDate date);
+}
 
 
@@ -0,0 +1,14 @@
+package com.example.carins.repo.projection;
+
+import java.time.LocalDate;
+
+public interface CarEventRow {
+
+    String getType();
+
+    LocalDate getEventDate();
+
+    String getDetails();
+
+    Long getSourceId();
+}
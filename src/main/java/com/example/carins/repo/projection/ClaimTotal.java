@@ -0,0 +1,8 @@
+package com.example.carins.repo.projection;
+
+import java.math.BigDecimal;
+
+public record ClaimTotal(long claimCount, BigDecimal totalAmount) {
+
+    public static final ClaimTotal NONE = new ClaimTotal(0, BigDecimal.ZERO.setScale(2));
+}
@@ -0,0 +1,4 @@
+package com.example.carins.repo.projection;
+
+public record IdRange(Long min, Long max) {
+}
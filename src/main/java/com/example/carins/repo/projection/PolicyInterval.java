@@ -0,0 +1,6 @@
+package com.example.carins.repo.projection;
+
+import java.time.LocalDate;
+
+public record PolicyInterval(Long carId, LocalDate startDate, LocalDate endDate) {
+}
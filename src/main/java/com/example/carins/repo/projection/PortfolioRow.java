@@ -0,0 +1,11 @@
+package com.example.carins.repo.projection;
+
+import java.time.LocalDate;
+
+/**
+ * One row per (car, active policy) of an owner; car columns are null when the owner has no cars and policy columns
+ * are null when the car is not insured on the date.
+ */
+public record PortfolioRow(Long ownerId, String ownerName, Long carId, String vin, String make, String model, Integer year,
+                           Long policyId, String provider, LocalDate startDate, LocalDate endDate) {
+}
@@ -0,0 +1,140 @@
+package com.example.carins.repo.reactive;
+
+import com.example.carins.repo.CarRepository;
+import com.example.carins.repo.projection.CarEventRow;
+import com.example.carins.web.dto.CarDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.r2dbc.ConnectionPoolMetrics;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Non-blocking reads over R2DBC, for the reactive endpoints. Queries return the same shapes as the JPA
+ * repositories so both stacks serialize identical payloads.
+ * <p>
+ * The connection pool is owned here and deliberately not exposed as a {@code ConnectionFactory} bean: Spring Boot
+ * backs off its JDBC {@code DataSource} as soon as one exists, and JPA still needs it.
+ */
+@Repository
+public class ReactiveCarRepository implements DisposableBean {
+
+    private final ConnectionPool pool;
+    private final DatabaseClient client;
+
+    public ReactiveCarRepository(@Value("${carins.reactive.url}") String url,
+                                 @Value("${spring.datasource.username:sa}") String username,
+                                 @Value("${spring.datasource.password:}") String password,
+                                 @Value("${carins.reactive.pool.max-size:10}") int maxSize,
+                                 @Value("${carins.reactive.pool.max-acquire-time:5s}") Duration maxAcquireTime,
+                                 MeterRegistry meterRegistry) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        this.pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .name("reactive")
+                .initialSize(0)
+                .maxSize(maxSize)
+                .maxAcquireTime(maxAcquireTime)
+                .build());
+        this.client = DatabaseClient.create(pool);
+        new ConnectionPoolMetrics(pool, "reactive", Tags.empty()).bindTo(meterRegistry);
+    }
+
+    /**
+     * Every car with its owner, in id order. Rows are read as the subscriber requests them.
+     */
+    public Flux<CarDto> findAllCarDtos() {
+        return client.sql("select c.id, c.vin, c.make, c.model, c.year_of_manufacture, o.id, o.name, o.email " +
+                        "from car c join owner o on o.id = c.owner_id " +
+                        "order by c.id")
+                .map(row -> {
+                    Integer year = row.get(4, Integer.class);
+                    return new CarDto(row.get(0, Long.class), row.get(1, String.class), row.get(2, String.class),
+                            row.get(3, String.class), year != null ? year : 0,
+                            row.get(5, Long.class), row.get(6, String.class), row.get(7, String.class));
+                })
+                .all();
+    }
+
+    public Mono<Boolean> existsById(Long carId) {
+        return client.sql("select count(*) from car where id = :carId")
+                .bind("carId", carId)
+                .map(row -> row.get(0, Long.class) > 0)
+                .one();
+    }
+
+    /**
+     * Whether a policy of the car covers {@code date}; empty when the car has no policy at all, which the blocking
+     * path's coverage index cannot tell apart from a car that does not exist.
+     */
+    public Mono<Boolean> isInsured(Long carId, LocalDate date) {
+        return client.sql("select max(case when p.start_date <= :date " +
+                        "and (p.end_date is null or p.end_date >= :date) then 1 else 0 end) " +
+                        "from insurancepolicy p where p.car_id = :carId " +
+                        "having count(*) > 0")
+                .bind("carId", carId)
+                .bind("date", date)
+                .map(row -> row.get(0, Integer.class) == 1)
+                .one();
+    }
+
+    /**
+     * Runs {@link CarRepository#HISTORY_SQL}: the events of one car in {@code [from, to]} ordered by
+     * (date, type, source id), strictly after the given position, at most {@code limit} rows.
+     */
+    public Flux<CarEventRow> findHistory(Long carId, LocalDate from, LocalDate to,
+                                         LocalDate afterDate, String afterType, Long afterSourceId, int limit) {
+        return client.sql(CarRepository.HISTORY_SQL)
+                .bind("carId", carId)
+                .bind("from", from)
+                .bind("to", to)
+                .bind("afterDate", afterDate)
+                .bind("afterType", afterType)
+                .bind("afterSourceId", afterSourceId)
+                .bind("limit", limit)
+                .<CarEventRow>map(row -> new EventRow(row.get(0, String.class), row.get(1, LocalDate.class),
+                        row.get(2, String.class), row.get(3, Long.class)))
+                .all();
+    }
+
+    @Override
+    public void destroy() {
+        pool.dispose();
+    }
+
+    private record EventRow(String type, LocalDate eventDate, String details, Long sourceId) implements CarEventRow {
+
+        @Override
+        public String getType() {
+            return type;
+        }
+
+        @Override
+        public LocalDate getEventDate() {
+            return eventDate;
+        }
+
+        @Override
+        public String getDetails() {
+            return details;
+        }
+
+        @Override
+        public Long getSourceId() {
+            return sourceId;
+        }
+    }
+}
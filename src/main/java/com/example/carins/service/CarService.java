@@ -7,153 +7,292 @@ import com.example.carins.model.InsuranceClaim;
 import com.example.carins.model.InsurancePolicy;
 import com.example.carins.model.Owner;
 import com.example.carins.repo.CarRepository;
+import com.example.carins.repo.ClaimTotalsRepository;
 import com.example.carins.repo.InsuranceClaimRepository;
-import com.example.carins.repo.InsurancePolicyRepository;
 import com.example.carins.repo.OwnerRepository;
+import com.example.carins.repo.projection.CarEventRow;
+import com.example.carins.repo.projection.CarVin;
+import com.example.carins.repo.projection.PortfolioRow;
+import com.example.carins.service.cache.ReferenceCache;
+import com.example.carins.service.event.CarCreatedEvent;
+import com.example.carins.service.event.ClaimCreatedEvent;
+import com.example.carins.service.index.CoverageBitmapIndex;
+import com.example.carins.service.index.CoverageIndex;
+import com.example.carins.service.index.VinIndex;
 import com.example.carins.service.mapper.Mapper;
 import com.example.carins.service.utils.DateUtils;
 import com.example.carins.web.dto.*;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
-import org.springframework.util.CollectionUtils;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static com.example.carins.service.ValidationMessages.CAR_ID_REQUIRED;
+import static com.example.carins.service.ValidationMessages.INVALID_DATE_RANGE;
+import static com.example.carins.service.ValidationMessages.LIMIT_OUT_OF_RANGE;
+import static com.example.carins.service.ValidationMessages.OWNER_ID_REQUIRED;
+import static com.example.carins.service.ValidationMessages.VIN_REQUIRED;
+import static com.example.carins.service.ValidationMessages.VIN_SEARCH_LIMIT_OUT_OF_RANGE;
 
 @Service
 public class CarService {
 
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_VIN_SEARCH_RESULTS = 100;
+
     private final CarRepository carRepository;
-    private final InsurancePolicyRepository policyRepository;
-    private final InsuranceClaimRepository claimRepository;
     private final OwnerRepository ownerRepository;
+    private final InsuranceClaimRepository claimRepository;
+    private final ReferenceCache referenceCache;
+    private final CoverageIndex coverageIndex;
+    private final CoverageBitmapIndex coverageBitmapIndex;
+    private final VinIndex vinIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ClaimTotalsService claimTotalsService;
+    private final PolicyWriter policyWriter;
 
-    public CarService(CarRepository carRepository, InsurancePolicyRepository policyRepository, InsuranceClaimRepository claimRepository, OwnerRepository ownerRepository) {
+    public CarService(CarRepository carRepository, OwnerRepository ownerRepository,
+                      InsuranceClaimRepository claimRepository, ReferenceCache referenceCache, CoverageIndex coverageIndex, CoverageBitmapIndex coverageBitmapIndex, VinIndex vinIndex,
+                      ApplicationEventPublisher eventPublisher, ClaimTotalsService claimTotalsService, PolicyWriter policyWriter) {
         this.carRepository = carRepository;
-        this.policyRepository = policyRepository;
-        this.claimRepository = claimRepository;
         this.ownerRepository = ownerRepository;
+        this.claimRepository = claimRepository;
+        this.referenceCache = referenceCache;
+        this.coverageIndex = coverageIndex;
+        this.coverageBitmapIndex = coverageBitmapIndex;
+        this.vinIndex = vinIndex;
+        this.eventPublisher = eventPublisher;
+        this.claimTotalsService = claimTotalsService;
+        this.policyWriter = policyWriter;
     }
 
-    public InsurancePolicy insertNewInsurancePolicy(Long carId, InsurancePolicyDto insurancePolicyDto) {
+    public SavedPolicyDto insertNewInsurancePolicy(Long carId, InsurancePolicyDto insurancePolicyDto) {
         if (carId == null) {
             throw new IllegalArgumentException(CAR_ID_REQUIRED);
         }
-        Car car = carRepository.findById(carId)
+        Car car = referenceCache.findCar(carId)
                 .orElseThrow(() -> new CarNotFoundException(carId));
 
-        if (!CollectionUtils.isEmpty(ClaimValidator.validatePolicy(insurancePolicyDto))) {
-            throw new ConstraintViolationException(ClaimValidator.validatePolicy(insurancePolicyDto));
+        Set<ConstraintViolation<InsurancePolicyDto>> violations = ClaimValidator.validatePolicy(insurancePolicyDto);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
         }
 
         InsurancePolicy insurancePolicy = Mapper.mapToInsurancePolicy(insurancePolicyDto);
         insurancePolicy.setCar(car);
 
-        return policyRepository.save(insurancePolicy);
+        return Mapper.mapToSavedPolicyDto(policyWriter.insert(carId, insurancePolicy), carId);
     }
 
-    public Car addNewCar(CarDto  carDto) {
-        if (!CollectionUtils.isEmpty(ClaimValidator.validateCar(carDto))) {
-            throw new ConstraintViolationException(ClaimValidator.validateCar(carDto));
+    public CarDto addNewCar(CarDto  carDto) {
+        Set<ConstraintViolation<CarDto>> violations = ClaimValidator.validateCar(carDto);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
         }
 
-        Owner owner = ownerRepository.findById(carDto.ownerId())
+        Owner owner = referenceCache.findOwner(carDto.ownerId())
                 .orElseThrow(() -> new OwnerNotFoundException(carDto.ownerId()));
 
         Car car = Mapper.mapToCar(carDto);
         car.setOwner(owner);
 
-        return carRepository.save(car);
+        Car saved = carRepository.save(car);
+        eventPublisher.publishEvent(new CarCreatedEvent(saved.getId(), saved.getVin()));
+        // the owner comes from the reference cache, so mapping it needs no query
+        return Mapper.mapToCarDto(saved);
+    }
+
+    /**
+     * Returns the car with exactly this VIN, ignoring case. The VIN is resolved by the in-memory index and the car
+     * read from the reference cache, which loads it with one query on a miss.
+     */
+    public CarDto findCarByVin(String vin) {
+        if (vin == null || vin.isBlank()) {
+            throw new IllegalArgumentException(VIN_REQUIRED);
+        }
+        Long carId = vinIndex.find(vin);
+        Car car = carId != null ? referenceCache.findCar(carId).orElse(null) : null;
+        if (car == null) {
+            throw new CarNotFoundException(vin);
+        }
+        return Mapper.mapToCarDto(car);
+    }
+
+    /**
+     * Returns up to {@code limit} cars whose VIN starts with {@code prefix}, ignoring case, in VIN order.
+     */
+    public List<CarVin> searchVins(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new IllegalArgumentException(VIN_REQUIRED);
+        }
+        if (limit < 1 || limit > MAX_VIN_SEARCH_RESULTS) {
+            throw new IllegalArgumentException(VIN_SEARCH_LIMIT_OUT_OF_RANGE);
+        }
+        return vinIndex.findByPrefix(prefix, limit);
     }
 
     public List<Car> listCars() {
         return carRepository.findAll();
     }
 
+    /**
+     * Returns up to {@code limit} cars with an id greater than {@code afterId}, ordered by id.
+     * Pass the id of the last car of a page as {@code afterId} to fetch the next one.
+     */
+    public List<CarDto> listCars(Long afterId, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException(LIMIT_OUT_OF_RANGE);
+        }
+        return carRepository.findCarDtosAfter(afterId != null ? afterId : 0L, Limit.of(limit));
+    }
+
+    /**
+     * Streams every car, in id order, from a database cursor; nothing is kept in the persistence context.
+     */
+    @Transactional(readOnly = true)
+    public void forEachCar(Consumer<CarDto> consumer) {
+        try (Stream<CarDto> cars = carRepository.streamAllCarDtos()) {
+            cars.forEach(consumer);
+        }
+    }
+
     public boolean isInsuranceValid(Long carId, LocalDate date) {
         DateUtils.checkDateErrors(date);
         if (carId == null) {
             throw new IllegalArgumentException(CAR_ID_REQUIRED);
         }
 
-        if (CollectionUtils.isEmpty(policyRepository.findByCarId(carId))) {
+        CoverageIndex.Lookup lookup = coverageIndex.lookup(carId, date);
+        if (lookup == CoverageIndex.Lookup.UNKNOWN_CAR) {
             throw new CarNotFoundException(carId);
         }
 
-        return policyRepository.existsActiveOnDate(carId, date);
+        return lookup == CoverageIndex.Lookup.COVERED;
     }
 
-    public InsuranceClaim createInsuranceClaim(Long carId, InsuranceClaimDto claim) {
+    /**
+     * Coverage of the car on every day of {@code [from, to]}: whether it was continuous, the covered and uninsured
+     * day counts and the uninsured ranges, answered from the coverage bitmaps.
+     */
+    public CoverageBitmapIndex.Report getCoverage(Long carId, LocalDate from, LocalDate to) {
         if (carId == null) {
             throw new IllegalArgumentException(CAR_ID_REQUIRED);
         }
+        DateUtils.checkDateErrors(from);
+        DateUtils.checkDateErrors(to);
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException(INVALID_DATE_RANGE);
+        }
+
+        return coverageBitmapIndex.report(carId, from, to).orElseGet(() -> {
+            // only cars with policies have a bitmap
+            if (!referenceCache.carExists(carId)) {
+                throw new CarNotFoundException(carId);
+            }
+            long days = to.toEpochDay() - from.toEpochDay() + 1;
+            return new CoverageBitmapIndex.Report(0, days, List.of(new CoverageBitmapIndex.Gap(from, to)));
+        });
+    }
 
-        if (!CollectionUtils.isEmpty(ClaimValidator.validate(claim))) {
-            throw new ConstraintViolationException(ClaimValidator.validate(claim));
+    /**
+     * Returns the owner's cars, each with the policy covering it on {@code date} (the latest starting one when
+     * several do) or none, read with a single query.
+     */
+    public OwnerPortfolioDto getOwnerPortfolio(Long ownerId, LocalDate date) {
+        if (ownerId == null) {
+            throw new IllegalArgumentException(OWNER_ID_REQUIRED);
         }
+        DateUtils.checkDateErrors(date);
+
+        List<PortfolioRow> rows = ownerRepository.findPortfolio(ownerId, date);
+        if (rows.isEmpty()) {
+            throw new OwnerNotFoundException(ownerId);
+        }
+
+        List<OwnerPortfolioDto.PortfolioCar> cars = new ArrayList<>(rows.size());
+        Long previousCarId = null;
+        for (PortfolioRow row : rows) {
+            if (row.carId() == null || row.carId().equals(previousCarId)) {
+                continue;
+            }
+            previousCarId = row.carId();
+            OwnerPortfolioDto.ActivePolicy policy = row.policyId() == null ? null
+                    : new OwnerPortfolioDto.ActivePolicy(row.policyId(), row.provider(), row.startDate(), row.endDate());
+            cars.add(new OwnerPortfolioDto.PortfolioCar(row.carId(), row.vin(), row.make(), row.model(), row.year(), policy));
+        }
+        PortfolioRow owner = rows.get(0);
+        return new OwnerPortfolioDto(owner.ownerId(), owner.ownerName(), date, cars);
+    }
 
-        Car car = carRepository.findById(carId)
+    @Transactional
+    public SavedClaimDto createInsuranceClaim(Long carId, InsuranceClaimDto claim) {
+        if (carId == null) {
+            throw new IllegalArgumentException(CAR_ID_REQUIRED);
+        }
+
+        Set<ConstraintViolation<InsuranceClaimDto>> violations = ClaimValidator.validate(claim);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+
+        Car car = referenceCache.findCar(carId)
                     .orElseThrow(() -> new CarNotFoundException(carId));
 
         InsuranceClaim insuranceClaim = Mapper.mapToInsuranceClaim(claim);
         insuranceClaim.setCar(car);
 
-        return claimRepository.save(insuranceClaim);
+        InsuranceClaim saved = claimRepository.save(insuranceClaim);
+        claimTotalsService.add(new ClaimTotalsRepository.Changes().add(carId, car.getOwner().getId(),
+                ClaimTotalsService.monthOf(claim.claimDate()), claim.amount()));
+        eventPublisher.publishEvent(new ClaimCreatedEvent(saved.getId(), carId));
+        return Mapper.mapToSavedClaimDto(saved, carId);
     }
 
     public List<CarEventDto> getCarEvents(Long carId) {
         if (carId == null) {
             throw new IllegalArgumentException(CAR_ID_REQUIRED);
         }
-        if (!carRepository.existsById(carId)) {
+        return findEvents(carId, HistoryQuery.HISTORY_START, HistoryQuery.HISTORY_END,
+                HistoryCursor.before(HistoryQuery.HISTORY_START), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns up to {@code limit} events of the car dated within {@code [from, to]} (both optional), starting after
+     * {@code cursor} when given. The page carries the cursor of the following page while more events may exist.
+     */
+    public CarEventPage getCarEvents(Long carId, LocalDate from, LocalDate to, String cursor, int limit) {
+        if (carId == null) {
+            throw new IllegalArgumentException(CAR_ID_REQUIRED);
+        }
+        HistoryQuery query = HistoryQuery.of(from, to, cursor, limit);
+        return query.page(findEvents(carId, query.from(), query.to(), query.after(), query.fetchSize()));
+    }
+
+    private List<CarEventDto> findEvents(Long carId, LocalDate from, LocalDate to, HistoryCursor after, int maxEvents) {
+        List<CarEventRow> rows = carRepository.findHistory(carId, from, to, after.date(), after.type(), after.sourceId(), maxEvents);
+        // an empty history is the only case where the car may not exist at all
+        if (rows.isEmpty() && !referenceCache.carExists(carId)) {
             throw new CarNotFoundException(carId);
         }
-        List<CarEventDto> claimEvents = claimRepository.findAllByCarIdOrderByDate(carId).stream()
-                .map(c -> new CarEventDto(
-                        CarEventType.CLAIM,
-                        c.getClaimDate().toInstant()
-                                .atZone(java.time.ZoneId.systemDefault())
-                                .toLocalDate(),
-                        "Insurance claim",
-                        c.getDescription(),
-                        c.getId()
-                ))
-                .toList();
-
-        List<CarEventDto> policyEvents = policyRepository.findAllByCarIdOrderByStartDate(carId).stream()
-                .flatMap(p -> {
-                    List<CarEventDto> list = new java.util.ArrayList<>();
-                    if (p.getStartDate() != null) {
-                        list.add(new CarEventDto(
-                                CarEventType.POLICY_START,
-                                p.getStartDate(),
-                                "Policy started",
-                                p.getProvider(),
-                                p.getId()
-                        ));
-                    }
-                    if (p.getEndDate() != null) {
-                        list.add(new CarEventDto(
-                                CarEventType.POLICY_END,
-                                p.getEndDate(),
-                                "Policy ended",
-                                p.getProvider(),
-                                p.getId()
-                        ));
-                    }
-                    return list.stream();
-                })
-                .toList();
-
-        List<CarEventDto> allEvents = new java.util.ArrayList<>(claimEvents.size() + policyEvents.size());
-        allEvents.addAll(claimEvents);
-        allEvents.addAll(policyEvents);
-        allEvents.sort(java.util.Comparator
-                .comparing(CarEventDto::date)
-                .thenComparing(e -> e.type().name()));
-
-        return allEvents;
+        return rows.stream().map(CarService::toEvent).toList();
+    }
+
+    static CarEventDto toEvent(CarEventRow row) {
+        CarEventType type = CarEventType.valueOf(row.getType());
+        String title = switch (type) {
+            case CLAIM -> "Insurance claim";
+            case POLICY_START -> "Policy started";
+            case POLICY_END -> "Policy ended";
+        };
+        return new CarEventDto(type, row.getEventDate(), title, row.getDetails(), row.getSourceId());
     }
 }
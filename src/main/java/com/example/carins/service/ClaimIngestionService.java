@@ -0,0 +1,171 @@
+package com.example.carins.service;
+
+import com.example.carins.exception.CarNotFoundException;
+import com.example.carins.model.InsuranceClaim;
+import com.example.carins.repo.CarRepository;
+import com.example.carins.repo.ClaimTotalsRepository;
+import com.example.carins.repo.InsuranceClaimRepository;
+import com.example.carins.service.event.ClaimCreatedEvent;
+import com.example.carins.service.mapper.Mapper;
+import com.example.carins.web.dto.ClaimIngestResult;
+import com.example.carins.web.dto.ClaimIngestRow;
+import com.example.carins.web.dto.ClaimIngestSummary;
+import com.example.carins.web.dto.InsuranceClaimDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static com.example.carins.service.ValidationMessages.CAR_ID_REQUIRED;
+
+/**
+ * Stores claims read from NDJSON, one claim per line. Lines are validated once, grouped into chunks,
+ * checked against the cars table with one query per chunk and inserted as JDBC batches, each chunk in
+ * its own transaction together with its claim totals. A failing chunk rejects only its own rows.
+ */
+@Service
+public class ClaimIngestionService {
+
+    static final int CHUNK_SIZE = 500;
+
+    private final CarRepository carRepository;
+    private final InsuranceClaimRepository claimRepository;
+    private final ClaimTotalsService claimTotalsService;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transaction;
+    private final ObjectReader rowReader;
+
+    public ClaimIngestionService(CarRepository carRepository, InsuranceClaimRepository claimRepository, ClaimTotalsService claimTotalsService,
+                                 EntityManager entityManager, ApplicationEventPublisher eventPublisher,
+                                 PlatformTransactionManager transactionManager, ObjectMapper objectMapper) {
+        this.carRepository = carRepository;
+        this.claimRepository = claimRepository;
+        this.claimTotalsService = claimTotalsService;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.rowReader = objectMapper.readerFor(ClaimIngestRow.class);
+    }
+
+    public ClaimIngestSummary ingest(Iterator<String> lines, Consumer<ClaimIngestResult> results) {
+        long startNanos = System.nanoTime();
+        long lineNumber = 0;
+        long rows = 0;
+        long stored = 0;
+        List<PendingRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        while (lines.hasNext()) {
+            String line = lines.next();
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            rows++;
+            chunk.add(parse(lineNumber, line));
+            if (chunk.size() == CHUNK_SIZE) {
+                stored += storeChunk(chunk, results);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            stored += storeChunk(chunk, results);
+        }
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+        double rowsPerSecond = elapsedNanos > 0 ? rows * 1_000_000_000.0 / elapsedNanos : 0;
+        return new ClaimIngestSummary(rows, stored, rows - stored, elapsedNanos / 1_000_000, rowsPerSecond);
+    }
+
+    private int storeChunk(List<PendingRow> chunk, Consumer<ClaimIngestResult> results) {
+        Set<Long> carIds = new HashSet<>();
+        for (PendingRow pending : chunk) {
+            if (pending.error() == null) {
+                carIds.add(pending.row().carId());
+            }
+        }
+        Map<Long, Long> ownerIds = new HashMap<>();
+        if (!carIds.isEmpty()) {
+            carRepository.findOwnerIds(carIds).forEach(car -> ownerIds.put(car.carId(), car.ownerId()));
+        }
+        Set<Long> existingCarIds = ownerIds.keySet();
+
+        List<InsuranceClaim> claims = new ArrayList<>(chunk.size());
+        String chunkError = null;
+        try {
+            transaction.executeWithoutResult(status -> {
+                ClaimTotalsRepository.Changes totals = new ClaimTotalsRepository.Changes();
+                for (PendingRow pending : chunk) {
+                    if (pending.error() != null || !existingCarIds.contains(pending.row().carId())) {
+                        continue;
+                    }
+                    InsuranceClaim claim = Mapper.mapToInsuranceClaim(pending.row().toClaimDto());
+                    claim.setCar(carRepository.getReferenceById(pending.row().carId()));
+                    claims.add(claim);
+                    totals.add(pending.row().carId(), ownerIds.get(pending.row().carId()),
+                            ClaimTotalsService.monthOf(claim.getClaimDate()), claim.getAmount());
+                }
+                claimRepository.saveAll(claims);
+                claimTotalsService.add(totals);
+                for (InsuranceClaim claim : claims) {
+                    eventPublisher.publishEvent(new ClaimCreatedEvent(claim.getId(), claim.getCar().getId()));
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+        } catch (RuntimeException e) {
+            chunkError = "The claim could not be stored: " + e.getMessage();
+        }
+
+        int stored = 0;
+        int next = 0;
+        for (PendingRow pending : chunk) {
+            Long carId = pending.row() != null ? pending.row().carId() : null;
+            if (pending.error() != null) {
+                results.accept(ClaimIngestResult.rejected(pending.line(), carId, pending.error()));
+            } else if (!existingCarIds.contains(carId)) {
+                results.accept(ClaimIngestResult.rejected(pending.line(), carId, new CarNotFoundException(carId).getMessage()));
+            } else if (chunkError != null) {
+                results.accept(ClaimIngestResult.rejected(pending.line(), carId, chunkError));
+            } else {
+                results.accept(ClaimIngestResult.stored(pending.line(), carId, claims.get(next++).getId()));
+                stored++;
+            }
+        }
+        return stored;
+    }
+
+    private PendingRow parse(long line, String json) {
+        ClaimIngestRow row;
+        try {
+            row = rowReader.readValue(json);
+        } catch (JsonProcessingException e) {
+            return new PendingRow(line, null, "The line is not a valid claim: " + e.getOriginalMessage());
+        }
+        if (row == null || row.carId() == null) {
+            return new PendingRow(line, row, CAR_ID_REQUIRED);
+        }
+        Set<ConstraintViolation<InsuranceClaimDto>> violations = ClaimValidator.validate(row.toClaimDto());
+        if (!violations.isEmpty()) {
+            return new PendingRow(line, row, new ConstraintViolationException(violations).getMessage());
+        }
+        return new PendingRow(line, row, null);
+    }
+
+    private record PendingRow(long line, ClaimIngestRow row, String error) {
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.carins.service;
+
+import com.example.carins.exception.CarNotFoundException;
+import com.example.carins.exception.OwnerNotFoundException;
+import com.example.carins.repo.ClaimTotalsRepository;
+import com.example.carins.repo.projection.ClaimTotal;
+import com.example.carins.service.cache.ReferenceCache;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+
+import static com.example.carins.service.ValidationMessages.CAR_ID_REQUIRED;
+import static com.example.carins.service.ValidationMessages.MONTH_INVALID;
+import static com.example.carins.service.ValidationMessages.OWNER_ID_REQUIRED;
+
+/**
+ * Claim totals per car, owner and month. They are changed in the transaction that stores the claims, so a
+ * committed claim is always counted and a rolled back one never is, and read with a single primary-key lookup.
+ */
+@Service
+public class ClaimTotalsService {
+
+    private final ClaimTotalsRepository totalsRepository;
+    private final ReferenceCache referenceCache;
+
+    public ClaimTotalsService(ClaimTotalsRepository totalsRepository, ReferenceCache referenceCache) {
+        this.totalsRepository = totalsRepository;
+        this.referenceCache = referenceCache;
+    }
+
+    /**
+     * Adds the claims to the totals; must run inside the transaction that inserts them.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void add(ClaimTotalsRepository.Changes changes) {
+        if (!changes.isEmpty()) {
+            totalsRepository.apply(changes);
+        }
+    }
+
+    public ClaimTotal getCarTotal(Long carId) {
+        if (carId == null) {
+            throw new IllegalArgumentException(CAR_ID_REQUIRED);
+        }
+        if (!referenceCache.carExists(carId)) {
+            throw new CarNotFoundException(carId);
+        }
+        return totalsRepository.findForCar(carId);
+    }
+
+    public ClaimTotal getOwnerTotal(Long ownerId) {
+        if (ownerId == null) {
+            throw new IllegalArgumentException(OWNER_ID_REQUIRED);
+        }
+        if (referenceCache.findOwner(ownerId).isEmpty()) {
+            throw new OwnerNotFoundException(ownerId);
+        }
+        return totalsRepository.findForOwner(ownerId);
+    }
+
+    /**
+     * Totals of the claims dated in the month, given as {@code yyyy-MM}.
+     */
+    public ClaimTotal getMonthTotal(String month) {
+        YearMonth yearMonth;
+        try {
+            yearMonth = YearMonth.parse(month);
+        } catch (DateTimeParseException | NullPointerException e) {
+            throw new IllegalArgumentException(MONTH_INVALID);
+        }
+        return totalsRepository.findForMonth(yearMonth);
+    }
+
+    /**
+     * The month of a claim date, in the zone H2 uses to store {@link Date} timestamps.
+     */
+    public static YearMonth monthOf(Date claimDate) {
+        return YearMonth.from(claimDate.toInstant().atZone(ZoneId.systemDefault()));
+    }
+}
@@ -11,10 +11,29 @@ import org.hibernate.validator.cfg.defs.*;
 
 import java.util.Set;
 
+/**
+ * Validates the incoming DTOs against programmatic constraint mappings.
+ * The mappings are compiled into a single {@link ValidatorFactory} when the class is loaded;
+ * the resulting {@link Validator} is thread-safe and shared by all calls.
+ */
 public class ClaimValidator {
 
+    private static final ValidatorFactory VALIDATOR_FACTORY = buildValidatorFactory();
+    private static final Validator VALIDATOR = VALIDATOR_FACTORY.getValidator();
+
     public static Set<ConstraintViolation<InsuranceClaimDto>> validate(InsuranceClaimDto dto) {
+        return VALIDATOR.validate(dto);
+    }
+
+    public static Set<ConstraintViolation<InsurancePolicyDto>> validatePolicy(InsurancePolicyDto dto) {
+        return VALIDATOR.validate(dto);
+    }
 
+    public static Set<ConstraintViolation<CarDto>> validateCar(CarDto dto) {
+        return VALIDATOR.validate(dto);
+    }
+
+    private static ValidatorFactory buildValidatorFactory() {
         HibernateValidatorConfiguration configuration = Validation
                 .byProvider(HibernateValidator.class)
                 .configure();
@@ -26,22 +45,6 @@ public class ClaimValidator {
                 .constraint(new NotNullDef())
                 .field("amount")
                 .constraint(new PositiveDef());
-
-        Validator customValidator = configuration
-                .addMapping(mapping)
-                .buildValidatorFactory()
-                .getValidator();
-
-        return customValidator.validate(dto);
-    }
-
-    public static Set<ConstraintViolation<InsurancePolicyDto>> validatePolicy(InsurancePolicyDto dto) {
-
-        HibernateValidatorConfiguration configuration = Validation
-                .byProvider(HibernateValidator.class)
-                .configure();
-
-        ConstraintMapping mapping = configuration.createConstraintMapping();
         mapping
                 .type(InsurancePolicyDto.class)
                 .field("endDate")
@@ -50,22 +53,6 @@ public class ClaimValidator {
                 .constraint(new PastOrPresentDef())
                 .field("provider")
                 .constraint(new NotNullDef());
-
-        Validator customValidator = configuration
-                .addMapping(mapping)
-                .buildValidatorFactory()
-                .getValidator();
-
-        return customValidator.validate(dto);
-    }
-
-    public static Set<ConstraintViolation<CarDto>> validateCar(CarDto dto) {
-
-        HibernateValidatorConfiguration configuration = Validation
-                .byProvider(HibernateValidator.class)
-                .configure();
-
-        ConstraintMapping mapping = configuration.createConstraintMapping();
         mapping
                 .type(CarDto.class)
                 .field("vin")
@@ -79,11 +66,8 @@ public class ClaimValidator {
                 .constraint(new NotNullDef())
                 .constraint(new MinDef().value(1991));
 
-        Validator customValidator = configuration
+        return configuration
                 .addMapping(mapping)
-                .buildValidatorFactory()
-                .getValidator();
-
-        return customValidator.validate(dto);
+                .buildValidatorFactory();
     }
 }
@@ -0,0 +1,307 @@
+package com.example.carins.service;
+
+import com.example.carins.repo.InsurancePolicyRepository;
+import com.example.carins.repo.projection.IdRange;
+import com.example.carins.repo.projection.PolicySpan;
+import com.example.carins.web.dto.CoverageFinding;
+import com.example.carins.web.dto.CoverageReportSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Finds every car with a gap between its policies, overlapping policies or a lapsed last policy, in one pass over
+ * the policies table. The car id space is split into ranges on a fork/join pool; each range streams its policies
+ * ordered by car and start date in its own read-only transaction and runs a sweep line per car. Findings reach
+ * the caller through a bounded queue, so memory holds at most one car's policies per worker plus the queue, and a
+ * slow reader slows the workers down instead of buffering the report.
+ */
+@Service
+public class CoverageGapService {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(CoverageGapService.class);
+
+    private static final long OPEN_ENDED = Long.MAX_VALUE;
+    private static final int BATCH_SIZE = 256;
+
+    private final InsurancePolicyRepository policyRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final ForkJoinPool pool;
+    private final long carsPerRange;
+    private final int queueCapacity;
+    private final Path directory;
+    private final ZoneId zoneId = ZoneId.systemDefault();
+    private final Timer runs;
+
+    public CoverageGapService(InsurancePolicyRepository policyRepository, PlatformTransactionManager transactionManager,
+                              ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                              @Value("${carins.coverage-report.parallelism:4}") int parallelism,
+                              @Value("${carins.coverage-report.cars-per-range:5000}") long carsPerRange,
+                              @Value("${carins.coverage-report.queue-capacity:64}") int queueCapacity,
+                              @Value("${carins.coverage-report.directory:reports}") String directory) {
+        this.policyRepository = policyRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.carsPerRange = carsPerRange;
+        this.queueCapacity = queueCapacity;
+        this.directory = Path.of(directory);
+        // each worker holds a connection while it sweeps a range; the pool never adds threads to make up for a
+        // worker blocked on the full queue, so the parallelism also bounds the connections taken
+        this.pool = new ForkJoinPool(parallelism, CoverageGapService::newWorker, null, false,
+                0, parallelism, 1, saturated -> true, 60, TimeUnit.SECONDS);
+        this.runs = Timer.builder("carins.coverage.report.runs").register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Writes today's report to {@code coverage-<date>.ndjson} in the report directory, one finding per line and a
+     * summary line last. The file only appears once complete.
+     */
+    @Scheduled(cron = "${carins.coverage-report.cron:0 0 4 * * *}")
+    public void writeDailyReport() {
+        LocalDate asOf = LocalDate.now(zoneId);
+        try {
+            Files.createDirectories(directory);
+            Path partial = Files.createTempFile(directory, "coverage-", ".partial");
+            CoverageReportSummary summary;
+            try (BufferedWriter writer = Files.newBufferedWriter(partial)) {
+                summary = run(asOf, finding -> writeLine(writer, finding));
+                writeLine(writer, Map.of("summary", summary));
+            } catch (RuntimeException | IOException e) {
+                Files.deleteIfExists(partial);
+                throw e;
+            }
+            Path report = directory.resolve("coverage-" + asOf + ".ndjson");
+            Files.move(partial, report, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Coverage report {}: {} gaps, {} overlaps and {} lapsed cars among {} cars in {} ms",
+                    report, summary.gaps(), summary.overlaps(), summary.lapsed(), summary.cars(), summary.elapsedMillis());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Passes every finding as of {@code asOf} to {@code findings} on the calling thread, the findings of one car
+     * together, and returns the totals. If {@code findings} throws, the sweep is cancelled.
+     */
+    public CoverageReportSummary run(LocalDate asOf, Consumer<CoverageFinding> findings) {
+        Timer.Sample sample = Timer.start();
+        long started = System.nanoTime();
+        long[] found = new long[CoverageFinding.Type.values().length];
+        Sweep sweep = new Sweep(asOf.toEpochDay(), new ArrayBlockingQueue<>(queueCapacity));
+
+        IdRange range = policyRepository.findCarIdRange();
+        if (range != null && range.min() != null) {
+            ForkJoinTask<Void> task = pool.submit(sweep.new RangeTask(range.min(), range.max() + 1));
+            try {
+                while (true) {
+                    List<CoverageFinding> batch = sweep.batches.poll(100, TimeUnit.MILLISECONDS);
+                    if (batch == null && task.isDone()) {
+                        // every batch was queued before the task completed
+                        batch = sweep.batches.poll();
+                        if (batch == null) {
+                            break;
+                        }
+                    }
+                    if (batch != null) {
+                        for (CoverageFinding finding : batch) {
+                            found[finding.type().ordinal()]++;
+                            findings.accept(finding);
+                        }
+                    }
+                }
+                task.join();
+            } catch (InterruptedException e) {
+                sweep.cancelled.set(true);
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while building the coverage report", e);
+            } catch (RuntimeException e) {
+                sweep.cancelled.set(true);
+                throw e;
+            }
+        }
+
+        sample.stop(runs);
+        return new CoverageReportSummary(asOf, sweep.cars.sum(), sweep.policies.sum(),
+                found[CoverageFinding.Type.GAP.ordinal()], found[CoverageFinding.Type.OVERLAP.ordinal()],
+                found[CoverageFinding.Type.LAPSED.ordinal()], (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Sweeps the policies of one car, ordered by start date, and adds its findings to {@code out}. The sweep keeps
+     * the day up to which the car is covered and the policy reaching furthest: a later policy starting after that
+     * day leaves a gap, one starting on or before it overlaps with that policy.
+     */
+    static void sweep(List<PolicySpan> policies, long asOfDay, List<CoverageFinding> out) {
+        Long coveringPolicy = null;
+        long coveredUntil = 0;
+        for (PolicySpan policy : policies) {
+            if (policy.startDate() == null) {
+                continue;
+            }
+            long start = policy.startDate().toEpochDay();
+            long end = policy.endDate() != null ? policy.endDate().toEpochDay() : OPEN_ENDED;
+            if (end < start) {
+                continue;
+            }
+            if (coveringPolicy != null) {
+                if (coveredUntil != OPEN_ENDED && start > coveredUntil + 1) {
+                    out.add(finding(policy.carId(), CoverageFinding.Type.GAP, coveredUntil + 1, start - 1, coveringPolicy, policy.policyId()));
+                } else if (start <= coveredUntil) {
+                    out.add(finding(policy.carId(), CoverageFinding.Type.OVERLAP, start, Math.min(end, coveredUntil), coveringPolicy, policy.policyId()));
+                }
+            }
+            if (coveringPolicy == null || end > coveredUntil) {
+                coveringPolicy = policy.policyId();
+                coveredUntil = end;
+            }
+        }
+        if (coveringPolicy != null && coveredUntil < asOfDay) {
+            out.add(finding(policies.get(0).carId(), CoverageFinding.Type.LAPSED, coveredUntil + 1, asOfDay, coveringPolicy, null));
+        }
+    }
+
+    private static CoverageFinding finding(Long carId, CoverageFinding.Type type, long from, long to, Long policyId, Long otherPolicyId) {
+        return new CoverageFinding(carId, type, LocalDate.ofEpochDay(from), to == OPEN_ENDED ? null : LocalDate.ofEpochDay(to),
+                policyId, otherPolicyId);
+    }
+
+    private void writeLine(BufferedWriter writer, Object value) {
+        try {
+            writer.write(objectMapper.writeValueAsString(value));
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ForkJoinWorkerThread newWorker(ForkJoinPool pool) {
+        ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        worker.setName("coverage-report-" + worker.getPoolIndex());
+        return worker;
+    }
+
+    /**
+     * State of one run, shared by its range tasks.
+     */
+    private final class Sweep {
+
+        private final long asOfDay;
+        private final BlockingQueue<List<CoverageFinding>> batches;
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final LongAdder cars = new LongAdder();
+        private final LongAdder policies = new LongAdder();
+
+        private Sweep(long asOfDay, BlockingQueue<List<CoverageFinding>> batches) {
+            this.asOfDay = asOfDay;
+            this.batches = batches;
+        }
+
+        private final class RangeTask extends RecursiveAction {
+
+            private final long fromCarId;
+            private final long toCarId;
+
+            private RangeTask(long fromCarId, long toCarId) {
+                this.fromCarId = fromCarId;
+                this.toCarId = toCarId;
+            }
+
+            @Override
+            protected void compute() {
+                if (cancelled.get()) {
+                    return;
+                }
+                if (toCarId - fromCarId > carsPerRange) {
+                    long middle = fromCarId + (toCarId - fromCarId) / 2;
+                    invokeAll(new RangeTask(fromCarId, middle), new RangeTask(middle, toCarId));
+                } else {
+                    readOnlyTransaction.executeWithoutResult(status -> sweepRange());
+                }
+            }
+
+            private void sweepRange() {
+                List<CoverageFinding> batch = new ArrayList<>();
+                List<PolicySpan> carPolicies = new ArrayList<>();
+                try (Stream<PolicySpan> stream = policyRepository.streamSpansOfCars(fromCarId, toCarId)) {
+                    Iterator<PolicySpan> iterator = stream.iterator();
+                    while (iterator.hasNext()) {
+                        PolicySpan policy = iterator.next();
+                        if (!carPolicies.isEmpty() && !carPolicies.get(0).carId().equals(policy.carId())) {
+                            batch = finishCar(carPolicies, batch);
+                        }
+                        carPolicies.add(policy);
+                    }
+                }
+                if (!carPolicies.isEmpty()) {
+                    batch = finishCar(carPolicies, batch);
+                }
+                if (!batch.isEmpty()) {
+                    publish(batch);
+                }
+            }
+
+            private List<CoverageFinding> finishCar(List<PolicySpan> carPolicies, List<CoverageFinding> batch) {
+                cars.increment();
+                policies.add(carPolicies.size());
+                sweep(carPolicies, asOfDay, batch);
+                carPolicies.clear();
+                if (batch.size() < BATCH_SIZE) {
+                    return batch;
+                }
+                publish(batch);
+                return new ArrayList<>();
+            }
+
+            private void publish(List<CoverageFinding> batch) {
+                try {
+                    while (!batches.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                        if (cancelled.get()) {
+                            throw new CancellationException("The coverage report was abandoned by its reader");
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("Interrupted while queueing coverage findings");
+                }
+            }
+        }
+    }
+}
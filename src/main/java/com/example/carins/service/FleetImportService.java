@@ -0,0 +1,438 @@
+package com.example.carins.service;
+
+import com.example.carins.exception.ImportJobNotFoundException;
+import com.example.carins.model.Car;
+import com.example.carins.model.InsurancePolicy;
+import com.example.carins.model.Owner;
+import com.example.carins.repo.CarRepository;
+import com.example.carins.repo.InsurancePolicyRepository;
+import com.example.carins.repo.OwnerRepository;
+import com.example.carins.repo.projection.CarVin;
+import com.example.carins.repo.projection.PolicySpan;
+import com.example.carins.service.event.CarCreatedEvent;
+import com.example.carins.service.event.PolicyCreatedEvent;
+import com.example.carins.service.mapper.Mapper;
+import com.example.carins.service.utils.VinUtils;
+import com.example.carins.web.dto.CarDto;
+import com.example.carins.web.dto.FleetImportStatus;
+import com.example.carins.web.dto.InsurancePolicyDto;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Imports cars and their policies from CSV files placed in the import directory. One row per policy:
+ * <pre>vin,make,model,year,ownerId,provider,startDate,endDate</pre>
+ * A row whose VIN is not known yet creates the car; the policy columns may be left empty. Jobs run one at a
+ * time in the background. Owner and VIN lookups are cached for the whole job and resolved with one query per
+ * chunk, ids come from pooled sequences and every {@code BATCH_SIZE} rows of a chunk are inserted as JDBC batches
+ * in their own transaction.
+ * <p>
+ * Policies follow the same rule as the API: a row whose period shares a day with a policy of the car, saved before
+ * or earlier in the file, is rejected. Each batch holds the {@link PolicyWriter} locks of its existing cars only
+ * until it commits, so API writes wait for at most one short transaction, and loads their policies with one query.
+ */
+@Service
+public class FleetImportService {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(FleetImportService.class);
+
+    static final int CHUNK_SIZE = 1000;
+    static final int BATCH_SIZE = 50;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final long PROGRESS_LOG_INTERVAL = 100_000;
+
+    private final CarRepository carRepository;
+    private final OwnerRepository ownerRepository;
+    private final InsurancePolicyRepository policyRepository;
+    private final PolicyWriter policyWriter;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transaction;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Path importDirectory;
+    private final long jobRetentionNanos;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "fleet-import"));
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    public FleetImportService(CarRepository carRepository, OwnerRepository ownerRepository,
+                              InsurancePolicyRepository policyRepository, PolicyWriter policyWriter,
+                              EntityManager entityManager, PlatformTransactionManager transactionManager,
+                              ApplicationEventPublisher eventPublisher,
+                              @Value("${carins.import.directory:imports}") Path importDirectory,
+                              @Value("${carins.import.job-retention:24h}") Duration jobRetention) {
+        this.carRepository = carRepository;
+        this.ownerRepository = ownerRepository;
+        this.policyRepository = policyRepository;
+        this.policyWriter = policyWriter;
+        this.entityManager = entityManager;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.importDirectory = importDirectory.toAbsolutePath().normalize();
+        this.jobRetentionNanos = jobRetention.toNanos();
+    }
+
+    public FleetImportStatus start(String fileName) {
+        if (fileName == null || fileName.isBlank()) {
+            throw new IllegalArgumentException(ValidationMessages.IMPORT_FILE_REQUIRED);
+        }
+        Path file = importDirectory.resolve(fileName).normalize();
+        if (!file.startsWith(importDirectory) || !Files.isRegularFile(file)) {
+            throw new IllegalArgumentException(ValidationMessages.IMPORT_FILE_NOT_FOUND);
+        }
+        pruneFinishedJobs(System.nanoTime());
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), fileName);
+        jobs.put(job.id, job);
+        executor.submit(() -> run(job, () -> new BufferedReader(
+                Channels.newReader(FileChannel.open(file, StandardOpenOption.READ), StandardCharsets.UTF_8), READ_BUFFER_SIZE),
+                CHUNK_SIZE, BATCH_SIZE));
+        return job.status();
+    }
+
+    /**
+     * Imports {@code csv} on the calling thread in chunks of {@code chunkSize} rows and returns the finished job.
+     */
+    FleetImportStatus importNow(String name, Reader csv, int chunkSize) {
+        return importNow(name, csv, chunkSize, BATCH_SIZE);
+    }
+
+    /**
+     * Like {@link #importNow(String, Reader, int)}, committing every {@code batchSize} rows of a chunk.
+     */
+    FleetImportStatus importNow(String name, Reader csv, int chunkSize, int batchSize) {
+        pruneFinishedJobs(System.nanoTime());
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), name);
+        jobs.put(job.id, job);
+        run(job, () -> new BufferedReader(csv), chunkSize, batchSize);
+        return job.status();
+    }
+
+    public FleetImportStatus status(String jobId) {
+        ImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new ImportJobNotFoundException(jobId);
+        }
+        return job.status();
+    }
+
+    /**
+     * Forgets the jobs that finished more than the retention period before {@code nowNanos}; their status is no
+     * longer reported. Called whenever a job starts, so the map holds at most the jobs of one retention period.
+     */
+    void pruneFinishedJobs(long nowNanos) {
+        jobs.values().removeIf(job -> job.finishedNanos != 0 && nowNanos - job.finishedNanos > jobRetentionNanos);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(ImportJob job, CsvSource source, int chunkSize, int batchSize) {
+        job.state = "RUNNING";
+        Map<String, Long> carIdsByVin = new HashMap<>();
+        Map<Long, Boolean> ownerExists = new HashMap<>();
+        try (BufferedReader reader = source.open()) {
+            String header = reader.readLine();
+            long lineNumber = 1;
+            List<ImportRow> chunk = new ArrayList<>(chunkSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                job.rowsRead.incrementAndGet();
+                chunk.add(parse(lineNumber, line));
+                if (chunk.size() == chunkSize) {
+                    importChunk(job, chunk, batchSize, carIdsByVin, ownerExists);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(job, chunk, batchSize, carIdsByVin, ownerExists);
+            }
+            job.state = header == null ? "FAILED" : "COMPLETED";
+            if (header == null) {
+                job.reject(0, "The file is empty.");
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Fleet import {} of {} failed", job.id, job.file, e);
+            job.state = "FAILED";
+            job.reject(0, e.getMessage());
+        } finally {
+            job.finishedNanos = System.nanoTime();
+            log.info("Fleet import {} of {} {}: {} rows, {} cars, {} policies, {} rejected",
+                    job.id, job.file, job.state, job.rowsRead, job.carsCreated, job.policiesCreated, job.rowsRejected);
+        }
+    }
+
+    private void importChunk(ImportJob job, List<ImportRow> chunk, int batchSize, Map<String, Long> carIdsByVin,
+                             Map<Long, Boolean> ownerExists) {
+        resolveLookups(chunk, carIdsByVin, ownerExists);
+        for (int from = 0; from < chunk.size(); from += batchSize) {
+            importBatch(job, chunk.subList(from, Math.min(from + batchSize, chunk.size())), carIdsByVin, ownerExists);
+        }
+
+        long rowsRead = job.rowsRead.get();
+        if (rowsRead / PROGRESS_LOG_INTERVAL != (rowsRead - chunk.size()) / PROGRESS_LOG_INTERVAL) {
+            log.info("Fleet import {} progress: {} rows, {} cars, {} policies, {} rejected",
+                    job.id, rowsRead, job.carsCreated, job.policiesCreated, job.rowsRejected);
+        }
+    }
+
+    /**
+     * Imports a few rows of a chunk in one short transaction, holding the locks of only their existing cars.
+     * Cars created by earlier batches are committed by then, so they are locked like any other.
+     */
+    private void importBatch(ImportJob job, List<ImportRow> batch, Map<String, Long> carIdsByVin, Map<Long, Boolean> ownerExists) {
+        Set<Long> insuredCarIds = existingCarsWithPolicies(batch, carIdsByVin);
+        List<CarCreatedEvent> createdCars = new ArrayList<>();
+        List<PolicyCreatedEvent> createdPolicies = new ArrayList<>();
+        List<String> rowErrors = new ArrayList<>();
+        try {
+            // cars created by this batch stay invisible to other writers until it commits, so they need no lock
+            policyWriter.withCarsLocked(insuredCarIds, () -> transaction.executeWithoutResult(status -> {
+                Map<Long, List<PolicySpan>> policiesByCar = new HashMap<>();
+                if (!insuredCarIds.isEmpty()) {
+                    for (PolicySpan span : policyRepository.findSpansByCarIdIn(insuredCarIds)) {
+                        policiesByCar.computeIfAbsent(span.carId(), carId -> new ArrayList<>()).add(span);
+                    }
+                }
+                for (ImportRow row : batch) {
+                    String error = row.error() != null ? row.error()
+                            : importRow(row, carIdsByVin, ownerExists, policiesByCar, createdCars, createdPolicies);
+                    if (error != null) {
+                        rowErrors.add("line " + row.line() + ": " + error);
+                    }
+                }
+                entityManager.flush();
+                entityManager.clear();
+                createdCars.forEach(eventPublisher::publishEvent);
+                createdPolicies.forEach(eventPublisher::publishEvent);
+            }));
+        } catch (RuntimeException e) {
+            createdCars.forEach(car -> carIdsByVin.remove(car.vin()));
+            job.reject(batch.size(), "lines " + batch.get(0).line() + "-" + batch.get(batch.size() - 1).line()
+                    + " were not imported: " + e.getMessage());
+            return;
+        }
+        job.carsCreated.addAndGet(createdCars.size());
+        job.policiesCreated.addAndGet(createdPolicies.size());
+        rowErrors.forEach(error -> job.reject(1, error));
+    }
+
+    /**
+     * Resolves, with one query each, the VINs and owner ids of the chunk that the job has not seen yet.
+     */
+    private void resolveLookups(List<ImportRow> chunk, Map<String, Long> carIdsByVin, Map<Long, Boolean> ownerExists) {
+        Set<String> unknownVins = new HashSet<>();
+        Set<Long> unknownOwners = new HashSet<>();
+        for (ImportRow row : chunk) {
+            if (row.error() != null) {
+                continue;
+            }
+            if (!carIdsByVin.containsKey(row.car().vin())) {
+                unknownVins.add(row.car().vin());
+            }
+            if (row.car().ownerId() != null && !ownerExists.containsKey(row.car().ownerId())) {
+                unknownOwners.add(row.car().ownerId());
+            }
+        }
+        if (!unknownVins.isEmpty()) {
+            for (CarVin carVin : carRepository.findByVinIn(unknownVins)) {
+                carIdsByVin.put(carVin.vin(), carVin.carId());
+            }
+        }
+        if (!unknownOwners.isEmpty()) {
+            unknownOwners.forEach(ownerId -> ownerExists.put(ownerId, Boolean.FALSE));
+            ownerRepository.findExistingIds(unknownOwners).forEach(ownerId -> ownerExists.put(ownerId, Boolean.TRUE));
+        }
+    }
+
+    private static Set<Long> existingCarsWithPolicies(List<ImportRow> batch, Map<String, Long> carIdsByVin) {
+        Set<Long> carIds = new HashSet<>();
+        for (ImportRow row : batch) {
+            if (row.error() == null && row.policy() != null) {
+                Long carId = carIdsByVin.get(row.car().vin());
+                if (carId != null) {
+                    carIds.add(carId);
+                }
+            }
+        }
+        return carIds;
+    }
+
+    private String importRow(ImportRow row, Map<String, Long> carIdsByVin, Map<Long, Boolean> ownerExists,
+                             Map<Long, List<PolicySpan>> policiesByCar, List<CarCreatedEvent> createdCars,
+                             List<PolicyCreatedEvent> createdPolicies) {
+        CarDto carDto = row.car();
+        Long carId = carIdsByVin.get(carDto.vin());
+        if (carId == null) {
+            Set<ConstraintViolation<CarDto>> violations = ClaimValidator.validateCar(carDto);
+            if (!violations.isEmpty()) {
+                return new ConstraintViolationException(violations).getMessage();
+            }
+            if (carDto.ownerId() == null || !ownerExists.getOrDefault(carDto.ownerId(), Boolean.FALSE)) {
+                return "Owner with id " + carDto.ownerId() + " does not exist.";
+            }
+            Car car = Mapper.mapToCar(carDto);
+            car.setOwner(entityManager.getReference(Owner.class, carDto.ownerId()));
+            entityManager.persist(car);
+            carId = car.getId();
+            carIdsByVin.put(carDto.vin(), carId);
+            createdCars.add(new CarCreatedEvent(carId, carDto.vin()));
+        }
+
+        InsurancePolicyDto policyDto = row.policy();
+        if (policyDto == null) {
+            return null;
+        }
+        Set<ConstraintViolation<InsurancePolicyDto>> violations = ClaimValidator.validatePolicy(policyDto);
+        if (!violations.isEmpty()) {
+            return new ConstraintViolationException(violations).getMessage();
+        }
+        List<PolicySpan> carPolicies = policiesByCar.computeIfAbsent(carId, id -> new ArrayList<>());
+        for (PolicySpan other : carPolicies) {
+            if (PolicyWriter.overlaps(policyDto.startDate(), policyDto.endDate(), other)) {
+                return "The policy overlaps policy " + other.policyId() + " of car with id " + carId + ".";
+            }
+        }
+        InsurancePolicy policy = Mapper.mapToInsurancePolicy(policyDto);
+        policy.setCar(entityManager.getReference(Car.class, carId));
+        entityManager.persist(policy);
+        carPolicies.add(new PolicySpan(policy.getId(), carId, policy.getStartDate(), policy.getEndDate()));
+        createdPolicies.add(new PolicyCreatedEvent(policy.getId(), carId, policy.getStartDate(), policy.getEndDate()));
+        return null;
+    }
+
+    private static ImportRow parse(long line, String csv) {
+        List<String> fields = splitCsvLine(csv);
+        if (fields.size() != 5 && fields.size() != 8) {
+            return new ImportRow(line, null, null, "Expected 5 or 8 columns but found " + fields.size() + ".");
+        }
+        try {
+            String vin = VinUtils.normalize(fields.get(0));
+            if (vin.isEmpty()) {
+                return new ImportRow(line, null, null, "The vin column is required.");
+            }
+            CarDto car = new CarDto(null, vin, emptyToNull(fields.get(1)), emptyToNull(fields.get(2)),
+                    fields.get(3).isEmpty() ? 0 : Integer.parseInt(fields.get(3)),
+                    fields.get(4).isEmpty() ? null : Long.valueOf(fields.get(4)), null, null);
+            InsurancePolicyDto policy = null;
+            if (fields.size() == 8 && !(fields.get(5).isEmpty() && fields.get(6).isEmpty() && fields.get(7).isEmpty())) {
+                policy = new InsurancePolicyDto(emptyToNull(fields.get(5)),
+                        fields.get(6).isEmpty() ? null : LocalDate.parse(fields.get(6)),
+                        fields.get(7).isEmpty() ? null : LocalDate.parse(fields.get(7)));
+            }
+            return new ImportRow(line, car, policy, null);
+        } catch (RuntimeException e) {
+            return new ImportRow(line, null, null, "The line could not be parsed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Splits one CSV line on commas, honouring double-quoted fields and doubled quotes inside them.
+     */
+    static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>(8);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    @FunctionalInterface
+    private interface CsvSource {
+        BufferedReader open() throws IOException;
+    }
+
+    private record ImportRow(long line, CarDto car, InsurancePolicyDto policy, String error) {
+    }
+
+    private static final class ImportJob {
+        private final String id;
+        private final String file;
+        private final long startedNanos = System.nanoTime();
+        private volatile long finishedNanos;
+        private volatile String state = "QUEUED";
+        private final AtomicLong rowsRead = new AtomicLong();
+        private final AtomicLong carsCreated = new AtomicLong();
+        private final AtomicLong policiesCreated = new AtomicLong();
+        private final AtomicLong rowsRejected = new AtomicLong();
+        private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+
+        private ImportJob(String id, String file) {
+            this.id = id;
+            this.file = file;
+        }
+
+        private void reject(long rows, String error) {
+            rowsRejected.addAndGet(rows);
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(error);
+            }
+        }
+
+        private FleetImportStatus status() {
+            long end = finishedNanos != 0 ? finishedNanos : System.nanoTime();
+            return new FleetImportStatus(id, file, state, rowsRead.get(), carsCreated.get(), policiesCreated.get(),
+                    rowsRejected.get(), (end - startedNanos) / 1_000_000, List.copyOf(errors));
+        }
+    }
+}
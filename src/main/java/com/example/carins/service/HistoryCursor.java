@@ -0,0 +1,44 @@
+package com.example.carins.service;
+
+import com.example.carins.web.dto.CarEventDto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import static com.example.carins.service.ValidationMessages.INVALID_CURSOR;
+
+/**
+ * Position in a car history ordered by (date, type, source id). Encoded as an opaque URL-safe token.
+ */
+record HistoryCursor(LocalDate date, String type, Long sourceId) {
+
+    /**
+     * A cursor positioned before every event on or after {@code from}.
+     */
+    static HistoryCursor before(LocalDate from) {
+        return new HistoryCursor(from.minusDays(1), "", 0L);
+    }
+
+    static HistoryCursor after(CarEventDto event) {
+        return new HistoryCursor(event.date(), event.type().name(), event.sourceId());
+    }
+
+    static HistoryCursor decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException(INVALID_CURSOR);
+            }
+            return new HistoryCursor(LocalDate.parse(parts[0]), parts[1], Long.parseLong(parts[2]));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException(INVALID_CURSOR);
+        }
+    }
+
+    String encode() {
+        String raw = date + "|" + type + "|" + sourceId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
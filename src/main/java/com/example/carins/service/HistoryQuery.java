@@ -0,0 +1,53 @@
+package com.example.carins.service;
+
+import com.example.carins.service.utils.DateUtils;
+import com.example.carins.web.dto.CarEventDto;
+import com.example.carins.web.dto.CarEventPage;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.example.carins.service.CarService.MAX_PAGE_SIZE;
+import static com.example.carins.service.ValidationMessages.INVALID_DATE_RANGE;
+import static com.example.carins.service.ValidationMessages.LIMIT_OUT_OF_RANGE;
+
+/**
+ * A validated request for one page of a car history, shared by the blocking and the reactive read paths.
+ * One event more than the page size is fetched to tell whether a following page exists.
+ */
+record HistoryQuery(LocalDate from, LocalDate to, HistoryCursor after, int limit) {
+
+    static final LocalDate HISTORY_START = LocalDate.of(1, 1, 1);
+    static final LocalDate HISTORY_END = LocalDate.of(9999, 12, 31);
+
+    static HistoryQuery of(LocalDate from, LocalDate to, String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException(LIMIT_OUT_OF_RANGE);
+        }
+        if (from != null) {
+            DateUtils.checkDateErrors(from);
+        }
+        if (to != null) {
+            DateUtils.checkDateErrors(to);
+        }
+        LocalDate lower = from != null ? from : HISTORY_START;
+        LocalDate upper = to != null ? to : HISTORY_END;
+        if (lower.isAfter(upper)) {
+            throw new IllegalArgumentException(INVALID_DATE_RANGE);
+        }
+        HistoryCursor after = cursor != null ? HistoryCursor.decode(cursor) : HistoryCursor.before(lower);
+        return new HistoryQuery(lower, upper, after, limit);
+    }
+
+    int fetchSize() {
+        return limit + 1;
+    }
+
+    CarEventPage page(List<CarEventDto> events) {
+        if (events.size() <= limit) {
+            return new CarEventPage(events, null);
+        }
+        List<CarEventDto> page = events.subList(0, limit);
+        return new CarEventPage(page, HistoryCursor.after(page.get(limit - 1)).encode());
+    }
+}
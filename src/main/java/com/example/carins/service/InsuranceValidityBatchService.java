@@ -0,0 +1,121 @@
+package com.example.carins.service;
+
+import com.example.carins.exception.CarNotFoundException;
+import com.example.carins.repo.CarRepository;
+import com.example.carins.repo.projection.PolicyInterval;
+import com.example.carins.service.utils.DateUtils;
+import com.example.carins.web.dto.InsuranceValidityQuery;
+import com.example.carins.web.dto.InsuranceValidityResult;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static com.example.carins.service.ValidationMessages.CAR_ID_REQUIRED;
+import static com.example.carins.service.ValidationMessages.INVALID_DATE_FORMAT;
+
+/**
+ * Evaluates insurance validity for a stream of (carId, date) pairs. Pairs are read in chunks; each chunk
+ * is answered with one query over the distinct cars it mentions, and results are emitted in input order.
+ * Invalid pairs are reported inline and never fail the rest of the batch. A car without policies is reported as not
+ * found, as {@link CarService#isInsuranceValid} does.
+ */
+@Service
+public class InsuranceValidityBatchService {
+
+    static final int CHUNK_SIZE = 1000;
+
+    private final CarRepository carRepository;
+
+    public InsuranceValidityBatchService(CarRepository carRepository) {
+        this.carRepository = carRepository;
+    }
+
+    public void evaluate(Iterator<InsuranceValidityQuery> queries, Consumer<InsuranceValidityResult> results) {
+        long index = 0;
+        List<PendingQuery> chunk = new ArrayList<>(CHUNK_SIZE);
+        while (queries.hasNext()) {
+            chunk.add(parse(index++, queries.next()));
+            if (chunk.size() == CHUNK_SIZE) {
+                evaluateChunk(chunk, results);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            evaluateChunk(chunk, results);
+        }
+    }
+
+    private void evaluateChunk(List<PendingQuery> chunk, Consumer<InsuranceValidityResult> results) {
+        Map<Long, List<PolicyInterval>> intervalsByCar = new HashMap<>();
+        for (PendingQuery pending : chunk) {
+            if (pending.error() == null) {
+                intervalsByCar.put(pending.query().carId(), null);
+            }
+        }
+        if (!intervalsByCar.isEmpty()) {
+            for (PolicyInterval interval : carRepository.findPolicyIntervalsByCarIds(intervalsByCar.keySet())) {
+                List<PolicyInterval> intervals = intervalsByCar.get(interval.carId());
+                if (intervals == null) {
+                    intervals = new ArrayList<>(2);
+                    intervalsByCar.put(interval.carId(), intervals);
+                }
+                intervals.add(interval);
+            }
+        }
+
+        for (PendingQuery pending : chunk) {
+            InsuranceValidityQuery query = pending.query();
+            if (pending.error() != null) {
+                results.accept(InsuranceValidityResult.error(pending.index(), query.carId(), query.date(), pending.error()));
+                continue;
+            }
+            List<PolicyInterval> intervals = intervalsByCar.get(query.carId());
+            // like the single check, which only knows cars through their policies
+            if (intervals == null) {
+                results.accept(InsuranceValidityResult.error(pending.index(), query.carId(), query.date(),
+                        new CarNotFoundException(query.carId()).getMessage()));
+                continue;
+            }
+            results.accept(InsuranceValidityResult.valid(pending.index(), query.carId(), query.date(),
+                    isActive(intervals, pending.date())));
+        }
+    }
+
+    private static boolean isActive(List<PolicyInterval> intervals, LocalDate date) {
+        for (PolicyInterval interval : intervals) {
+            if (!interval.startDate().isAfter(date)
+                    && (interval.endDate() == null || !interval.endDate().isBefore(date))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static PendingQuery parse(long index, InsuranceValidityQuery query) {
+        if (query == null) {
+            return new PendingQuery(index, new InsuranceValidityQuery(null, null), null, CAR_ID_REQUIRED);
+        }
+        if (query.carId() == null) {
+            return new PendingQuery(index, query, null, CAR_ID_REQUIRED);
+        }
+        try {
+            LocalDate date = query.date() != null ? LocalDate.parse(query.date()) : null;
+            DateUtils.checkDateErrors(date);
+            return new PendingQuery(index, query, date, null);
+        } catch (DateTimeParseException e) {
+            return new PendingQuery(index, query, null, INVALID_DATE_FORMAT);
+        } catch (IllegalArgumentException e) {
+            return new PendingQuery(index, query, null, e.getMessage());
+        }
+    }
+
+    private record PendingQuery(long index, InsuranceValidityQuery query, LocalDate date, String error) {
+    }
+}
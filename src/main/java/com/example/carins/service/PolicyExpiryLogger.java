@@ -1,42 +1,195 @@
 package com.example.carins.service;
 
-import com.example.carins.model.InsurancePolicy;
+import com.example.carins.model.JobCheckpoint;
 import com.example.carins.repo.InsurancePolicyRepository;
-import jakarta.transaction.Transactional;
+import com.example.carins.repo.JobCheckpointRepository;
+import com.example.carins.repo.projection.ExpiredPolicy;
+import com.example.carins.service.diagnostics.SqlBudget;
+import com.example.carins.service.event.PolicyExpiredEvent;
+import com.example.carins.service.expiry.PolicyExpiryWheel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Logs every policy once when it lapses, at the start of the day after its end date. {@link PolicyExpiryWheel}
+ * publishes the lapses from its startup on as {@link PolicyExpiredEvent}s; this job publishes the ones the wheel never
+ * held, the policies that ended before it was loaded, typically while the application was down.
+ * <p>
+ * A persisted high-water mark records the last end date fully processed, so a missed or failed run is caught up on
+ * the next one, including the run made at startup. Each date is read as id/carId/endDate projections in keyset
+ * chunks and the chunks are handed to a bounded worker pool; the mark only moves past a date once every chunk of
+ * that date has been processed. End dates the wheel covers only move the mark. A restart between a lapse and the
+ * next daily run publishes that day's lapses again.
+ */
 @Service
 public class PolicyExpiryLogger {
 
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(PolicyExpiryLogger.class);
+
+    static final String CHECKPOINT = "policy-expiry";
+
     private final InsurancePolicyRepository insuranceRepository;
+    private final JobCheckpointRepository checkpointRepository;
+    private final PolicyExpiryWheel expiryWheel;
+    private final ApplicationEventPublisher eventPublisher;
     private final ZoneId zoneId = ZoneId.systemDefault();
+    private final int chunkSize;
+    private final ThreadPoolExecutor workers;
+    private final ReentrantLock runLock = new ReentrantLock();
 
-    public PolicyExpiryLogger(InsurancePolicyRepository insuranceRepository) {
+    private final Counter rowsScanned;
+    private final Timer successfulRuns;
+    private final Timer failedRuns;
+    private final Counter skippedRuns;
+    private final AtomicLong lagDays = new AtomicLong();
+
+    public PolicyExpiryLogger(InsurancePolicyRepository insuranceRepository, JobCheckpointRepository checkpointRepository,
+                              PolicyExpiryWheel expiryWheel, ApplicationEventPublisher eventPublisher,
+                              MeterRegistry meterRegistry,
+                              @Value("${carins.policy-expiry.chunk-size:500}") int chunkSize,
+                              @Value("${carins.policy-expiry.workers:4}") int workerCount,
+                              @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
         this.insuranceRepository = insuranceRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.expiryWheel = expiryWheel;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+        // the pool still bounds concurrency when its threads are virtual
+        ThreadFactory threadFactory = virtualThreads
+                ? Thread.ofVirtual().name("policy-expiry-", 1).factory()
+                : Thread.ofPlatform().name("policy-expiry-", 1).factory();
+        // a full queue makes the reading thread process the chunk itself, which keeps reads in step with the workers
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workerCount * 2),
+                threadFactory,
+                (task, executor) -> {
+                    if (executor.isShutdown()) {
+                        throw new RejectedExecutionException("The policy expiry workers are shut down");
+                    }
+                    task.run();
+                });
+
+        this.rowsScanned = Counter.builder("carins.policy.expiry.rows").register(meterRegistry);
+        this.successfulRuns = Timer.builder("carins.policy.expiry.runs").tag("outcome", "success").register(meterRegistry);
+        this.failedRuns = Timer.builder("carins.policy.expiry.runs").tag("outcome", "failure").register(meterRegistry);
+        this.skippedRuns = Counter.builder("carins.policy.expiry.skipped").register(meterRegistry);
+        Gauge.builder("carins.policy.expiry.lag.days", lagDays, AtomicLong::get).register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
     }
 
     //@Scheduled(cron = "*/30 * * * * *") //test only
     @Scheduled(cron = "0 10 0 * * *")
-    @Transactional
+    // the wheel has published every lapse since startup, so the nightly run only moves the mark: the checkpoint read,
+    // and the select and update of saving it. The catch-up at startup is not budgeted
+    @SqlBudget(3)
+    @EventListener(ApplicationReadyEvent.class)
     public void logRecentlyExpiredPolicies() {
-        LocalDate today = LocalDate.now(zoneId);
+        processThrough(LocalDate.now(zoneId));
+    }
 
-        List<InsurancePolicy> candidates = insuranceRepository.findExpiredPolicies(today);
+    @EventListener
+    public void onPolicyExpired(PolicyExpiredEvent event) {
+        log.info("Policy {} for car {} lapsed at the end of {}", event.policyId(), event.carId(), event.endDate());
+    }
 
-        if (candidates.isEmpty()) return;
+    /**
+     * Processes every end date after the high-water mark that has lapsed by {@code today}, that is up to and including
+     * the day before. Returns the number of lapses published, or -1 when another run is already in progress.
+     */
+    long processThrough(LocalDate today) {
+        if (!runLock.tryLock()) {
+            skippedRuns.increment();
+            log.info("Policy expiry run skipped, the previous run is still in progress");
+            return -1;
+        }
+        Timer.Sample sample = Timer.start();
+        Timer outcome = failedRuns;
+        try {
+            LocalDate lastLapsed = today.minusDays(1);
+            JobCheckpoint checkpoint = checkpointRepository.findById(CHECKPOINT)
+                    .orElseGet(() -> new JobCheckpoint(CHECKPOINT, lastLapsed.minusDays(1)));
+            lagDays.set(Math.max(0, ChronoUnit.DAYS.between(checkpoint.getProcessedThrough(), lastLapsed)));
+            LocalDate wheelStart = expiryWheel.firstEndDate();
+
+            long processed = 0;
+            for (LocalDate date = checkpoint.getProcessedThrough().plusDays(1); !date.isAfter(lastLapsed); date = date.plusDays(1)) {
+                if (wheelStart == null || date.isBefore(wheelStart)) {
+                    processed += processDate(date);
+                }
+                checkpoint.setProcessedThrough(date);
+                checkpoint = checkpointRepository.save(checkpoint);
+                lagDays.set(ChronoUnit.DAYS.between(date, lastLapsed));
+            }
+            outcome = successfulRuns;
+            return processed;
+        } finally {
+            sample.stop(outcome);
+            runLock.unlock();
+        }
+    }
 
-        for (InsurancePolicy p : candidates) {
+    private long processDate(LocalDate date) {
+        List<Future<?>> pending = new ArrayList<>();
+        long scanned = 0;
+        Long afterId = 0L;
+        List<ExpiredPolicy> chunk;
+        do {
+            chunk = insuranceRepository.findExpiredPolicies(date, afterId, Limit.of(chunkSize));
+            if (chunk.isEmpty()) {
+                break;
+            }
+            scanned += chunk.size();
+            rowsScanned.increment(chunk.size());
+            afterId = chunk.get(chunk.size() - 1).id();
+            List<ExpiredPolicy> policies = chunk;
+            pending.add(workers.submit(() -> processChunk(policies)));
+        } while (chunk.size() == chunkSize);
+
+        for (Future<?> future : pending) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while processing policies expired on " + date, e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Processing policies expired on " + date + " failed", e.getCause());
+            }
+        }
+        return scanned;
+    }
 
-            log.info("Policy {} for car {} expired on {}",
-                    p.getId(),
-                    p.getCar() != null ? p.getCar().getId() : null,
-                    p.getEndDate());
+    private void processChunk(List<ExpiredPolicy> policies) {
+        for (ExpiredPolicy p : policies) {
+            eventPublisher.publishEvent(new PolicyExpiredEvent(p.id(), p.carId(), p.endDate()));
         }
     }
 }
@@ -0,0 +1,116 @@
+package com.example.carins.service;
+
+import com.example.carins.exception.PolicyOverlapException;
+import com.example.carins.model.InsurancePolicy;
+import com.example.carins.repo.InsurancePolicyRepository;
+import com.example.carins.repo.projection.PolicySpan;
+import com.example.carins.service.event.PolicyCreatedEvent;
+import com.example.carins.service.utils.StripedLocks;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Inserts policies so that no two policies of a car cover the same day. The overlap check and the insert run under
+ * the car's lock and commit in their own transaction before the lock is released, so of two concurrent requests for
+ * overlapping periods exactly one succeeds. Locks are striped by car id: policies of different cars only wait for
+ * each other when their cars share a stripe.
+ * <p>
+ * Bulk writers such as the fleet import hold the locks of all their cars through {@link #withCarsLocked} and check
+ * with {@link #overlaps}, the same rule as {@link InsurancePolicyRepository#findOverlappingIds}.
+ * <p>
+ * The locks live in this JVM; several instances writing to one database would need a database lock instead.
+ */
+@Component
+public class PolicyWriter {
+
+    private final InsurancePolicyRepository policyRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate newTransaction;
+    private final StripedLocks locks;
+
+    private final Counter overlaps;
+
+    public PolicyWriter(InsurancePolicyRepository policyRepository, ApplicationEventPublisher eventPublisher,
+                        PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                        @Value("${carins.policy.lock-stripes:1024}") int lockStripes) {
+        this.policyRepository = policyRepository;
+        this.eventPublisher = eventPublisher;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.locks = new StripedLocks(lockStripes);
+
+        this.overlaps = Counter.builder("carins.policy.overlaps").register(meterRegistry);
+    }
+
+    /**
+     * Saves the policy of {@code carId} and publishes its {@link PolicyCreatedEvent}, or throws
+     * {@link PolicyOverlapException} when an existing policy of the car covers any of its days.
+     */
+    public InsurancePolicy insert(Long carId, InsurancePolicy policy) {
+        ReentrantLock lock = locks.lockFor(carId);
+        lock.lock();
+        try {
+            InsurancePolicy saved = newTransaction.execute(status -> {
+                // a policy without a start date is never active, so it cannot overlap anything
+                if (policy.getStartDate() != null) {
+                    List<Long> overlapping = policyRepository.findOverlappingIds(carId, policy.getStartDate(),
+                            policy.getEndDate(), Limit.of(1));
+                    if (!overlapping.isEmpty()) {
+                        overlaps.increment();
+                        throw new PolicyOverlapException(carId, overlapping.get(0));
+                    }
+                }
+                return policyRepository.save(policy);
+            });
+            // published after the commit, so the in-memory indexes see the policy before the next insert for the car
+            eventPublisher.publishEvent(new PolicyCreatedEvent(saved.getId(), carId, saved.getStartDate(), saved.getEndDate()));
+            return saved;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs {@code work} holding the locks of all {@code carIds}, so that no policy of those cars is inserted by
+     * anyone else until it returns. {@code work} must commit its own transaction before returning.
+     */
+    public void withCarsLocked(Collection<Long> carIds, Runnable work) {
+        List<ReentrantLock> held = locks.locksFor(carIds);
+        int locked = 0;
+        try {
+            for (ReentrantLock lock : held) {
+                lock.lock();
+                locked++;
+            }
+            work.run();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                held.get(i).unlock();
+            }
+        }
+    }
+
+    /**
+     * Whether a policy covering {@code [startDate, endDate]} shares a day with {@code other}; a {@code null} end is
+     * open-ended and a policy without a start date overlaps nothing.
+     */
+    public static boolean overlaps(LocalDate startDate, LocalDate endDate, PolicySpan other) {
+        if (startDate == null || other.startDate() == null) {
+            return false;
+        }
+        return (endDate == null || !other.startDate().isAfter(endDate))
+                && (other.endDate() == null || !other.endDate().isBefore(startDate));
+    }
+}
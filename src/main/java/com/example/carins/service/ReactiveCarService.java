@@ -0,0 +1,68 @@
+package com.example.carins.service;
+
+import com.example.carins.exception.CarNotFoundException;
+import com.example.carins.repo.reactive.ReactiveCarRepository;
+import com.example.carins.service.utils.DateUtils;
+import com.example.carins.web.dto.CarDto;
+import com.example.carins.web.dto.CarEventPage;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+import static com.example.carins.service.ValidationMessages.CAR_ID_REQUIRED;
+
+/**
+ * Non-blocking counterpart of the read operations of {@link CarService}, with the same validation, errors and
+ * results. Validation failures are signalled as errors of the returned publisher rather than thrown.
+ */
+@Service
+public class ReactiveCarService {
+
+    private final ReactiveCarRepository repository;
+
+    public ReactiveCarService(ReactiveCarRepository repository) {
+        this.repository = repository;
+    }
+
+    public Flux<CarDto> streamCars() {
+        return repository.findAllCarDtos();
+    }
+
+    public Mono<Boolean> isInsuranceValid(Long carId, LocalDate date) {
+        return Mono.defer(() -> {
+            DateUtils.checkDateErrors(date);
+            if (carId == null) {
+                throw new IllegalArgumentException(CAR_ID_REQUIRED);
+            }
+            return repository.isInsured(carId, date)
+                    .switchIfEmpty(Mono.error(() -> new CarNotFoundException(carId)));
+        });
+    }
+
+    /**
+     * Returns the same page as {@link CarService#getCarEvents(Long, LocalDate, LocalDate, String, int)}.
+     */
+    public Mono<CarEventPage> getCarEvents(Long carId, LocalDate from, LocalDate to, String cursor, int limit) {
+        return Mono.defer(() -> {
+            if (carId == null) {
+                throw new IllegalArgumentException(CAR_ID_REQUIRED);
+            }
+            HistoryQuery query = HistoryQuery.of(from, to, cursor, limit);
+            HistoryCursor after = query.after();
+            return repository.findHistory(carId, query.from(), query.to(), after.date(), after.type(), after.sourceId(), query.fetchSize())
+                    .map(CarService::toEvent)
+                    .collectList()
+                    .flatMap(events -> {
+                        // an empty history is the only case where the car may not exist at all
+                        if (!events.isEmpty()) {
+                            return Mono.just(query.page(events));
+                        }
+                        return repository.existsById(carId).flatMap(exists -> exists
+                                ? Mono.just(query.page(events))
+                                : Mono.error(new CarNotFoundException(carId)));
+                    });
+        });
+    }
+}
@@ -11,4 +11,22 @@ public class ValidationMessages {
             "The specified date is not valid because it exceeds the maximum supported range";
     public static final String CAR_ID_REQUIRED =
             "The car id parameter is required and cannot be null.";
+    public static final String LIMIT_OUT_OF_RANGE =
+            "The limit parameter must be between 1 and 1000.";
+    public static final String INVALID_CURSOR =
+            "The cursor parameter is not valid. Use the nextCursor value of a previous page.";
+    public static final String INVALID_DATE_RANGE =
+            "The from date must not be after the to date.";
+    public static final String IMPORT_FILE_REQUIRED =
+            "The file parameter is required and cannot be empty.";
+    public static final String IMPORT_FILE_NOT_FOUND =
+            "The file does not exist in the import directory.";
+    public static final String VIN_REQUIRED =
+            "The vin parameter is required and cannot be empty.";
+    public static final String VIN_SEARCH_LIMIT_OUT_OF_RANGE =
+            "The limit parameter must be between 1 and 100.";
+    public static final String OWNER_ID_REQUIRED =
+            "The owner id parameter is required and cannot be null.";
+    public static final String MONTH_INVALID =
+            "The provided month format is invalid. Please use the ISO format: yyyy-MM.";
 }
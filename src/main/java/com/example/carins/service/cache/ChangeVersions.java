@@ -0,0 +1,77 @@
+package com.example.carins.service.cache;
+
+import com.example.carins.service.event.CarCreatedEvent;
+import com.example.carins.service.event.ClaimCreatedEvent;
+import com.example.carins.service.event.PolicyCreatedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Version counters behind the ETags of the car list and the car histories. The fleet version moves when a car is
+ * added, a car's version when one of its claims or policies is; both move only once the write has committed, so a
+ * response read before the commit is never served under the new tag.
+ * <p>
+ * Car versions live in a fixed array of slots indexed by car id. Ids are sequential, so cars share a slot only once
+ * there are more cars than slots, and then a write merely changes the tag of the other cars in its slot too. Tags
+ * start with a value drawn at startup, so a tag from before a restart never matches.
+ */
+@Component
+public class ChangeVersions {
+
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
+    private final AtomicLong fleetVersion = new AtomicLong();
+    private final AtomicLongArray carVersions;
+    private final int mask;
+
+    public ChangeVersions(@Value("${carins.etag.car-slots:65536}") int carSlots) {
+        if (Integer.bitCount(carSlots) != 1) {
+            throw new IllegalArgumentException("carins.etag.car-slots must be a power of two, was " + carSlots);
+        }
+        this.carVersions = new AtomicLongArray(carSlots);
+        this.mask = carSlots - 1;
+    }
+
+    /**
+     * The strong ETag of the car list, in every page size and order.
+     */
+    public String fleetTag() {
+        return "\"" + epoch + "-f" + fleetVersion.get() + "\"";
+    }
+
+    /**
+     * The strong ETag of the car's history, in every range and page.
+     */
+    public String carTag(long carId) {
+        return "\"" + epoch + "-c" + carId + "-" + carVersions.get(slot(carId)) + "\"";
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCarCreated(CarCreatedEvent event) {
+        fleetVersion.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPolicyCreated(PolicyCreatedEvent event) {
+        carChanged(event.carId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onClaimCreated(ClaimCreatedEvent event) {
+        carChanged(event.carId());
+    }
+
+    private void carChanged(Long carId) {
+        if (carId != null) {
+            carVersions.incrementAndGet(slot(carId));
+        }
+    }
+
+    private int slot(long carId) {
+        return (int) (carId & mask);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.carins.service.cache;
+
+import com.example.carins.model.Car;
+import com.example.carins.model.Owner;
+import com.example.carins.repo.CarRepository;
+import com.example.carins.repo.OwnerRepository;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of the cars and owners that inserts attach to. Entries are detached, fully loaded graphs
+ * (a car comes with its owner) bounded by size and time-to-live; they are shared between requests and must be
+ * treated as read-only. Missing ids are not cached.
+ * <p>
+ * {@link ReferenceCacheInvalidator} evicts an entity when it is updated or removed and again once the transaction
+ * completes. Eviction also drops a load of the same key that is still running, whose result is then never stored,
+ * so a read racing the update cannot put the old row back after the commit. Changing an owner drops every cached
+ * car, since cars carry their owner.
+ */
+@Component
+public class ReferenceCache {
+
+    private final CarRepository carRepository;
+    private final OwnerRepository ownerRepository;
+    private final AsyncCache<Long, Car> cars;
+    private final AsyncCache<Long, Owner> owners;
+
+    public ReferenceCache(CarRepository carRepository, OwnerRepository ownerRepository, MeterRegistry meterRegistry,
+                          @Value("${carins.cache.references.maximum-size:10000}") long maximumSize,
+                          @Value("${carins.cache.references.ttl:10m}") Duration ttl) {
+        this.carRepository = carRepository;
+        this.ownerRepository = ownerRepository;
+        this.cars = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(ttl).recordStats().buildAsync();
+        this.owners = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(ttl).recordStats().buildAsync();
+
+        monitor(meterRegistry, cars, "cars");
+        monitor(meterRegistry, owners, "owners");
+    }
+
+    public Optional<Car> findCar(Long carId) {
+        return Optional.ofNullable(load(cars, carId, id -> carRepository.findWithOwnerById(id).orElse(null)));
+    }
+
+    public Optional<Owner> findOwner(Long ownerId) {
+        return Optional.ofNullable(load(owners, ownerId, id -> ownerRepository.findById(id).orElse(null)));
+    }
+
+    public boolean carExists(Long carId) {
+        return findCar(carId).isPresent();
+    }
+
+    public void evictCar(Long carId) {
+        if (carId != null) {
+            cars.synchronous().invalidate(carId);
+        }
+    }
+
+    public void evictOwner(Long ownerId) {
+        if (ownerId != null) {
+            owners.synchronous().invalidate(ownerId);
+        }
+        cars.synchronous().invalidateAll();
+    }
+
+    /**
+     * Returns the cached value or loads it on the calling thread. Only an empty future is created inside the
+     * cache's map lock, so a database read never runs under a monitor that would pin a virtual thread; concurrent
+     * callers for the same key wait on that future. A future that completes with null is dropped.
+     */
+    private static <V> V load(AsyncCache<Long, V> cache, Long id, Function<Long, V> loader) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> future = cache.get(id, (key, executor) -> created);
+        if (future == created) {
+            try {
+                created.complete(loader.apply(id));
+            } catch (RuntimeException e) {
+                created.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private static void monitor(MeterRegistry meterRegistry, AsyncCache<Long, ?> cache, String name) {
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+        Gauge.builder("cache.hit.ratio", cache, c -> c.synchronous().stats().hitRate())
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+}
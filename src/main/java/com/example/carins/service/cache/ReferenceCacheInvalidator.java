@@ -0,0 +1,52 @@
+package com.example.carins.service.cache;
+
+import com.example.carins.model.Car;
+import com.example.carins.model.Owner;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA entity listener on {@link Car} and {@link Owner} that keeps {@link ReferenceCache} from serving a row
+ * after it changes. The entry is evicted when the change is flushed and once more when the transaction completes,
+ * dropping anything a concurrent read loaded from the old row in between.
+ */
+@Component
+public class ReferenceCacheInvalidator {
+
+    // Hibernate creates its listeners while the EntityManagerFactory starts, before the repositories the cache uses
+    private final ObjectProvider<ReferenceCache> referenceCache;
+
+    public ReferenceCacheInvalidator(ObjectProvider<ReferenceCache> referenceCache) {
+        this.referenceCache = referenceCache;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        ReferenceCache cache = referenceCache.getIfAvailable();
+        if (cache == null) {
+            return;
+        }
+        Runnable evict;
+        if (entity instanceof Car car) {
+            evict = () -> cache.evictCar(car.getId());
+        } else if (entity instanceof Owner owner) {
+            evict = () -> cache.evictOwner(owner.getId());
+        } else {
+            return;
+        }
+        evict.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict.run();
+                }
+            });
+        }
+    }
+}
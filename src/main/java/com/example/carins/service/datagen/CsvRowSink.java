@@ -0,0 +1,120 @@
+package com.example.carins.service.datagen;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+/**
+ * Writes a generated dataset as four CSV files, one per table, that {@link #load(DataSource, Path)} bulk-loads
+ * into H2 with {@code CSVREAD}. Generating once and loading the files is how a large dataset is shared between
+ * runs and machines.
+ */
+public class CsvRowSink implements RowSink {
+
+    static final String OWNERS = "owners.csv";
+    static final String CARS = "cars.csv";
+    static final String POLICIES = "policies.csv";
+    static final String CLAIMS = "claims.csv";
+
+    private final BufferedWriter owners;
+    private final BufferedWriter cars;
+    private final BufferedWriter policies;
+    private final BufferedWriter claims;
+
+    public CsvRowSink(Path directory) {
+        try {
+            Files.createDirectories(directory);
+            this.owners = open(directory.resolve(OWNERS), "id,name,email");
+            this.cars = open(directory.resolve(CARS), "id,vin,make,model,year_of_manufacture,owner_id");
+            this.policies = open(directory.resolve(POLICIES), "id,car_id,provider,start_date,end_date");
+            this.claims = open(directory.resolve(CLAIMS), "id,car_id,claim_date,description,amount");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void owner(long id, String name, String email) {
+        write(owners, id + "," + quote(name) + "," + quote(email));
+    }
+
+    @Override
+    public void car(long id, String vin, String make, String model, int year, long ownerId) {
+        write(cars, id + "," + quote(vin) + "," + quote(make) + "," + quote(model) + "," + year + "," + ownerId);
+    }
+
+    @Override
+    public void policy(long id, long carId, String provider, LocalDate startDate, LocalDate endDate) {
+        write(policies, id + "," + carId + "," + quote(provider) + "," + startDate + "," + endDate);
+    }
+
+    @Override
+    public void claim(long id, long carId, LocalDate claimDate, String description, double amount) {
+        write(claims, id + "," + carId + "," + claimDate + "," + quote(description) + "," + amount);
+    }
+
+    @Override
+    public void close() {
+        try (owners; cars; policies; claims) {
+            // closing flushes each writer
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Inserts the four files of {@code directory} with H2's {@code CSVREAD}, parents first, each file in its own
+     * statement, and moves the id generators past the loaded ids.
+     */
+    public static DataGenerator.Counts load(DataSource dataSource, Path directory) {
+        try (Connection connection = dataSource.getConnection()) {
+            long owners = insert(connection, "owner (id, name, email)", directory.resolve(OWNERS));
+            long cars = insert(connection, "car (id, vin, make, model, year_of_manufacture, owner_id)", directory.resolve(CARS));
+            long policies = insert(connection, "insurancepolicy (id, car_id, provider, start_date, end_date)", directory.resolve(POLICIES));
+            long claims = insert(connection, "insuranceclaim (id, car_id, claim_date, description, amount)", directory.resolve(CLAIMS));
+            JdbcRowSink.advanceIdGenerators(connection);
+            return new DataGenerator.Counts(owners, cars, policies, claims);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not load the generated dataset from " + directory, e);
+        }
+    }
+
+    private static long insert(Connection connection, String target, Path file) throws SQLException {
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("Missing dataset file " + file);
+        }
+        // CSVREAD takes no bind parameters, so the file name goes in as an escaped literal
+        String fileName = file.toAbsolutePath().toString().replace("'", "''");
+        try (Statement statement = connection.createStatement()) {
+            return statement.executeLargeUpdate("insert into " + target + " select * from csvread('" + fileName + "', null, 'charset=UTF-8')");
+        }
+    }
+
+    private static BufferedWriter open(Path file, String header) throws IOException {
+        BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        writer.write(header);
+        writer.newLine();
+        return writer;
+    }
+
+    private static void write(BufferedWriter writer, String line) {
+        try {
+            writer.write(line);
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String quote(String value) {
+        return value == null ? "" : '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
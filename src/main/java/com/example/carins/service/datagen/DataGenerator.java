@@ -0,0 +1,212 @@
+package com.example.carins.service.datagen;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Generates a synthetic dataset of owners, cars, policies and claims. The output depends only on the
+ * {@link Settings}: the same settings always produce the same rows, in the same order, whatever the sink.
+ * <p>
+ * Ids start at {@link #FIRST_ID}, clear of the rows from {@code import.sql}. The distributions aim at what real
+ * portfolios look like rather than at uniform noise:
+ * <ul>
+ *     <li>cars are spread over owners with a strong skew, so a few owners run fleets and many have one car;</li>
+ *     <li>each car has a history of consecutive policies, mostly yearly renewals, sometimes with a gap or a change
+ *     of provider, the newest one ending around the reference date;</li>
+ *     <li>a share of cars end their history with a long-term policy running years past the reference date;</li>
+ *     <li>claims are concentrated on a minority of cars and clustered in time around an incident.</li>
+ * </ul>
+ * The configured policy and claim totals are averages per car, so the generated totals match them closely but
+ * not exactly.
+ */
+public final class DataGenerator {
+
+    public static final long FIRST_ID = 1000;
+
+    private static final String[] FIRST_NAMES = {"Ana", "Bogdan", "Cristina", "Dan", "Elena", "Florin", "Gabriela",
+            "Horia", "Ioana", "Mihai", "Raluca", "Stefan", "Teodora", "Vlad"};
+    private static final String[] LAST_NAMES = {"Pop", "Ionescu", "Popescu", "Dumitru", "Stan", "Stoica", "Gheorghe",
+            "Matei", "Ciobanu", "Rusu", "Munteanu", "Marin"};
+    private static final String[][] MODELS = {
+            {"Dacia", "UU1", "Logan", "Sandero", "Duster", "Spring"},
+            {"VW", "WVW", "Golf", "Polo", "Passat", "Tiguan"},
+            {"Skoda", "TMB", "Octavia", "Fabia", "Superb", "Kodiaq"},
+            {"Renault", "VF1", "Clio", "Megane", "Captur"},
+            {"Ford", "WF0", "Focus", "Fiesta", "Kuga"},
+            {"Toyota", "JTD", "Corolla", "Yaris", "RAV4"},
+            {"BMW", "WBA", "Series 3", "Series 5", "X3"}};
+    // relative weight of each make above
+    private static final int[] MAKE_WEIGHTS = {30, 20, 15, 12, 10, 8, 5};
+    private static final String[] PROVIDERS = {"Allianz", "Groupama", "Generali", "Omniasig", "Asirom", "Grawe"};
+    private static final String[] INCIDENTS = {"Rear bumper", "Windshield crack", "Side mirror", "Hail damage",
+            "Parking scrape", "Front collision", "Stolen parts", "Flooded engine"};
+
+    private static final double GAP_PROBABILITY = 0.15;
+    private static final double PROVIDER_CHANGE_PROBABILITY = 0.3;
+    private static final double HALF_YEAR_POLICY_PROBABILITY = 0.2;
+    private static final double MEAN_CLAIMS_PER_CLUSTER = 3;
+
+    /**
+     * What to generate. {@code policies} and {@code claims} are totals over all cars; {@code openEndedRatio} is
+     * the share of cars whose newest policy is a long-term one; histories are laid out around {@code referenceDate}.
+     */
+    public record Settings(long seed, long owners, long cars, long policies, long claims,
+                           double openEndedRatio, LocalDate referenceDate) {
+
+        public Settings {
+            if (owners < 0 || cars < 0 || policies < 0 || claims < 0) {
+                throw new IllegalArgumentException("Row counts must not be negative");
+            }
+            if (cars > 0 && owners == 0) {
+                throw new IllegalArgumentException("Cars need at least one owner");
+            }
+            if (openEndedRatio < 0 || openEndedRatio > 1) {
+                throw new IllegalArgumentException("The open-ended ratio must be between 0 and 1");
+            }
+            if (referenceDate == null) {
+                throw new IllegalArgumentException("The reference date is required");
+            }
+        }
+
+        /**
+         * A dataset of {@code cars} cars with the proportions of a typical portfolio: two cars per owner,
+         * 2.5 policies and 1.5 claims per car.
+         */
+        public static Settings forCars(long seed, long cars, LocalDate referenceDate) {
+            return new Settings(seed, Math.max(1, cars / 2), cars, cars * 5 / 2, cars * 3 / 2, 0.1, referenceDate);
+        }
+    }
+
+    public record Counts(long owners, long cars, long policies, long claims) {
+
+        public long total() {
+            return owners + cars + policies + claims;
+        }
+    }
+
+    private DataGenerator() {
+    }
+
+    public static Counts generate(Settings settings, RowSink sink) {
+        SplittableRandom random = new SplittableRandom(settings.seed());
+        for (long i = 0; i < settings.owners(); i++) {
+            long id = FIRST_ID + i;
+            String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            sink.owner(id, first + " " + last, (first + "." + last + id + "@example.com").toLowerCase(Locale.ROOT));
+        }
+
+        double policiesPerCar = settings.cars() > 0 ? (double) settings.policies() / settings.cars() : 0;
+        double claimsPerCar = settings.cars() > 0 ? (double) settings.claims() / settings.cars() : 0;
+        long nextPolicyId = FIRST_ID;
+        long nextClaimId = FIRST_ID;
+        List<LocalDate[]> history = new ArrayList<>();
+        for (long i = 0; i < settings.cars(); i++) {
+            long carId = FIRST_ID + i;
+            // squaring a uniform draw favours low owner ids: a few owners get fleets, many get one car or none
+            long ownerId = FIRST_ID + (long) (settings.owners() * Math.pow(random.nextDouble(), 2));
+            String[] make = MODELS[weighted(random, MAKE_WEIGHTS)];
+            int year = settings.referenceDate().getYear() - (int) Math.min(25, random.nextExponential() * 6);
+            sink.car(carId, make[1] + String.format("%014d", carId), make[0], make[2 + random.nextInt(make.length - 2)], year, ownerId);
+
+            int policyCount = count(random, policiesPerCar, 1);
+            buildHistory(random, settings, policyCount, history);
+            String provider = PROVIDERS[random.nextInt(PROVIDERS.length)];
+            for (LocalDate[] period : history) {
+                if (random.nextDouble() < PROVIDER_CHANGE_PROBABILITY) {
+                    provider = PROVIDERS[random.nextInt(PROVIDERS.length)];
+                }
+                sink.policy(nextPolicyId++, carId, provider, period[0], period[1]);
+            }
+
+            int claimCount = count(random, claimsPerCar, MEAN_CLAIMS_PER_CLUSTER);
+            if (claimCount > 0) {
+                LocalDate first = history.isEmpty() ? settings.referenceDate().minusYears(1) : history.get(0)[0];
+                LocalDate last = history.isEmpty() ? settings.referenceDate() : history.get(history.size() - 1)[1];
+                // claims are in the past, unless the whole history starts after the reference date
+                if (last.isAfter(settings.referenceDate())) {
+                    last = first.isAfter(settings.referenceDate()) ? first : settings.referenceDate();
+                }
+                long span = Math.max(1, last.toEpochDay() - first.toEpochDay());
+                long incident = first.toEpochDay() + random.nextLong(span);
+                String description = INCIDENTS[random.nextInt(INCIDENTS.length)];
+                for (int c = 0; c < claimCount; c++) {
+                    long day = Math.clamp(incident + Math.round(random.nextGaussian() * 20), first.toEpochDay(), last.toEpochDay());
+                    double amount = Math.round(Math.exp(6.9 + random.nextGaussian() * 0.9) * 100) / 100.0;
+                    sink.claim(nextClaimId++, carId, LocalDate.ofEpochDay(day), description, Math.max(1, amount));
+                }
+            }
+        }
+        return new Counts(settings.owners(), settings.cars(), nextPolicyId - FIRST_ID, nextClaimId - FIRST_ID);
+    }
+
+    /**
+     * Lays out {@code count} consecutive policies ending around the reference date, oldest first.
+     */
+    private static void buildHistory(SplittableRandom random, Settings settings, int count, List<LocalDate[]> history) {
+        history.clear();
+        if (count == 0) {
+            return;
+        }
+        LocalDate end = settings.referenceDate().plusDays(random.nextInt(365));
+        LocalDate[][] periods = new LocalDate[count][];
+        for (int p = count - 1; p >= 0; p--) {
+            LocalDate start = random.nextDouble() < HALF_YEAR_POLICY_PROBABILITY
+                    ? end.minusMonths(6).plusDays(1)
+                    : end.minusYears(1).plusDays(1);
+            periods[p] = new LocalDate[]{start, end};
+            end = start.minusDays(1);
+            if (random.nextDouble() < GAP_PROBABILITY) {
+                end = end.minusDays(1 + random.nextInt(120));
+            }
+        }
+        if (random.nextDouble() < settings.openEndedRatio()) {
+            LocalDate[] newest = periods[count - 1];
+            newest[1] = newest[0].plusYears(5 + random.nextInt(11)).minusDays(1);
+        }
+        history.addAll(List.of(periods));
+    }
+
+    /**
+     * Draws a count with the given mean. Below {@code clusterMean} most draws are zero and the rest come as
+     * clusters averaging {@code clusterMean}; at or above it, every draw is one plus a geometric remainder.
+     */
+    private static int count(SplittableRandom random, double mean, double clusterMean) {
+        if (mean <= 0) {
+            return 0;
+        }
+        if (mean < clusterMean) {
+            if (random.nextDouble() >= mean / clusterMean) {
+                return 0;
+            }
+            mean = clusterMean;
+        }
+        return 1 + geometric(random, mean - 1);
+    }
+
+    private static int geometric(SplittableRandom random, double mean) {
+        if (mean <= 0) {
+            return 0;
+        }
+        double failure = mean / (1 + mean);
+        return (int) Math.min(1000, Math.floor(Math.log(1 - random.nextDouble()) / Math.log(failure)));
+    }
+
+    private static int weighted(SplittableRandom random, int[] weights) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        int draw = random.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            draw -= weights[i];
+            if (draw < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+}
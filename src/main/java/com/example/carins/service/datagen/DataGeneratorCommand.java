@@ -0,0 +1,50 @@
+package com.example.carins.service.datagen;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes a generated dataset to CSV files without starting the application:
+ * <pre>
+ * mvn -q compile exec:java -Dexec.mainClass=com.example.carins.service.datagen.DataGeneratorCommand \
+ *     -Dexec.args="--out=data/10m --cars=2000000 --owners=1000000 --policies=5000000 --claims=2000000"
+ * </pre>
+ * Options not given take the defaults of the {@code datagen} profile. Load the files by starting the application
+ * with {@code --spring.profiles.active=datagen --carins.datagen.csv-directory=data/10m}.
+ */
+public final class DataGeneratorCommand {
+
+    private DataGeneratorCommand() {
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        DataGenerator.Settings settings = new DataGenerator.Settings(
+                Long.parseLong(options.getOrDefault("seed", "42")),
+                Long.parseLong(options.getOrDefault("owners", "50000")),
+                Long.parseLong(options.getOrDefault("cars", "100000")),
+                Long.parseLong(options.getOrDefault("policies", "250000")),
+                Long.parseLong(options.getOrDefault("claims", "150000")),
+                Double.parseDouble(options.getOrDefault("open-ended-ratio", "0.1")),
+                LocalDate.parse(options.getOrDefault("reference-date", "2026-01-01")));
+        Path out = Path.of(options.getOrDefault("out", "data"));
+
+        long started = System.nanoTime();
+        DataGenerator.Counts counts;
+        try (CsvRowSink sink = new CsvRowSink(out)) {
+            counts = DataGenerator.generate(settings, sink);
+        }
+        long millis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        System.out.printf("Wrote %d owners, %d cars, %d policies and %d claims to %s in %d ms%n",
+                counts.owners(), counts.cars(), counts.policies(), counts.claims(), out.toAbsolutePath(), millis);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.carins.service.datagen;
+
+import com.example.carins.repo.ClaimTotalsRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+/**
+ * Fills the database with a synthetic dataset when the {@code datagen} profile is active: generated in place
+ * from the {@code carins.datagen.*} settings, or bulk-loaded from {@code carins.datagen.csv-directory} when that
+ * points at the output of {@link DataGeneratorCommand}.
+ * <p>
+ * The rows are written while the context starts, after Hibernate has created the schema and before the
+ * in-memory indexes take their first snapshot, so no index needs a rebuild. The claim totals are recomputed
+ * from the loaded claims.
+ */
+@Component
+@Profile("datagen")
+public class DataGeneratorInitializer implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(DataGeneratorInitializer.class);
+
+    private final DataSource dataSource;
+    private final ClaimTotalsRepository claimTotalsRepository;
+    private final DataGenerator.Settings settings;
+    private final String csvDirectory;
+    private final int batchSize;
+
+    // the EntityManagerFactory is only a dependency: the schema exists once it is built
+    public DataGeneratorInitializer(DataSource dataSource, EntityManagerFactory entityManagerFactory,
+                                    ClaimTotalsRepository claimTotalsRepository,
+                                    @Value("${carins.datagen.seed:42}") long seed,
+                                    @Value("${carins.datagen.owners:50000}") long owners,
+                                    @Value("${carins.datagen.cars:100000}") long cars,
+                                    @Value("${carins.datagen.policies:250000}") long policies,
+                                    @Value("${carins.datagen.claims:150000}") long claims,
+                                    @Value("${carins.datagen.open-ended-ratio:0.1}") double openEndedRatio,
+                                    @Value("${carins.datagen.reference-date:2026-01-01}") LocalDate referenceDate,
+                                    @Value("${carins.datagen.csv-directory:}") String csvDirectory,
+                                    @Value("${carins.datagen.batch-size:1000}") int batchSize) {
+        this.dataSource = dataSource;
+        this.claimTotalsRepository = claimTotalsRepository;
+        this.settings = new DataGenerator.Settings(seed, owners, cars, policies, claims, openEndedRatio, referenceDate);
+        this.csvDirectory = csvDirectory;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * The {@code datagen} settings as {@code name=value} properties, for starting the application on a given dataset.
+     */
+    public static String[] properties(DataGenerator.Settings settings) {
+        return new String[]{
+                "carins.datagen.seed=" + settings.seed(),
+                "carins.datagen.owners=" + settings.owners(),
+                "carins.datagen.cars=" + settings.cars(),
+                "carins.datagen.policies=" + settings.policies(),
+                "carins.datagen.claims=" + settings.claims(),
+                "carins.datagen.open-ended-ratio=" + settings.openEndedRatio(),
+                "carins.datagen.reference-date=" + settings.referenceDate()
+        };
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        long started = System.nanoTime();
+        DataGenerator.Counts counts;
+        if (csvDirectory.isBlank()) {
+            try (JdbcRowSink sink = new JdbcRowSink(dataSource, batchSize)) {
+                counts = DataGenerator.generate(settings, sink);
+            }
+        } else {
+            counts = CsvRowSink.load(dataSource, Path.of(csvDirectory));
+        }
+        claimTotalsRepository.rebuild();
+        long millis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        log.info("Loaded {} owners, {} cars, {} policies and {} claims in {} ms ({} rows/s)",
+                counts.owners(), counts.cars(), counts.policies(), counts.claims(), millis, counts.total() * 1000 / millis);
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.carins.service.datagen;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+/**
+ * Writes generated rows with batched JDBC inserts on one connection, committing once per batch. Pending rows of
+ * all four tables are flushed together, parents first.
+ * <p>
+ * Closing the sink moves the owner identity and the entity sequences past the written ids, so rows the
+ * application inserts afterwards do not collide with them.
+ */
+public class JdbcRowSink implements RowSink {
+
+    // allocationSize of the car, policy and claim sequence generators; pooled ids run up to the sequence value
+    private static final int SEQUENCE_ALLOCATION_SIZE = 50;
+
+    private final Connection connection;
+    private final boolean autoCommit;
+    private final int batchSize;
+    private final PreparedStatement owners;
+    private final PreparedStatement cars;
+    private final PreparedStatement policies;
+    private final PreparedStatement claims;
+    private int pending;
+
+    public JdbcRowSink(DataSource dataSource, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("The batch size must be positive");
+        }
+        this.batchSize = batchSize;
+        try {
+            this.connection = dataSource.getConnection();
+            this.autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            this.owners = connection.prepareStatement("insert into owner (id, name, email) values (?, ?, ?)");
+            this.cars = connection.prepareStatement("insert into car (id, vin, make, model, year_of_manufacture, owner_id) values (?, ?, ?, ?, ?, ?)");
+            this.policies = connection.prepareStatement("insert into insurancepolicy (id, car_id, provider, start_date, end_date) values (?, ?, ?, ?, ?)");
+            this.claims = connection.prepareStatement("insert into insuranceclaim (id, car_id, claim_date, description, amount) values (?, ?, ?, ?, ?)");
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not prepare the data generator inserts", e);
+        }
+    }
+
+    @Override
+    public void owner(long id, String name, String email) {
+        try {
+            owners.setLong(1, id);
+            owners.setString(2, name);
+            owners.setString(3, email);
+            owners.addBatch();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not write owner " + id, e);
+        }
+        added();
+    }
+
+    @Override
+    public void car(long id, String vin, String make, String model, int year, long ownerId) {
+        try {
+            cars.setLong(1, id);
+            cars.setString(2, vin);
+            cars.setString(3, make);
+            cars.setString(4, model);
+            cars.setInt(5, year);
+            cars.setLong(6, ownerId);
+            cars.addBatch();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not write car " + id, e);
+        }
+        added();
+    }
+
+    @Override
+    public void policy(long id, long carId, String provider, LocalDate startDate, LocalDate endDate) {
+        try {
+            policies.setLong(1, id);
+            policies.setLong(2, carId);
+            policies.setString(3, provider);
+            policies.setObject(4, startDate);
+            policies.setObject(5, endDate);
+            policies.addBatch();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not write policy " + id, e);
+        }
+        added();
+    }
+
+    @Override
+    public void claim(long id, long carId, LocalDate claimDate, String description, double amount) {
+        try {
+            claims.setLong(1, id);
+            claims.setLong(2, carId);
+            claims.setObject(3, claimDate.atStartOfDay());
+            claims.setString(4, description);
+            claims.setDouble(5, amount);
+            claims.addBatch();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not write claim " + id, e);
+        }
+        added();
+    }
+
+    @Override
+    public void close() {
+        try (connection; owners; cars; policies; claims) {
+            flush();
+            advanceIdGenerators(connection);
+            connection.commit();
+            connection.setAutoCommit(autoCommit);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not complete the data generator inserts", e);
+        }
+    }
+
+    /**
+     * Restarts the owner identity and the sequences of the other tables after their highest id.
+     */
+    static void advanceIdGenerators(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("alter table owner alter column id restart with " + (maxId(statement, "owner") + 1));
+            statement.execute("alter sequence car_seq restart with " + (maxId(statement, "car") + SEQUENCE_ALLOCATION_SIZE));
+            statement.execute("alter sequence policy_seq restart with " + (maxId(statement, "insurancepolicy") + SEQUENCE_ALLOCATION_SIZE));
+            statement.execute("alter sequence claim_seq restart with " + (maxId(statement, "insuranceclaim") + SEQUENCE_ALLOCATION_SIZE));
+        }
+    }
+
+    private static long maxId(Statement statement, String table) throws SQLException {
+        try (var result = statement.executeQuery("select coalesce(max(id), 0) from " + table)) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    private void added() {
+        if (++pending >= batchSize) {
+            try {
+                flush();
+                connection.commit();
+            } catch (SQLException e) {
+                throw new IllegalStateException("Could not write a batch of generated rows", e);
+            }
+        }
+    }
+
+    private void flush() throws SQLException {
+        owners.executeBatch();
+        cars.executeBatch();
+        policies.executeBatch();
+        claims.executeBatch();
+        pending = 0;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.carins.service.datagen;
+
+import java.time.LocalDate;
+
+/**
+ * Receives the rows of a generated dataset. Owners come first, then every car followed by its policies and
+ * claims, so a sink that writes in arrival order never breaks a foreign key.
+ */
+public interface RowSink extends AutoCloseable {
+
+    void owner(long id, String name, String email);
+
+    void car(long id, String vin, String make, String model, int year, long ownerId);
+
+    void policy(long id, long carId, String provider, LocalDate startDate, LocalDate endDate);
+
+    void claim(long id, long carId, LocalDate claimDate, String description, double amount);
+
+    @Override
+    void close();
+}
@@ -0,0 +1,25 @@
+package com.example.carins.service.diagnostics;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The number of SQL statements a request handler or {@code @Scheduled} job is expected to run at most. Runs over
+ * budget are logged with their statements and counted by {@link SqlBudgetObservationHandler}; methods without the
+ * annotation get {@code carins.sql.budget.default}.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SqlBudget {
+
+    /**
+     * For jobs whose statement count grows with the data they process.
+     */
+    int UNLIMITED = Integer.MAX_VALUE;
+
+    int value();
+}
@@ -0,0 +1,113 @@
+package com.example.carins.service.diagnostics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.scheduling.support.ScheduledTaskObservationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.lang.reflect.Method;
+
+/**
+ * Counts the SQL statements of every HTTP request and {@code @Scheduled} job run, by binding a
+ * {@link SqlStatementCounter.Recording} to the thread whenever the run's observation scope is open. Each run's count
+ * goes to {@code carins.sql.statements}, tagged with the operation ({@code GET /api/cars/{carId}/history} or
+ * {@code PolicyExpiryLogger.logRecentlyExpiredPolicies}). Runs over their {@link SqlBudget} are counted in
+ * {@code carins.sql.budget.exceeded} and logged with a breakdown of their statements.
+ * <p>
+ * Work handed to another thread outside the observation scope, such as a streamed response body, is not counted.
+ */
+@Component
+public class SqlBudgetObservationHandler implements ObservationHandler<Observation.Context> {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(SqlBudgetObservationHandler.class);
+
+    private final MeterRegistry meterRegistry;
+    private final int defaultBudget;
+
+    public SqlBudgetObservationHandler(MeterRegistry meterRegistry,
+                                       @Value("${carins.sql.budget.default:10}") int defaultBudget) {
+        this.meterRegistry = meterRegistry;
+        this.defaultBudget = defaultBudget;
+    }
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return context instanceof ServerRequestObservationContext || context instanceof ScheduledTaskObservationContext;
+    }
+
+    @Override
+    public void onStart(Observation.Context context) {
+        context.put(SqlStatementCounter.Recording.class, new SqlStatementCounter.Recording());
+    }
+
+    @Override
+    public void onScopeOpened(Observation.Context context) {
+        SqlStatementCounter.Recording recording = context.get(SqlStatementCounter.Recording.class);
+        if (recording != null) {
+            context.put(SqlStatementCounter.Binding.class, recording.bind());
+        }
+    }
+
+    @Override
+    public void onScopeClosed(Observation.Context context) {
+        SqlStatementCounter.Binding binding = (SqlStatementCounter.Binding) context.remove(SqlStatementCounter.Binding.class);
+        if (binding != null) {
+            binding.close();
+        }
+    }
+
+    @Override
+    public void onStop(Observation.Context context) {
+        SqlStatementCounter.Recording recording = context.get(SqlStatementCounter.Recording.class);
+        String operation = operation(context);
+        if (recording == null || operation == null) {
+            return;
+        }
+        int count = recording.count();
+        DistributionSummary.builder("carins.sql.statements")
+                .baseUnit("statements")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(count);
+
+        int budget = budget(context);
+        if (count > budget) {
+            Counter.builder("carins.sql.budget.exceeded").tag("operation", operation).register(meterRegistry).increment();
+            log.warn("{} ran over its SQL budget of {}: {}", operation, budget, recording.describe());
+        }
+    }
+
+    /**
+     * The route or the job method; null for requests that matched no route, so unknown paths add no meters.
+     */
+    private static String operation(Observation.Context context) {
+        if (context instanceof ServerRequestObservationContext request) {
+            String pattern = request.getPathPattern();
+            return pattern != null ? request.getCarrier().getMethod() + " " + pattern : null;
+        }
+        ScheduledTaskObservationContext job = (ScheduledTaskObservationContext) context;
+        return job.getTargetClass().getSimpleName() + "." + job.getMethod().getName();
+    }
+
+    private int budget(Observation.Context context) {
+        SqlBudget budget = null;
+        if (context instanceof ServerRequestObservationContext request) {
+            HttpServletRequest servletRequest = request.getCarrier();
+            if (servletRequest.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod handler) {
+                budget = handler.getMethodAnnotation(SqlBudget.class);
+            }
+        } else {
+            Method method = ((ScheduledTaskObservationContext) context).getMethod();
+            budget = method.getAnnotation(SqlBudget.class);
+        }
+        return budget != null ? budget.value() : defaultBudget;
+    }
+}
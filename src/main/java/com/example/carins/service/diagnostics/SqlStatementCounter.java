@@ -0,0 +1,137 @@
+package com.example.carins.service.diagnostics;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Attributes executed SQL statements to the recordings bound to the executing thread. Statements are reported by
+ * {@link StatementCountingDataSource}; recordings are bound by {@link SqlBudgetObservationHandler} for HTTP
+ * requests and scheduled jobs, and by tests through {@link #start()}:
+ * <pre>{@code
+ * try (SqlStatementCounter.Recording recording = SqlStatementCounter.start()) {
+ *     carService.getCarEvents(carId);
+ *     Assertions.assertEquals(1, recording.count(), recording::describe);
+ * }
+ * }</pre>
+ * Recordings nest: a statement counts for every recording bound on the thread. With nothing bound, reporting a
+ * statement costs one thread-local read.
+ */
+public final class SqlStatementCounter {
+
+    // distinct statements kept per recording for the breakdown; later ones are only counted
+    private static final int MAX_DISTINCT_STATEMENTS = 32;
+
+    private static final ThreadLocal<Binding> CURRENT = new ThreadLocal<>();
+
+    private SqlStatementCounter() {
+    }
+
+    /**
+     * Creates a recording and binds it to the calling thread until it is closed.
+     */
+    public static Recording start() {
+        Recording recording = new Recording();
+        recording.binding = recording.bind();
+        return recording;
+    }
+
+    static void statementExecuted(String sql) {
+        for (Binding binding = CURRENT.get(); binding != null; binding = binding.previous) {
+            binding.recording.add(sql);
+        }
+    }
+
+    /**
+     * Statements counted while bound to one or more threads. Safe to update from several threads at once.
+     */
+    public static final class Recording implements AutoCloseable {
+
+        private final AtomicInteger count = new AtomicInteger();
+        private final Map<String, LongAdder> statements = new ConcurrentHashMap<>();
+        private Binding binding;
+
+        Recording() {
+        }
+
+        public int count() {
+            return count.get();
+        }
+
+        /**
+         * Execution count per distinct SQL statement, for the first distinct statements seen.
+         */
+        public Map<String, Long> statements() {
+            return statements.entrySet().stream()
+                    .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().sum()));
+        }
+
+        /**
+         * The count followed by the statements, most executed first; a statement repeated once per row is the mark
+         * of an N+1 query.
+         */
+        public String describe() {
+            StringBuilder description = new StringBuilder().append(count()).append(" statements");
+            statements().entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                    .forEach(entry -> description.append(System.lineSeparator())
+                            .append("  ").append(entry.getValue()).append("x ").append(entry.getKey()));
+            return description.toString();
+        }
+
+        /**
+         * Binds this recording to the calling thread until the returned binding is closed, on top of whatever is
+         * already bound.
+         */
+        Binding bind() {
+            Binding bound = new Binding(this, CURRENT.get());
+            CURRENT.set(bound);
+            return bound;
+        }
+
+        @Override
+        public void close() {
+            if (binding != null) {
+                binding.close();
+                binding = null;
+            }
+        }
+
+        private void add(String sql) {
+            count.incrementAndGet();
+            LongAdder executions = statements.get(sql);
+            if (executions == null && statements.size() < MAX_DISTINCT_STATEMENTS) {
+                executions = statements.computeIfAbsent(sql, key -> new LongAdder());
+            }
+            if (executions != null) {
+                executions.increment();
+            }
+        }
+    }
+
+    static final class Binding implements AutoCloseable {
+
+        private final Recording recording;
+        private final Binding previous;
+
+        private Binding(Recording recording, Binding previous) {
+            this.recording = recording;
+            this.previous = previous;
+        }
+
+        /**
+         * Restores what was bound before. Bindings are closed in reverse order on the thread that opened them.
+         */
+        @Override
+        public void close() {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.carins.service.diagnostics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * Reports every statement execution on its connections to {@link SqlStatementCounter}, whichever API issued it:
+ * Hibernate, Spring JDBC or plain JDBC. A batch counts once per {@code executeBatch}, as one round trip.
+ */
+class StatementCountingDataSource extends DelegatingDataSource {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate",
+            "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    StatementCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return countingConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return countingConnection(super.getConnection(username, password));
+    }
+
+    private static Connection countingConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    Object result = invoke(proxy, connection, method, args);
+                    return switch (method.getName()) {
+                        case "prepareStatement" -> countingStatement(PreparedStatement.class, (Statement) result, (String) args[0]);
+                        case "prepareCall" -> countingStatement(CallableStatement.class, (Statement) result, (String) args[0]);
+                        case "createStatement" -> countingStatement(Statement.class, (Statement) result, null);
+                        default -> result;
+                    };
+                });
+    }
+
+    /**
+     * A prepared statement reports the SQL it was prepared with; a plain statement the SQL passed to execute.
+     */
+    private static <S extends Statement> S countingStatement(Class<S> type, Statement statement, String preparedSql) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (EXECUTE_METHODS.contains(method.getName())) {
+                String sql = preparedSql != null ? preparedSql
+                        : args != null && args.length > 0 && args[0] instanceof String executed ? executed
+                        : "batch";
+                SqlStatementCounter.statementExecuted(sql);
+            }
+            return invoke(proxy, statement, method, args);
+        };
+        return type.cast(Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    /**
+     * Calls the target, except for identity: a proxy equals only itself.
+     */
+    private static Object invoke(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                if (method.getParameterCount() == 1) {
+                    return proxy == args[0];
+                }
+                break;
+            case "hashCode":
+                if (method.getParameterCount() == 0) {
+                    return System.identityHashCode(proxy);
+                }
+                break;
+            default:
+                break;
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
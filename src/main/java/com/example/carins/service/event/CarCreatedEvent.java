@@ -0,0 +1,4 @@
+package com.example.carins.service.event;
+
+public record CarCreatedEvent(Long carId, String vin) {
+}
@@ -0,0 +1,4 @@
+package com.example.carins.service.event;
+
+public record ClaimCreatedEvent(Long claimId, Long carId) {
+}
@@ -0,0 +1,6 @@
+package com.example.carins.service.event;
+
+import java.time.LocalDate;
+
+public record PolicyCreatedEvent(Long policyId, Long carId, LocalDate startDate, LocalDate endDate) {
+}
@@ -0,0 +1,232 @@
+package com.example.carins.service.expiry;
+
+import com.example.carins.repo.InsurancePolicyRepository;
+import com.example.carins.repo.projection.ExpiredPolicy;
+import com.example.carins.service.event.PolicyCreatedEvent;
+import com.example.carins.service.event.PolicyExpiredEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Publishes a {@link PolicyExpiredEvent} the moment a policy lapses, at the start of the day after its end date.
+ * <p>
+ * Upcoming deadlines sit in a {@link TimingWheel} ticking once a second. Only policies ending within the look-ahead
+ * window are held; the window is loaded at startup, extended nightly, and new policies inside it are added once
+ * their {@link PolicyCreatedEvent} commits. Policies created while the window is being extended are remembered and
+ * skipped by the load, so none is scheduled twice.
+ */
+@Component
+public class PolicyExpiryWheel implements SmartInitializingSingleton {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(PolicyExpiryWheel.class);
+
+    // seconds, minutes, hours, days: 64 days ahead at one-second resolution
+    private static final int[] LEVELS = {60, 60, 24, 64};
+    private static final long TICK_MILLIS = 1000;
+
+    private final InsurancePolicyRepository policyRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ZoneId zoneId = ZoneId.systemDefault();
+    private final int lookAheadDays;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "expiry-wheel");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private TimingWheel wheel;
+    private LocalDate horizon;
+    private LocalDate firstEndDate;
+    private Set<Long> addedDuringLoad;
+
+    private final Counter fired;
+    private final Timer firingLag;
+
+    public PolicyExpiryWheel(InsurancePolicyRepository policyRepository, PlatformTransactionManager transactionManager,
+                             ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry,
+                             @Value("${carins.expiry-wheel.look-ahead-days:7}") int lookAheadDays) {
+        if (lookAheadDays < 1 || lookAheadDays >= LEVELS[3] - 1) {
+            throw new IllegalArgumentException("carins.expiry-wheel.look-ahead-days must be between 1 and " + (LEVELS[3] - 2));
+        }
+        this.policyRepository = policyRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.eventPublisher = eventPublisher;
+        this.lookAheadDays = lookAheadDays;
+
+        this.fired = Counter.builder("carins.expiry.wheel.fired").register(meterRegistry);
+        this.firingLag = Timer.builder("carins.expiry.wheel.firing.lag").register(meterRegistry);
+        Gauge.builder("carins.expiry.wheel.size", this, PolicyExpiryWheel::size).register(meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        lock.lock();
+        try {
+            wheel = new TimingWheel(System.currentTimeMillis() / TICK_MILLIS, LEVELS);
+            horizon = LocalDate.now(zoneId);
+            firstEndDate = horizon;
+        } finally {
+            lock.unlock();
+        }
+        extendWindow();
+        ticker.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPolicyCreated(PolicyCreatedEvent event) {
+        if (event.endDate() == null || event.policyId() == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (wheel == null || !event.endDate().isBefore(horizon)) {
+                return; // picked up when the window reaches it
+            }
+            if (addedDuringLoad != null) {
+                addedDuringLoad.add(event.policyId());
+            }
+            wheel.add(deadlineTick(event.endDate()), event.policyId(), event.carId() != null ? event.carId() : 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Loads the policies ending between the current horizon and the end of the look-ahead window.
+     */
+    @Scheduled(cron = "${carins.expiry-wheel.extend-cron:0 5 0 * * *}")
+    public void extendWindow() {
+        LocalDate from;
+        LocalDate to;
+        lock.lock();
+        try {
+            if (wheel == null) {
+                return;
+            }
+            from = horizon;
+            to = LocalDate.now(zoneId).plusDays(lookAheadDays);
+            if (!to.isAfter(from)) {
+                return;
+            }
+            horizon = to;
+            addedDuringLoad = new HashSet<>();
+        } finally {
+            lock.unlock();
+        }
+
+        long loaded = 0;
+        try {
+            loaded = readOnlyTransaction.execute(status -> {
+                long count = 0;
+                try (Stream<ExpiredPolicy> stream = policyRepository.streamEndingBetween(from, to)) {
+                    for (ExpiredPolicy policy : (Iterable<ExpiredPolicy>) stream::iterator) {
+                        if (schedule(policy)) {
+                            count++;
+                        }
+                    }
+                }
+                return count;
+            });
+        } finally {
+            lock.lock();
+            try {
+                addedDuringLoad = null;
+            } finally {
+                lock.unlock();
+            }
+        }
+        log.info("Expiry wheel loaded {} policies ending from {} to {}", loaded, from, to.minusDays(1));
+    }
+
+    /**
+     * The earliest end date whose lapse the wheel publishes. Policies ending before it had already lapsed when the
+     * wheel was loaded; {@code null} until then.
+     */
+    public LocalDate firstEndDate() {
+        lock.lock();
+        try {
+            return firstEndDate;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long size() {
+        lock.lock();
+        try {
+            return wheel != null ? wheel.size() : 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean schedule(ExpiredPolicy policy) {
+        lock.lock();
+        try {
+            if (addedDuringLoad.contains(policy.id())) {
+                return false;
+            }
+            return wheel.add(deadlineTick(policy.endDate()), policy.id(), policy.carId() != null ? policy.carId() : 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void tick() {
+        try {
+            List<long[]> expired = new ArrayList<>();
+            lock.lock();
+            try {
+                wheel.advanceTo(System.currentTimeMillis() / TICK_MILLIS,
+                        (deadlineTick, policyId, carId) -> expired.add(new long[]{deadlineTick, policyId, carId}));
+            } finally {
+                lock.unlock();
+            }
+            for (long[] entry : expired) {
+                firingLag.record(Math.max(0, System.currentTimeMillis() - entry[0] * TICK_MILLIS), TimeUnit.MILLISECONDS);
+                fired.increment();
+                LocalDate endDate = LocalDate.ofInstant(Instant.ofEpochSecond(entry[0]), zoneId).minusDays(1);
+                eventPublisher.publishEvent(new PolicyExpiredEvent(entry[1], entry[2], endDate));
+            }
+        } catch (RuntimeException e) {
+            // an exception would cancel the periodic task
+            log.error("Expiry wheel tick failed", e);
+        }
+    }
+
+    private long deadlineTick(LocalDate endDate) {
+        return endDate.plusDays(1).atStartOfDay(zoneId).toEpochSecond() * 1000 / TICK_MILLIS;
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.carins.service.expiry;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical timing wheel of (deadline, policyId, carId) entries, counted in ticks.
+ * <p>
+ * Level {@code L} has {@code slots[L]} slots of {@code ticksPerSlot[L]} ticks each; a slot holds the entries whose
+ * deadline falls in that slot's span. Inserting picks the lowest level whose span covers the delay and appends to
+ * one slot. Advancing one tick empties one level-0 slot and, on a level boundary, moves one higher slot down a
+ * level, so each entry is touched at most once per level. Entries live in primitive arrays, three longs each, and
+ * emptied slots drop their arrays. Not thread-safe; callers serialise access.
+ */
+final class TimingWheel {
+
+    @FunctionalInterface
+    interface Expiry {
+        void expired(long deadlineTick, long policyId, long carId);
+    }
+
+    private static final int ENTRY = 3;
+    private static final int INITIAL_BUCKET = 4 * ENTRY;
+
+    private final int[] slots;
+    private final long[] ticksPerSlot;
+    private final long range;
+    private final long[][][] buckets;
+    private final int[][] bucketSizes;
+    private long currentTick;
+    private long size;
+
+    /**
+     * @param slots slots per level, lowest level first; each level's slot spans the whole level below it
+     */
+    TimingWheel(long startTick, int... slots) {
+        this.slots = slots.clone();
+        this.ticksPerSlot = new long[slots.length];
+        this.buckets = new long[slots.length][][];
+        this.bucketSizes = new int[slots.length][];
+        long span = 1;
+        for (int level = 0; level < slots.length; level++) {
+            ticksPerSlot[level] = span;
+            span *= slots[level];
+            buckets[level] = new long[slots[level]][];
+            bucketSizes[level] = new int[slots[level]];
+        }
+        this.range = span;
+        this.currentTick = startTick;
+    }
+
+    long currentTick() {
+        return currentTick;
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * Ticks ahead of the current tick that the wheel can hold.
+     */
+    long range() {
+        return range;
+    }
+
+    /**
+     * Schedules an entry. Returns false when its deadline is not after the current tick; the caller should treat
+     * it as expired.
+     *
+     * @throws IllegalArgumentException when the deadline is beyond {@link #range()}
+     */
+    boolean add(long deadlineTick, long policyId, long carId) {
+        if (deadlineTick <= currentTick) {
+            return false;
+        }
+        if (deadlineTick - currentTick >= range) {
+            throw new IllegalArgumentException("Deadline " + deadlineTick + " is beyond the wheel range");
+        }
+        place(deadlineTick, policyId, carId);
+        size++;
+        return true;
+    }
+
+    /**
+     * Advances the wheel to {@code targetTick}, reporting every entry whose deadline has been reached.
+     */
+    void advanceTo(long targetTick, Expiry expiry) {
+        while (currentTick < targetTick) {
+            currentTick++;
+            for (int level = slots.length - 1; level > 0; level--) {
+                if (currentTick % ticksPerSlot[level] == 0) {
+                    cascade(level, slotOf(level, currentTick));
+                }
+            }
+            fire(slotOf(0, currentTick), expiry);
+        }
+    }
+
+    private void place(long deadlineTick, long policyId, long carId) {
+        long delay = deadlineTick - currentTick;
+        int level = 0;
+        while (delay >= ticksPerSlot[level] * slots[level]) {
+            level++;
+        }
+        int slot = slotOf(level, deadlineTick);
+        long[] bucket = buckets[level][slot];
+        int used = bucketSizes[level][slot];
+        if (bucket == null) {
+            bucket = new long[INITIAL_BUCKET];
+            buckets[level][slot] = bucket;
+        } else if (used == bucket.length) {
+            bucket = Arrays.copyOf(bucket, bucket.length * 2);
+            buckets[level][slot] = bucket;
+        }
+        bucket[used] = deadlineTick;
+        bucket[used + 1] = policyId;
+        bucket[used + 2] = carId;
+        bucketSizes[level][slot] = used + ENTRY;
+    }
+
+    private void cascade(int level, int slot) {
+        long[] bucket = buckets[level][slot];
+        int used = bucketSizes[level][slot];
+        if (bucket == null) {
+            return;
+        }
+        buckets[level][slot] = null;
+        bucketSizes[level][slot] = 0;
+        for (int i = 0; i < used; i += ENTRY) {
+            place(bucket[i], bucket[i + 1], bucket[i + 2]);
+        }
+    }
+
+    private void fire(int slot, Expiry expiry) {
+        long[] bucket = buckets[0][slot];
+        int used = bucketSizes[0][slot];
+        if (bucket == null) {
+            return;
+        }
+        buckets[0][slot] = null;
+        bucketSizes[0][slot] = 0;
+        size -= used / ENTRY;
+        for (int i = 0; i < used; i += ENTRY) {
+            expiry.expired(bucket[i], bucket[i + 1], bucket[i + 2]);
+        }
+    }
+
+    private int slotOf(int level, long tick) {
+        return (int) ((tick / ticksPerSlot[level]) % slots[level]);
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.carins.service.index;
+
+import com.example.carins.repo.InsurancePolicyRepository;
+import com.example.carins.repo.projection.PolicyInterval;
+import com.example.carins.service.event.PolicyCreatedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory coverage bitmaps per car, one bit per epoch day, answering range questions ("covered every day from X
+ * to Y", "which days were uninsured") with one pass over 64-day words instead of a lookup per day.
+ * <p>
+ * Each car maps to a single {@code long[]}: the index of its first word, the first day of an open-ended policy
+ * ({@link #NEVER} if none) and the words from the first to the last day of its closed policies. Days after the
+ * open-ended start are covered without storing bits, so a car insured for three years takes about 200 bytes.
+ * Arrays are copy-on-write and the index follows the same life cycle as {@link CoverageIndex}: built before the
+ * web server starts, kept in step by {@link PolicyCreatedEvent}s and rebuilt nightly.
+ */
+@Component
+public class CoverageBitmapIndex implements SmartInitializingSingleton {
+
+    public record Gap(LocalDate from, LocalDate to) {
+    }
+
+    public record Report(long coveredDays, long uninsuredDays, List<Gap> gaps) {
+
+        public boolean continuous() {
+            return gaps.isEmpty();
+        }
+    }
+
+    static final long NEVER = Long.MAX_VALUE;
+    static final int HEADER = 2;
+    private static final long[] NO_COVERAGE = {0, NEVER};
+    // object header and length of each car's array, on a 64-bit JVM with compressed pointers
+    private static final long ARRAY_OVERHEAD = 16;
+
+    private final InsurancePolicyRepository policyRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Map<Long, long[]> bitmapsByCar = new ConcurrentHashMap<>();
+    private volatile long bytes;
+    private List<PolicyInterval> addedDuringRebuild;
+
+    private final Timer rebuilds;
+
+    public CoverageBitmapIndex(InsurancePolicyRepository policyRepository, PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry) {
+        this.policyRepository = policyRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        this.rebuilds = Timer.builder("carins.coverage.bitmap.rebuilds").register(meterRegistry);
+        Gauge.builder("carins.coverage.bitmap.cars", this, index -> index.bitmapsByCar.size()).register(meterRegistry);
+        Gauge.builder("carins.coverage.bitmap.bytes", this, index -> index.bytes).baseUnit("bytes").register(meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    /**
+     * Covered and uninsured days of the car in {@code [from, to]} and its uninsured ranges, or empty for a car
+     * without policies.
+     */
+    public Optional<Report> report(Long carId, LocalDate from, LocalDate to) {
+        long[] bitmap = bitmapsByCar.get(carId);
+        if (bitmap == null) {
+            return Optional.empty();
+        }
+        long first = from.toEpochDay();
+        long last = to.toEpochDay();
+        long covered = coveredDays(bitmap, first, last);
+        List<Gap> gaps = new ArrayList<>();
+        for (long day = first; day <= last; ) {
+            long gapStart = nextDay(bitmap, day, last, false);
+            if (gapStart == NEVER) {
+                break;
+            }
+            long gapEnd = nextDay(bitmap, gapStart, last, true);
+            gapEnd = gapEnd == NEVER ? last : gapEnd - 1;
+            gaps.add(new Gap(LocalDate.ofEpochDay(gapStart), LocalDate.ofEpochDay(gapEnd)));
+            day = gapEnd + 1;
+        }
+        return Optional.of(new Report(covered, last - first + 1 - covered, gaps));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPolicyCreated(PolicyCreatedEvent event) {
+        add(new PolicyInterval(event.carId(), event.startDate(), event.endDate()));
+    }
+
+    @Scheduled(cron = "${carins.coverage-index.rebuild-cron:0 30 3 * * *}")
+    public void rebuild() {
+        writeLock.lock();
+        try {
+            addedDuringRebuild = new ArrayList<>();
+        } finally {
+            writeLock.unlock();
+        }
+
+        Timer.Sample sample = Timer.start();
+        Map<Long, long[]> rebuilt = new ConcurrentHashMap<>();
+        long[] rebuiltBytes = {0};
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<PolicyInterval> stream = policyRepository.streamAllIntervals()) {
+                    stream.forEach(interval -> rebuiltBytes[0] += merge(rebuilt, interval));
+                }
+            });
+        } finally {
+            writeLock.lock();
+            try {
+                // setting bits is idempotent, so replaying intervals the snapshot already saw is harmless
+                for (PolicyInterval interval : addedDuringRebuild) {
+                    rebuiltBytes[0] += merge(rebuilt, interval);
+                }
+                addedDuringRebuild = null;
+                bitmapsByCar = rebuilt;
+                bytes = rebuiltBytes[0];
+            } finally {
+                writeLock.unlock();
+            }
+            sample.stop(rebuilds);
+        }
+    }
+
+    void add(PolicyInterval interval) {
+        writeLock.lock();
+        try {
+            bytes += merge(bitmapsByCar, interval);
+            if (addedDuringRebuild != null) {
+                addedDuringRebuild.add(interval);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Adds the interval to its car's bitmap and returns by how many bytes the index grew.
+     */
+    private static long merge(Map<Long, long[]> target, PolicyInterval interval) {
+        if (interval.carId() == null) {
+            return 0;
+        }
+        long[] current = target.get(interval.carId());
+        long[] updated = current != null ? current : NO_COVERAGE;
+        // a policy without a start date or ending before it starts is never active, but the car still has policies
+        if (interval.startDate() != null) {
+            long start = interval.startDate().toEpochDay();
+            if (interval.endDate() == null) {
+                updated = openFrom(updated, start);
+            } else if (interval.endDate().toEpochDay() >= start) {
+                updated = set(updated, start, interval.endDate().toEpochDay());
+            }
+        }
+        target.put(interval.carId(), updated);
+        return size(updated) - (current != null ? size(current) : 0);
+    }
+
+    /**
+     * Returns a copy of {@code bitmap} with the days {@code [start, end]} set, grown to cover them.
+     */
+    static long[] set(long[] bitmap, long start, long end) {
+        long startWord = start >> 6;
+        long endWord = end >> 6;
+        int storedWords = bitmap.length - HEADER;
+        long firstWord = storedWords == 0 ? startWord : Math.min(bitmap[0], startWord);
+        long lastWord = storedWords == 0 ? endWord : Math.max(bitmap[0] + storedWords - 1, endWord);
+
+        long[] grown = new long[HEADER + Math.toIntExact(lastWord - firstWord + 1)];
+        grown[0] = firstWord;
+        grown[1] = bitmap[1];
+        if (storedWords > 0) {
+            System.arraycopy(bitmap, HEADER, grown, HEADER + (int) (bitmap[0] - firstWord), storedWords);
+        }
+        for (long word = startWord; word <= endWord; word++) {
+            grown[HEADER + (int) (word - firstWord)] |= mask(word, start, end);
+        }
+        return grown;
+    }
+
+    static long[] openFrom(long[] bitmap, long start) {
+        long[] copy = bitmap.clone();
+        copy[1] = Math.min(copy[1], start);
+        return copy;
+    }
+
+    static long coveredDays(long[] bitmap, long from, long to) {
+        long count = 0;
+        for (long word = from >> 6; word <= to >> 6; word++) {
+            count += Long.bitCount(word(bitmap, word) & mask(word, from, to));
+        }
+        return count;
+    }
+
+    /**
+     * The first day in {@code [from, to]} that is covered (or uncovered), or {@link #NEVER} when there is none.
+     */
+    static long nextDay(long[] bitmap, long from, long to, boolean covered) {
+        for (long word = from >> 6; word <= to >> 6; word++) {
+            long bits = word(bitmap, word);
+            if (!covered) {
+                bits = ~bits;
+            }
+            bits &= mask(word, from, to);
+            if (bits != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+        }
+        return NEVER;
+    }
+
+    /**
+     * The 64 days of word {@code word}, bit {@code i} being day {@code word * 64 + i}, including open-ended coverage.
+     */
+    private static long word(long[] bitmap, long word) {
+        long bits = 0;
+        long index = word - bitmap[0] + HEADER;
+        if (index >= HEADER && index < bitmap.length) {
+            bits = bitmap[(int) index];
+        }
+        long openFrom = bitmap[1];
+        if (openFrom != NEVER) {
+            long openWord = openFrom >> 6;
+            if (word > openWord) {
+                bits = -1L;
+            } else if (word == openWord) {
+                bits |= -1L << (openFrom & 63);
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * The bits of word {@code word} that fall within {@code [from, to]}.
+     */
+    private static long mask(long word, long from, long to) {
+        long mask = -1L;
+        if (word == from >> 6) {
+            mask &= -1L << (from & 63);
+        }
+        if (word == to >> 6) {
+            mask &= -1L >>> (63 - (to & 63));
+        }
+        return mask;
+    }
+
+    private static long size(long[] bitmap) {
+        return ARRAY_OVERHEAD + 8L * bitmap.length;
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.carins.service.index;
+
+import com.example.carins.repo.InsurancePolicyRepository;
+import com.example.carins.repo.projection.PolicyInterval;
+import com.example.carins.service.event.PolicyCreatedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory coverage intervals per car, answering "is this car insured on this date" without SQL.
+ * <p>
+ * Each car maps to a sorted array of disjoint {@code [start, end]} epoch-day pairs (overlapping and
+ * adjacent policies are merged), so a lookup is a binary search. Arrays are copy-on-write: readers never
+ * lock, writers replace the whole array of one car. The index is built before the web server starts,
+ * kept in step by {@link PolicyCreatedEvent}s once the inserting transaction commits, and rebuilt nightly.
+ */
+@Component
+public class CoverageIndex implements SmartInitializingSingleton {
+
+    public enum Lookup { COVERED, NOT_COVERED, UNKNOWN_CAR }
+
+    private static final long OPEN_ENDED = Long.MAX_VALUE;
+
+    private final InsurancePolicyRepository policyRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Map<Long, long[]> intervalsByCar = new ConcurrentHashMap<>();
+    private List<PolicyInterval> addedDuringRebuild;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer rebuilds;
+
+    public CoverageIndex(InsurancePolicyRepository policyRepository, PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry) {
+        this.policyRepository = policyRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        this.hits = Counter.builder("carins.coverage.index.lookups").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("carins.coverage.index.lookups").tag("result", "miss").register(meterRegistry);
+        this.rebuilds = Timer.builder("carins.coverage.index.rebuilds").register(meterRegistry);
+        Gauge.builder("carins.coverage.index.cars", this, index -> index.intervalsByCar.size()).register(meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    public Lookup lookup(Long carId, LocalDate date) {
+        long[] intervals = intervalsByCar.get(carId);
+        if (intervals == null) {
+            misses.increment();
+            return Lookup.UNKNOWN_CAR;
+        }
+        hits.increment();
+        return covers(intervals, date.toEpochDay()) ? Lookup.COVERED : Lookup.NOT_COVERED;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPolicyCreated(PolicyCreatedEvent event) {
+        add(new PolicyInterval(event.carId(), event.startDate(), event.endDate()));
+    }
+
+    @Scheduled(cron = "${carins.coverage-index.rebuild-cron:0 30 3 * * *}")
+    public void rebuild() {
+        writeLock.lock();
+        try {
+            addedDuringRebuild = new ArrayList<>();
+        } finally {
+            writeLock.unlock();
+        }
+
+        Timer.Sample sample = Timer.start();
+        Map<Long, long[]> rebuilt = new ConcurrentHashMap<>();
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<PolicyInterval> stream = policyRepository.streamAllIntervals()) {
+                    stream.forEach(interval -> merge(rebuilt, interval));
+                }
+            });
+        } finally {
+            writeLock.lock();
+            try {
+                // merging is idempotent, so replaying intervals the snapshot already saw is harmless
+                addedDuringRebuild.forEach(interval -> merge(rebuilt, interval));
+                addedDuringRebuild = null;
+                intervalsByCar = rebuilt;
+            } finally {
+                writeLock.unlock();
+            }
+            sample.stop(rebuilds);
+        }
+    }
+
+    void add(PolicyInterval interval) {
+        writeLock.lock();
+        try {
+            merge(intervalsByCar, interval);
+            if (addedDuringRebuild != null) {
+                addedDuringRebuild.add(interval);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static void merge(Map<Long, long[]> target, PolicyInterval interval) {
+        if (interval.carId() == null) {
+            return;
+        }
+        if (interval.startDate() == null) {
+            // a policy without a start date is never active, but the car still has policies
+            target.putIfAbsent(interval.carId(), new long[0]);
+            return;
+        }
+        long start = interval.startDate().toEpochDay();
+        long end = interval.endDate() != null ? interval.endDate().toEpochDay() : OPEN_ENDED;
+        if (end < start) {
+            target.putIfAbsent(interval.carId(), new long[0]);
+            return;
+        }
+        target.compute(interval.carId(), (carId, current) -> insert(current, start, end));
+    }
+
+    /**
+     * Returns a new array with {@code [start, end]} merged into the sorted, disjoint pairs of {@code current}.
+     */
+    static long[] insert(long[] current, long start, long end) {
+        if (current == null || current.length == 0) {
+            return new long[]{start, end};
+        }
+        long[] merged = new long[current.length + 2];
+        int size = 0;
+        int i = 0;
+        while (i < current.length && current[i + 1] < start - 1) {
+            merged[size++] = current[i];
+            merged[size++] = current[i + 1];
+            i += 2;
+        }
+        long mergedStart = start;
+        long mergedEnd = end;
+        while (i < current.length && (end == OPEN_ENDED || current[i] <= end + 1)) {
+            mergedStart = Math.min(mergedStart, current[i]);
+            mergedEnd = Math.max(mergedEnd, current[i + 1]);
+            i += 2;
+        }
+        merged[size++] = mergedStart;
+        merged[size++] = mergedEnd;
+        while (i < current.length) {
+            merged[size++] = current[i];
+            merged[size++] = current[i + 1];
+            i += 2;
+        }
+        return size == merged.length ? merged : Arrays.copyOf(merged, size);
+    }
+
+    static boolean covers(long[] intervals, long day) {
+        int low = 0;
+        int high = intervals.length / 2 - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long start = intervals[2 * mid];
+            if (start > day) {
+                high = mid - 1;
+            } else if (intervals[2 * mid + 1] < day) {
+                low = mid + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+}
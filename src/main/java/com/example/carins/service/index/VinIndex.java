@@ -0,0 +1,330 @@
+package com.example.carins.service.index;
+
+import com.example.carins.repo.CarRepository;
+import com.example.carins.repo.projection.CarVin;
+import com.example.carins.service.event.CarCreatedEvent;
+import com.example.carins.service.utils.VinUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory index from VIN to car id, answering exact and prefix lookups without SQL. VINs are matched
+ * case-insensitively and reported upper-cased, the form in which they are stored.
+ * <p>
+ * The bulk of the index is a packed segment: every VIN's bytes back to back in sorted order, an offset per VIN and
+ * the car ids alongside, about {@code length + 12} bytes per car. Cars created since the segment was built go to
+ * a small sorted delta that is folded into a new segment once it grows past a fraction of the segment. Readers never
+ * lock: the segment is immutable, the delta is a concurrent sorted map, and both are swapped together. The index is built before the web server starts, kept in step by
+ * {@link CarCreatedEvent}s once the inserting transaction commits, and rebuilt nightly.
+ */
+@Component
+public class VinIndex implements SmartInitializingSingleton {
+
+    static final int MIN_DELTA_TO_MERGE = 4096;
+    // skip-list node, key array and boxed id of one delta entry, beside the key bytes
+    private static final int DELTA_ENTRY_OVERHEAD = 96;
+
+    private final CarRepository carRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Snapshot snapshot = new Snapshot(Segment.EMPTY, newDelta());
+    private List<CarVin> addedDuringRebuild;
+    private int deltaSize;
+
+    public VinIndex(CarRepository carRepository, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.carRepository = carRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        Gauge.builder("carins.vin.index.entries", this, VinIndex::size).register(meterRegistry);
+        Gauge.builder("carins.vin.index.bytes", this, VinIndex::footprintBytes).baseUnit("bytes").register(meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    /**
+     * Returns the id of the car with exactly this VIN, or null.
+     */
+    public Long find(String vin) {
+        byte[] key = key(vin);
+        Snapshot current = snapshot;
+        Long carId = current.delta().get(key);
+        return carId != null ? carId : current.segment().find(key);
+    }
+
+    /**
+     * Returns up to {@code limit} cars whose VIN starts with {@code prefix}, in VIN order.
+     */
+    public List<CarVin> findByPrefix(String prefix, int limit) {
+        byte[] key = key(prefix);
+        Snapshot current = snapshot;
+        Segment segment = current.segment();
+        Iterator<Map.Entry<byte[], Long>> delta = current.delta().tailMap(key, true).entrySet().iterator();
+
+        List<CarVin> matches = new ArrayList<>(Math.min(limit, 64));
+        int position = segment.lowerBound(key);
+        Map.Entry<byte[], Long> pending = nextWithPrefix(delta, key);
+        while (matches.size() < limit) {
+            boolean fromSegment = position < segment.size() && segment.startsWith(position, key);
+            if (!fromSegment && pending == null) {
+                break;
+            }
+            if (fromSegment && (pending == null || segment.compareAt(position, pending.getKey()) <= 0)) {
+                matches.add(new CarVin(segment.vinAt(position), segment.carIdAt(position)));
+                position++;
+            } else {
+                matches.add(new CarVin(new String(pending.getKey(), StandardCharsets.UTF_8), pending.getValue()));
+                pending = nextWithPrefix(delta, key);
+            }
+        }
+        return matches;
+    }
+
+    public long size() {
+        Snapshot current = snapshot;
+        return current.segment().size() + current.delta().size();
+    }
+
+    /**
+     * Approximate heap held by the index, in bytes.
+     */
+    public long footprintBytes() {
+        Snapshot current = snapshot;
+        long deltaBytes = 0;
+        for (byte[] key : current.delta().keySet()) {
+            deltaBytes += key.length + DELTA_ENTRY_OVERHEAD;
+        }
+        return current.segment().footprintBytes() + deltaBytes;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCarCreated(CarCreatedEvent event) {
+        add(new CarVin(event.vin(), event.carId()));
+    }
+
+    @Scheduled(cron = "${carins.vin-index.rebuild-cron:0 45 3 * * *}")
+    public void rebuild() {
+        writeLock.lock();
+        try {
+            addedDuringRebuild = new ArrayList<>();
+        } finally {
+            writeLock.unlock();
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        boolean loaded = false;
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<CarVin> stream = carRepository.streamAllVins()) {
+                    stream.forEach(carVin -> {
+                        if (carVin.vin() != null && carVin.carId() != null) {
+                            entries.add(new Entry(key(carVin.vin()), carVin.carId()));
+                        }
+                    });
+                }
+            });
+            loaded = true;
+        } finally {
+            writeLock.lock();
+            try {
+                // when the load fails, the cars added meanwhile are already in the delta of the current snapshot
+                if (loaded) {
+                    entries.sort((left, right) -> Arrays.compareUnsigned(left.key(), right.key()));
+                    Segment segment = Segment.of(entries);
+                    ConcurrentSkipListMap<byte[], Long> delta = newDelta();
+                    for (CarVin carVin : addedDuringRebuild) {
+                        byte[] key = key(carVin.vin());
+                        if (segment.find(key) == null) {
+                            delta.put(key, carVin.carId());
+                        }
+                    }
+                    snapshot = new Snapshot(segment, delta);
+                    deltaSize = delta.size();
+                }
+                addedDuringRebuild = null;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    void add(CarVin carVin) {
+        if (carVin.vin() == null || carVin.carId() == null) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            Snapshot current = snapshot;
+            if (current.delta().put(key(carVin.vin()), carVin.carId()) == null) {
+                deltaSize++;
+            }
+            if (addedDuringRebuild != null) {
+                addedDuringRebuild.add(carVin);
+            }
+            if (deltaSize >= Math.max(MIN_DELTA_TO_MERGE, current.segment().size() / 64)) {
+                snapshot = new Snapshot(Segment.merge(current.segment(), current.delta()), newDelta());
+                deltaSize = 0;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static Map.Entry<byte[], Long> nextWithPrefix(Iterator<Map.Entry<byte[], Long>> entries, byte[] prefix) {
+        if (!entries.hasNext()) {
+            return null;
+        }
+        Map.Entry<byte[], Long> entry = entries.next();
+        return startsWith(entry.getKey(), 0, entry.getKey().length, prefix) ? entry : null;
+    }
+
+    private static boolean startsWith(byte[] bytes, int from, int length, byte[] prefix) {
+        return length >= prefix.length && Arrays.equals(bytes, from, from + prefix.length, prefix, 0, prefix.length);
+    }
+
+    static byte[] key(String vin) {
+        return VinUtils.normalize(vin).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static ConcurrentSkipListMap<byte[], Long> newDelta() {
+        return new ConcurrentSkipListMap<>(Arrays::compareUnsigned);
+    }
+
+    private record Snapshot(Segment segment, ConcurrentSkipListMap<byte[], Long> delta) {
+    }
+
+    private record Entry(byte[] key, long carId) {
+    }
+
+    /**
+     * Immutable sorted run of VINs: {@code keys} holds the bytes of every VIN back to back, VIN {@code i} spanning
+     * {@code [offsets[i], offsets[i + 1])}, with its car id at {@code carIds[i]}.
+     */
+    static final class Segment {
+
+        static final Segment EMPTY = new Segment(new byte[0], new int[]{0}, new long[0]);
+
+        private final byte[] keys;
+        private final int[] offsets;
+        private final long[] carIds;
+
+        private Segment(byte[] keys, int[] offsets, long[] carIds) {
+            this.keys = keys;
+            this.offsets = offsets;
+            this.carIds = carIds;
+        }
+
+        static Segment of(List<Entry> sorted) {
+            long totalBytes = 0;
+            for (Entry entry : sorted) {
+                totalBytes += entry.key().length;
+            }
+            if (totalBytes > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Too many VINs for one segment: " + totalBytes + " bytes");
+            }
+            byte[] keys = new byte[(int) totalBytes];
+            int[] offsets = new int[sorted.size() + 1];
+            long[] carIds = new long[sorted.size()];
+            int offset = 0;
+            for (int i = 0; i < sorted.size(); i++) {
+                byte[] key = sorted.get(i).key();
+                System.arraycopy(key, 0, keys, offset, key.length);
+                offsets[i] = offset;
+                carIds[i] = sorted.get(i).carId();
+                offset += key.length;
+            }
+            offsets[sorted.size()] = offset;
+            return new Segment(keys, offsets, carIds);
+        }
+
+        static Segment merge(Segment segment, Map<byte[], Long> sortedDelta) {
+            List<Entry> merged = new ArrayList<>(segment.size() + sortedDelta.size());
+            Iterator<Map.Entry<byte[], Long>> delta = sortedDelta.entrySet().iterator();
+            Map.Entry<byte[], Long> pending = delta.hasNext() ? delta.next() : null;
+            int position = 0;
+            while (position < segment.size() || pending != null) {
+                if (pending == null || (position < segment.size() && segment.compareAt(position, pending.getKey()) < 0)) {
+                    merged.add(new Entry(segment.keyAt(position), segment.carIdAt(position)));
+                    position++;
+                } else {
+                    if (position < segment.size() && segment.compareAt(position, pending.getKey()) == 0) {
+                        position++; // the delta holds the newer entry for this VIN
+                    }
+                    merged.add(new Entry(pending.getKey(), pending.getValue()));
+                    pending = delta.hasNext() ? delta.next() : null;
+                }
+            }
+            return of(merged);
+        }
+
+        int size() {
+            return carIds.length;
+        }
+
+        long footprintBytes() {
+            return keys.length + 4L * offsets.length + 8L * carIds.length;
+        }
+
+        Long find(byte[] key) {
+            int position = lowerBound(key);
+            return position < size() && compareAt(position, key) == 0 ? carIds[position] : null;
+        }
+
+        /**
+         * Index of the first VIN not less than {@code key}.
+         */
+        int lowerBound(byte[] key) {
+            int low = 0;
+            int high = size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compareAt(mid, key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        int compareAt(int position, byte[] key) {
+            return Arrays.compareUnsigned(keys, offsets[position], offsets[position + 1], key, 0, key.length);
+        }
+
+        boolean startsWith(int position, byte[] prefix) {
+            return VinIndex.startsWith(keys, offsets[position], offsets[position + 1] - offsets[position], prefix);
+        }
+
+        byte[] keyAt(int position) {
+            return Arrays.copyOfRange(keys, offsets[position], offsets[position + 1]);
+        }
+
+        String vinAt(int position) {
+            return new String(keys, offsets[position], offsets[position + 1] - offsets[position], StandardCharsets.UTF_8);
+        }
+
+        long carIdAt(int position) {
+            return carIds[position];
+        }
+    }
+}
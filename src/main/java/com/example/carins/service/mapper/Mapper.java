@@ -3,9 +3,13 @@ package com.example.carins.service.mapper;
 import com.example.carins.model.Car;
 import com.example.carins.model.InsuranceClaim;
 import com.example.carins.model.InsurancePolicy;
+import com.example.carins.model.Owner;
+import com.example.carins.service.utils.VinUtils;
 import com.example.carins.web.dto.CarDto;
 import com.example.carins.web.dto.InsuranceClaimDto;
 import com.example.carins.web.dto.InsurancePolicyDto;
+import com.example.carins.web.dto.SavedClaimDto;
+import com.example.carins.web.dto.SavedPolicyDto;
 
 public class Mapper {
 
@@ -31,9 +35,25 @@ public class Mapper {
         Car car = new Car();
         car.setMake(carDto.make());
         car.setModel(carDto.model());
-        car.setVin(carDto.vin());
+        car.setVin(VinUtils.normalize(carDto.vin()));
         car.setYearOfManufacture(carDto.year());
 
         return car;
     }
+
+    public static SavedClaimDto mapToSavedClaimDto(InsuranceClaim claim, Long carId) {
+        return new SavedClaimDto(claim.getId(), carId, claim.getClaimDate(), claim.getDescription(), claim.getAmount());
+    }
+
+    public static SavedPolicyDto mapToSavedPolicyDto(InsurancePolicy policy, Long carId) {
+        return new SavedPolicyDto(policy.getId(), carId, policy.getProvider(), policy.getStartDate(), policy.getEndDate());
+    }
+
+    public static CarDto mapToCarDto(Car car) {
+        Owner owner = car.getOwner();
+        return new CarDto(car.getId(), car.getVin(), car.getMake(), car.getModel(), car.getYearOfManufacture(),
+                owner != null ? owner.getId() : null,
+                owner != null ? owner.getName() : null,
+                owner != null ? owner.getEmail() : null);
+    }
 }
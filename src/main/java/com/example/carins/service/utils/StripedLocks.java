@@ -0,0 +1,63 @@
+package com.example.carins.service.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks shared out by key, so that work on the same key is serialised while work on different keys
+ * rarely waits: two keys share a lock only when they hash to the same stripe. Memory stays constant however many
+ * keys there are.
+ */
+public class StripedLocks {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    /**
+     * @param stripes the number of locks, rounded up to a power of two
+     */
+    public StripedLocks(int stripes) {
+        if (stripes < 1 || stripes > 1 << 16) {
+            throw new IllegalArgumentException("Lock stripes must be between 1 and 65536, was " + stripes);
+        }
+        int size = Integer.highestOneBit(stripes - 1) << 1;
+        locks = new ReentrantLock[Math.max(size, 1)];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        mask = locks.length - 1;
+    }
+
+    public ReentrantLock lockFor(long key) {
+        return locks[stripeOf(key)];
+    }
+
+    /**
+     * The distinct locks of {@code keys} in stripe order. Callers holding several locks at once must take them in
+     * this order, so that two of them can never wait for each other.
+     */
+    public List<ReentrantLock> locksFor(Collection<Long> keys) {
+        TreeSet<Integer> stripes = new TreeSet<>();
+        for (Long key : keys) {
+            stripes.add(stripeOf(key));
+        }
+        List<ReentrantLock> ordered = new ArrayList<>(stripes.size());
+        for (int stripe : stripes) {
+            ordered.add(locks[stripe]);
+        }
+        return ordered;
+    }
+
+    public int stripes() {
+        return locks.length;
+    }
+
+    private int stripeOf(long key) {
+        // consecutive ids must not land on neighbouring stripes in lockstep, so mix the bits first
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.carins.service.utils;
+
+import java.util.Locale;
+
+public class VinUtils {
+
+    /**
+     * The stored form of a VIN: trimmed and upper-cased, so that the database's unique constraint and the
+     * case-insensitive VIN index agree on which VINs are the same.
+     */
+    public static String normalize(String vin) {
+        return vin != null ? vin.trim().toUpperCase(Locale.ROOT) : null;
+    }
+}
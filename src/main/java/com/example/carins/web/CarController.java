@@ -2,20 +2,46 @@ package com.example.carins.web;
 
 import com.example.carins.exception.CarNotFoundException;
 import com.example.carins.exception.OwnerNotFoundException;
-import com.example.carins.model.Car;
-import com.example.carins.model.InsuranceClaim;
-import com.example.carins.model.InsurancePolicy;
+import com.example.carins.exception.PolicyOverlapException;
+import com.example.carins.repo.projection.ClaimTotal;
 import com.example.carins.service.CarService;
+import com.example.carins.service.ClaimIngestionService;
+import com.example.carins.service.ClaimTotalsService;
+import com.example.carins.service.CoverageGapService;
+import com.example.carins.service.InsuranceValidityBatchService;
+import com.example.carins.service.cache.ChangeVersions;
+import com.example.carins.service.diagnostics.SqlBudget;
+import com.example.carins.service.index.CoverageBitmapIndex;
+import com.example.carins.service.utils.DateUtils;
 import com.example.carins.web.dto.CarDto;
 import com.example.carins.web.dto.CarEventDto;
+import com.example.carins.web.dto.CarEventPage;
+import com.example.carins.web.dto.ClaimIngestSummary;
+import com.example.carins.web.dto.CoverageReportSummary;
 import com.example.carins.web.dto.InsuranceClaimDto;
 import com.example.carins.web.dto.InsurancePolicyDto;
+import com.example.carins.web.dto.InsuranceValidityQuery;
+import com.example.carins.web.dto.SavedClaimDto;
+import com.example.carins.web.dto.SavedPolicyDto;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.ConstraintViolationException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 import java.util.List;
@@ -26,17 +52,110 @@ import static com.example.carins.service.ValidationMessages.INVALID_DATE_FORMAT;
 @RequestMapping("/api")
 public class CarController {
 
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int DEFAULT_VIN_SEARCH_SIZE = 20;
+    private static final String NEXT_AFTER_ID_HEADER = "X-Next-After-Id";
+
     private final CarService service;
+    private final InsuranceValidityBatchService batchService;
+    private final ClaimIngestionService claimIngestionService;
+    private final ClaimTotalsService claimTotalsService;
+    private final CoverageGapService coverageGapService;
+    private final ChangeVersions changeVersions;
+    private final ConditionalGets conditionalGets;
+    private final ObjectMapper objectMapper;
 
-    public CarController(CarService service) {
+    public CarController(CarService service, InsuranceValidityBatchService batchService, ClaimIngestionService claimIngestionService,
+                         ClaimTotalsService claimTotalsService, CoverageGapService coverageGapService, ChangeVersions changeVersions,
+                         ConditionalGets conditionalGets, ObjectMapper objectMapper) {
         this.service = service;
+        this.batchService = batchService;
+        this.claimIngestionService = claimIngestionService;
+        this.claimTotalsService = claimTotalsService;
+        this.coverageGapService = coverageGapService;
+        this.changeVersions = changeVersions;
+        this.conditionalGets = conditionalGets;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Streams every car as one JSON array straight from a database cursor, so heap use does not grow with the fleet.
+     */
+    @GetMapping(value = "/cars", params = {"!afterId", "!limit"})
+    public ResponseEntity<StreamingResponseBody> getCars(WebRequest request) {
+        String etag = changeVersions.fleetTag();
+        if (conditionalGets.notModified(request, ConditionalGets.Resource.CARS, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        StreamingResponseBody stream = out -> {
+            JsonGenerator generator = objectMapper.createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            service.forEachCar(car -> writeValue(generator, car));
+            generator.writeEndArray();
+            generator.close();
+        };
+        return ResponseEntity.ok().eTag(etag).contentType(MediaType.APPLICATION_JSON).body(stream);
     }
 
+    /**
+     * Returns one keyset page of cars ordered by id. When the page is full, the {@code X-Next-After-Id}
+     * header carries the {@code afterId} of the next page.
+     */
+    @SqlBudget(1)
     @GetMapping("/cars")
-    public List<CarDto> getCars() {
-        return service.listCars().stream().map(this::toDto).toList();
+    public ResponseEntity<?> getCarsPage(@RequestParam(required = false) Long afterId, @RequestParam(required = false) Integer limit,
+                                         WebRequest request) {
+        try {
+            String etag = changeVersions.fleetTag();
+            if (conditionalGets.notModified(request, ConditionalGets.Resource.CARS, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+            int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+            List<CarDto> cars = service.listCars(afterId, pageSize);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag);
+            if (cars.size() == pageSize) {
+                response.header(NEXT_AFTER_ID_HEADER, String.valueOf(cars.get(cars.size() - 1).id()));
+            }
+            return response.body(cars);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ServerErrors.internalError(e);
+        }
+    }
+
+    @SqlBudget(1)
+    @GetMapping("/cars/by-vin/{vin}")
+    public ResponseEntity<?> getCarByVin(@PathVariable String vin) {
+        try {
+            return ResponseEntity.ok(service.findCarByVin(vin));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (CarNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (Exception e) {
+            return ServerErrors.internalError(e);
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} {@code {"vin":"...","carId":1}} pairs whose VIN starts with {@code prefix}, in VIN order.
+     */
+    @SqlBudget(0)
+    @GetMapping("/cars/by-vin")
+    public ResponseEntity<?> searchCarsByVin(@RequestParam String prefix,
+                                             @RequestParam(defaultValue = "" + DEFAULT_VIN_SEARCH_SIZE) int limit) {
+        try {
+            return ResponseEntity.ok(service.searchVins(prefix, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ServerErrors.internalError(e);
+        }
     }
 
+    @SqlBudget(0)
     @GetMapping("/cars/{carId}/insurance-valid")
     public ResponseEntity<?> isInsuranceValid(@PathVariable Long carId, @RequestParam String date) {
         try {
@@ -50,88 +169,307 @@ public class CarController {
         } catch (CarNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+            return ServerErrors.internalError(e);
         }
     }
 
+    /**
+     * Returns whether the car was insured on every day of {@code [from, to]}, its covered and uninsured day counts
+     * and the uninsured ranges.
+     */
+    // the car on a reference cache miss, for cars without policies
+    @SqlBudget(1)
+    @GetMapping("/cars/{carId}/coverage")
+    public ResponseEntity<?> getCoverage(@PathVariable Long carId, @RequestParam String from, @RequestParam String to) {
+        try {
+            LocalDate fromDate = LocalDate.parse(from);
+            LocalDate toDate = LocalDate.parse(to);
+            CoverageBitmapIndex.Report report = service.getCoverage(carId, fromDate, toDate);
+            return ResponseEntity.ok(new CoverageResponse(carId, fromDate.toString(), toDate.toString(), report.continuous(),
+                    report.coveredDays(), report.uninsuredDays(), report.gaps()));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(INVALID_DATE_FORMAT);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (CarNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (Exception e) {
+            return ServerErrors.internalError(e);
+        }
+    }
+
+    /**
+     * Returns the owner's cars with the policy covering each of them on {@code date} (today when omitted), or none.
+     */
+    @SqlBudget(1)
+    @GetMapping("/owners/{ownerId}/portfolio")
+    public ResponseEntity<?> getOwnerPortfolio(@PathVariable Long ownerId, @RequestParam(required = false) String date) {
+        try {
+            LocalDate d = date != null ? LocalDate.parse(date) : LocalDate.now();
+            return ResponseEntity.ok(service.getOwnerPortfolio(ownerId, d));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(INVALID_DATE_FORMAT);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (OwnerNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (Exception e) {
+            return ServerErrors.internalError(e);
+        }
+    }
+
+    /**
+     * Accepts a JSON array or an NDJSON stream of {@code {"carId":1,"date":"2025-06-01"}} and streams back one
+     * NDJSON line per pair, in input order: {@code {"index":0,"carId":1,"date":"2025-06-01","valid":true}}
+     * or {@code {"index":1,"carId":99,"date":"2025-06-01","error":"Car with id 99 does not exist."}}.
+     */
+    @PostMapping(value = "/insurance-valid/batch",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> isInsuranceValidBatch(InputStream body) {
+        StreamingResponseBody stream = out -> {
+            JsonGenerator generator = ndjsonGenerator(out);
+            try (MappingIterator<InsuranceValidityQuery> queries = objectMapper
+                    .readerFor(InsuranceValidityQuery.class)
+                    .readValues(body)) {
+                batchService.evaluate(queries, result -> writeLine(generator, result));
+            }
+            generator.close();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(stream);
+    }
+
+    /**
+     * Returns the chronological events of a car, optionally restricted to {@code [from, to]}, one page at a time.
+     * Pass the returned {@code nextCursor} as {@code cursor} to read the following page. A poll repeating the
+     * returned {@code ETag} in {@code If-None-Match} gets a 304 without a query while the car has no new claim
+     * or policy.
+     */
+    // the page, plus the car lookup when the page is empty
+    @SqlBudget(2)
     @GetMapping("/cars/{carId}/history")
-    public ResponseEntity<?> getCarEvents(@PathVariable Long carId) {
+    public ResponseEntity<?> getCarEvents(@PathVariable Long carId,
+                                          @RequestParam(required = false) String from,
+                                          @RequestParam(required = false) String to,
+                                          @RequestParam(required = false) String cursor,
+                                          @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                                          WebRequest request) {
        try {
-           List<CarEventDto> events = service.getCarEvents(carId);
-           return ResponseEntity.ok(new CarEventResponse(carId, events));
+           LocalDate fromDate = from != null ? LocalDate.parse(from) : null;
+           LocalDate toDate = to != null ? LocalDate.parse(to) : null;
+           // read before the page, so a write committing in between changes the tag of the next poll
+           String etag = changeVersions.carTag(carId);
+           if (conditionalGets.notModified(request, ConditionalGets.Resource.HISTORY, etag)) {
+               return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+           }
+           CarEventPage page = service.getCarEvents(carId, fromDate, toDate, cursor, limit);
+           return ResponseEntity.ok().eTag(etag).body(new CarEventResponse(carId, page.events(), page.nextCursor()));
+       } catch (DateTimeParseException e) {
+           return ResponseEntity.badRequest().body(INVALID_DATE_FORMAT);
+       } catch (IllegalArgumentException e) {
+           return ResponseEntity.badRequest().body(e.getMessage());
        } catch (CarNotFoundException e) {
            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
        } catch (Exception e) {
-           return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+           return ServerErrors.internalError(e);
        }
     }
 
+    // the car on a reference cache miss, an id sequence fetch once per 50 inserts, the insert, and an update of the
+    // car, owner and month totals, each followed by an insert for the total's first claim
+    @SqlBudget(9)
     @PostMapping("/cars/{carId}/claims")
     public ResponseEntity<?> addNewInsuranceClaim(@PathVariable Long carId, @RequestBody InsuranceClaimDto insuranceClaimDto) {
         try {
-            InsuranceClaim insuranceClaim = service.createInsuranceClaim(carId, insuranceClaimDto);
+            SavedClaimDto claim = service.createInsuranceClaim(carId, insuranceClaimDto);
             return ResponseEntity.created(URI.create("/api/cars/" +carId +"/claims"))
-                    .body(new InsuranceClaimInsertionResponse(carId, insuranceClaim));
+                    .body(claim);
         } catch (IllegalArgumentException | ConstraintViolationException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         } catch (CarNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+            return ServerErrors.internalError(e);
         }
     }
 
+    /**
+     * Returns the number and sum of the car's claims, read from the running totals instead of the claims.
+     */
+    // the car on a reference cache miss, the total
+    @SqlBudget(2)
+    @GetMapping("/cars/{carId}/claims/totals")
+    public ResponseEntity<?> getCarClaimTotals(@PathVariable Long carId) {
+        try {
+            return ResponseEntity.ok(new CarClaimTotalsResponse(carId, claimTotalsService.getCarTotal(carId)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (CarNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (Exception e) {
+            return ServerErrors.internalError(e);
+        }
+    }
+
+    // the owner on a reference cache miss, the total
+    @SqlBudget(2)
+    @GetMapping("/owners/{ownerId}/claims/totals")
+    public ResponseEntity<?> getOwnerClaimTotals(@PathVariable Long ownerId) {
+        try {
+            return ResponseEntity.ok(new OwnerClaimTotalsResponse(ownerId, claimTotalsService.getOwnerTotal(ownerId)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (OwnerNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (Exception e) {
+            return ServerErrors.internalError(e);
+        }
+    }
+
+    /**
+     * Returns the number and sum of the claims dated in {@code month} ({@code yyyy-MM}), over all cars.
+     */
+    @SqlBudget(1)
+    @GetMapping("/claims/totals/{month}")
+    public ResponseEntity<?> getMonthClaimTotals(@PathVariable String month) {
+        try {
+            return ResponseEntity.ok(new MonthClaimTotalsResponse(month, claimTotalsService.getMonthTotal(month)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ServerErrors.internalError(e);
+        }
+    }
+
+    /**
+     * Accepts NDJSON claims, one {@code {"carId":1,"claimDate":"2025-01-01","description":"...","amount":100}} per line,
+     * and streams back one NDJSON result per line ({@code {"line":1,"carId":1,"claimId":50}} or
+     * {@code {"line":2,"carId":9,"error":"..."}}) followed by a {@code {"summary":{...}}} line with throughput statistics.
+     */
+    @PostMapping(value = "/claims/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> addInsuranceClaimsInBulk(InputStream body) {
+        StreamingResponseBody stream = out -> {
+            JsonGenerator generator = ndjsonGenerator(out);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+                ClaimIngestSummary summary = claimIngestionService.ingest(reader.lines().iterator(), result -> writeLine(generator, result));
+                writeLine(generator, new ClaimIngestReport(summary));
+            }
+            generator.close();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(stream);
+    }
+
+    /**
+     * Streams every coverage gap, overlap and lapse of the fleet as of {@code asOf} (today when omitted) as NDJSON,
+     * one {@code {"carId":1,"type":"GAP","from":"2025-01-02","to":"2025-01-31","policyId":1,"otherPolicyId":2}}
+     * per line, followed by a {@code {"summary":{...}}} line.
+     */
+    @GetMapping(value = "/reports/coverage-gaps", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getCoverageGapReport(@RequestParam(required = false) String asOf) {
+        LocalDate date;
+        try {
+            date = asOf != null ? LocalDate.parse(asOf) : LocalDate.now();
+            DateUtils.checkDateErrors(date);
+        } catch (DateTimeParseException e) {
+            return textError(INVALID_DATE_FORMAT);
+        } catch (IllegalArgumentException e) {
+            return textError(e.getMessage());
+        }
+        StreamingResponseBody stream = out -> {
+            JsonGenerator generator = ndjsonGenerator(out);
+            CoverageReportSummary summary = coverageGapService.run(date, finding -> writeLine(generator, finding));
+            writeLine(generator, new CoverageReport(summary));
+            generator.close();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(stream);
+    }
+
+    @SqlBudget(3)
     @PostMapping("/cars/{carId}/policies")
     public ResponseEntity<?> addNewInsurancePolicy(@PathVariable Long carId, @RequestBody InsurancePolicyDto insurancePolicyDto) {
         try {
-            InsurancePolicy insuranceClaim = service.insertNewInsurancePolicy(carId, insurancePolicyDto);
+            SavedPolicyDto policy = service.insertNewInsurancePolicy(carId, insurancePolicyDto);
             return ResponseEntity.created(URI.create("/api/cars/" + carId + "/policies" ))
-                    .body(new InsurancePolicyInsertionResponse(carId, insuranceClaim));
+                    .body(policy);
         } catch (IllegalArgumentException | ConstraintViolationException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         } catch (CarNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (PolicyOverlapException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+            return ServerErrors.internalError(e);
         }
     }
 
+    @SqlBudget(3)
     @PostMapping("/cars")
     public ResponseEntity<?> addNewCar(@RequestBody CarDto carDto) {
         try {
-            Car car = service.addNewCar(carDto);
-            return ResponseEntity.created(URI.create("/api/cars/" + car.getId()))
-                    .body(new CarInsertionResponse(car));
+            CarDto car = service.addNewCar(carDto);
+            return ResponseEntity.created(URI.create("/api/cars/" + car.id()))
+                    .body(car);
         } catch (IllegalArgumentException | ConstraintViolationException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         } catch (OwnerNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+            return ServerErrors.internalError(e);
         }
     }
 
 
-    private CarDto toDto(Car c) {
-        var o = c.getOwner();
-        return new CarDto(c.getId(), c.getVin(), c.getMake(), c.getModel(), c.getYearOfManufacture(),
-                o != null ? o.getId() : null,
-                o != null ? o.getName() : null,
-                o != null ? o.getEmail() : null);
+    private static ResponseEntity<StreamingResponseBody> textError(String message) {
+        return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN)
+                .body(out -> out.write(message.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private JsonGenerator ndjsonGenerator(OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        return generator;
+    }
+
+    private static void writeLine(JsonGenerator generator, Object value) {
+        writeValue(generator, value);
+        try {
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeValue(JsonGenerator generator, Object value) {
+        try {
+            generator.writeObject(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     public record InsuranceValidityResponse(Long carId, String date, boolean valid) {
     }
 
-    public record InsuranceClaimInsertionResponse(Long carId, InsuranceClaim insuranceClaimDto) {
+    public record CoverageResponse(Long carId, String from, String to, boolean continuous, long coveredDays, long uninsuredDays,
+                                   List<CoverageBitmapIndex.Gap> gaps) {
+    }
+
+    public record ClaimIngestReport(ClaimIngestSummary summary) {
+    }
+
+    public record CoverageReport(CoverageReportSummary summary) {
+    }
+
+    public record CarEventResponse(Long carId, List<CarEventDto> carEvents, String nextCursor) {
     }
 
-    public record InsurancePolicyInsertionResponse(Long carId, InsurancePolicy insurancePolicy) {
+    public record CarClaimTotalsResponse(Long carId, ClaimTotal totals) {
     }
 
-    public record CarInsertionResponse(Car car) {
+    public record OwnerClaimTotalsResponse(Long ownerId, ClaimTotal totals) {
     }
 
-    public record CarEventResponse(Long carId, List<CarEventDto> carEvents) {
+    public record MonthClaimTotalsResponse(String month, ClaimTotal totals) {
     }
 }
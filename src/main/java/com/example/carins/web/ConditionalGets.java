@@ -0,0 +1,64 @@
+package com.example.carins.web;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Answers {@code If-None-Match} before a handler reads anything, and counts the outcome per resource in
+ * {@code carins.etag.requests}: {@code hit} when the client's copy is current and gets a 304, {@code miss} when it
+ * sent a tag that is out of date and {@code none} when it sent no tag. The hit rate of polling clients is
+ * {@code hit / (hit + miss)}.
+ */
+@Component
+class ConditionalGets {
+
+    /** The resources answered conditionally, with their {@code resource} tag. */
+    enum Resource {
+        CARS("cars"),
+        HISTORY("history");
+
+        private final String tag;
+
+        Resource(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    // registered up front, so a request only increments
+    private final Map<Resource, Outcomes> outcomes = new EnumMap<>(Resource.class);
+
+    ConditionalGets(MeterRegistry meterRegistry) {
+        for (Resource resource : Resource.values()) {
+            outcomes.put(resource, new Outcomes(counter(meterRegistry, resource, "hit"),
+                    counter(meterRegistry, resource, "miss"), counter(meterRegistry, resource, "none")));
+        }
+    }
+
+    /**
+     * Whether the client already holds the representation tagged {@code etag}; the 304 status and the tag are then
+     * set on the response.
+     */
+    boolean notModified(WebRequest request, Resource resource, String etag) {
+        boolean conditional = request.getHeader(HttpHeaders.IF_NONE_MATCH) != null;
+        boolean notModified = request.checkNotModified(etag);
+        Outcomes counters = outcomes.get(resource);
+        (notModified ? counters.hit() : conditional ? counters.miss() : counters.none()).increment();
+        return notModified;
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, Resource resource, String result) {
+        return Counter.builder("carins.etag.requests")
+                .tag("resource", resource.tag)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record Outcomes(Counter hit, Counter miss, Counter none) {
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.carins.web;
+
+import com.example.carins.exception.ImportJobNotFoundException;
+import com.example.carins.service.FleetImportService;
+import com.example.carins.web.dto.FleetImportStatus;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+
+@RestController
+@RequestMapping("/api/imports")
+public class FleetImportController {
+
+    private final FleetImportService service;
+
+    public FleetImportController(FleetImportService service) {
+        this.service = service;
+    }
+
+    /**
+     * Starts importing {@code file} from the import directory and returns 202 with the job status;
+     * poll the {@code Location} for progress.
+     */
+    @PostMapping("/fleet")
+    public ResponseEntity<?> startFleetImport(@RequestParam String file) {
+        try {
+            FleetImportStatus status = service.start(file);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/imports/fleet/" + status.jobId()))
+                    .body(status);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ServerErrors.internalError(e);
+        }
+    }
+
+    @GetMapping("/fleet/{jobId}")
+    public ResponseEntity<?> getFleetImport(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(service.status(jobId));
+        } catch (ImportJobNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (Exception e) {
+            return ServerErrors.internalError(e);
+        }
+    }
+}
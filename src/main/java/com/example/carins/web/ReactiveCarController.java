@@ -0,0 +1,90 @@
+package com.example.carins.web;
+
+import com.example.carins.exception.CarNotFoundException;
+import com.example.carins.service.ReactiveCarService;
+import com.example.carins.web.CarController.CarEventResponse;
+import com.example.carins.web.CarController.InsuranceValidityResponse;
+import com.example.carins.web.dto.CarDto;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+import static com.example.carins.service.ValidationMessages.INVALID_DATE_FORMAT;
+
+/**
+ * Non-blocking variants of the read endpoints of {@link CarController}, served from R2DBC. Paths mirror the
+ * blocking ones under {@code /api/reactive} and return the same payloads and status codes, so both stacks can be
+ * measured against each other; the car list is the exception and is only offered as NDJSON. No request thread is held while the database works.
+ */
+@RestController
+@RequestMapping("/api/reactive")
+public class ReactiveCarController {
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
+    private final ReactiveCarService service;
+
+    public ReactiveCarController(ReactiveCarService service) {
+        this.service = service;
+    }
+
+    /**
+     * Streams every car as NDJSON, one per line. The next row is only requested once the previous line is written,
+     * so a slow client slows the database read instead of filling the heap. Only {@code application/x-ndjson} is
+     * produced: for a plain JSON array MVC would collect the whole {@code Flux} into a list first, so such requests
+     * get 406 and should use the blocking {@code /api/cars}, which streams the array from a cursor.
+     */
+    @GetMapping(value = "/cars", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<CarDto> getCars() {
+        return service.streamCars();
+    }
+
+    @GetMapping("/cars/{carId}/insurance-valid")
+    public Mono<ResponseEntity<?>> isInsuranceValid(@PathVariable Long carId, @RequestParam String date) {
+        ServerRequestObservationContext observation = ServerErrors.currentObservation();
+        return Mono.fromSupplier(() -> LocalDate.parse(date))
+                .flatMap(d -> service.isInsuranceValid(carId, d)
+                        .<ResponseEntity<?>>map(valid -> ResponseEntity.ok(new InsuranceValidityResponse(carId, d.toString(), valid))))
+                .onErrorResume(e -> Mono.just(errorResponse(e, observation)));
+    }
+
+    @GetMapping("/cars/{carId}/history")
+    public Mono<ResponseEntity<?>> getCarEvents(@PathVariable Long carId,
+                                                @RequestParam(required = false) String from,
+                                                @RequestParam(required = false) String to,
+                                                @RequestParam(required = false) String cursor,
+                                                @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        ServerRequestObservationContext observation = ServerErrors.currentObservation();
+        return Mono.defer(() -> {
+                    LocalDate fromDate = from != null ? LocalDate.parse(from) : null;
+                    LocalDate toDate = to != null ? LocalDate.parse(to) : null;
+                    return service.getCarEvents(carId, fromDate, toDate, cursor, limit);
+                })
+                .<ResponseEntity<?>>map(page -> ResponseEntity.ok(new CarEventResponse(carId, page.events(), page.nextCursor())))
+                .onErrorResume(e -> Mono.just(errorResponse(e, observation)));
+    }
+
+    /**
+     * Maps a failure to the status the blocking endpoint returns. The observation is taken on the request thread,
+     * since the error usually arrives on an R2DBC thread.
+     */
+    private static ResponseEntity<?> errorResponse(Throwable e, ServerRequestObservationContext observation) {
+        if (e instanceof DateTimeParseException) {
+            return ResponseEntity.badRequest().body(INVALID_DATE_FORMAT);
+        }
+        if (e instanceof IllegalArgumentException) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        if (e instanceof CarNotFoundException) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+        return ServerErrors.internalError(e, observation);
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.carins.web;
+
+import com.example.carins.web.dto.CarDto;
+import com.example.carins.web.dto.CarEventDto;
+import com.example.carins.web.dto.SavedClaimDto;
+import com.example.carins.web.dto.SavedPolicyDto;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * Hand-written serializers for the DTOs on the busiest paths: car pages and streams, car histories, validity checks
+ * and the create endpoints. They call the record accessors directly and write field names from pre-encoded
+ * {@link SerializedString}s, where the default serializers go through reflective accessor calls per field. The
+ * output is byte for byte what Jackson writes for the same records with the application's settings; dates are
+ * ISO strings, as {@code WRITE_DATES_AS_TIMESTAMPS} is off.
+ * <p>
+ * Spring Boot registers every {@link com.fasterxml.jackson.databind.Module} bean with the application's
+ * {@code ObjectMapper}. A field added to one of these records must be added here too.
+ */
+@Component
+public class ResponseSerializers extends SimpleModule {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString CAR_ID = new SerializedString("carId");
+    private static final SerializedString VIN = new SerializedString("vin");
+    private static final SerializedString MAKE = new SerializedString("make");
+    private static final SerializedString MODEL = new SerializedString("model");
+    private static final SerializedString YEAR = new SerializedString("year");
+    private static final SerializedString OWNER_ID = new SerializedString("ownerId");
+    private static final SerializedString OWNER_NAME = new SerializedString("ownerName");
+    private static final SerializedString OWNER_EMAIL = new SerializedString("ownerEmail");
+    private static final SerializedString TYPE = new SerializedString("type");
+    private static final SerializedString DATE = new SerializedString("date");
+    private static final SerializedString TITLE = new SerializedString("title");
+    private static final SerializedString DETAILS = new SerializedString("details");
+    private static final SerializedString SOURCE_ID = new SerializedString("sourceId");
+    private static final SerializedString CAR_EVENTS = new SerializedString("carEvents");
+    private static final SerializedString NEXT_CURSOR = new SerializedString("nextCursor");
+    private static final SerializedString VALID = new SerializedString("valid");
+    private static final SerializedString CLAIM_DATE = new SerializedString("claimDate");
+    private static final SerializedString DESCRIPTION = new SerializedString("description");
+    private static final SerializedString AMOUNT = new SerializedString("amount");
+    private static final SerializedString PROVIDER = new SerializedString("provider");
+    private static final SerializedString START_DATE = new SerializedString("startDate");
+    private static final SerializedString END_DATE = new SerializedString("endDate");
+
+    public ResponseSerializers() {
+        super("carins-response-serializers");
+        addSerializer(new CarDtoSerializer());
+        addSerializer(new CarEventDtoSerializer());
+        addSerializer(new CarEventResponseSerializer());
+        addSerializer(new InsuranceValidityResponseSerializer());
+        addSerializer(new SavedClaimDtoSerializer());
+        addSerializer(new SavedPolicyDtoSerializer());
+    }
+
+    static class CarDtoSerializer extends StdSerializer<CarDto> {
+
+        CarDtoSerializer() {
+            super(CarDto.class);
+        }
+
+        @Override
+        public void serialize(CarDto car, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject(car);
+            writeNumber(generator, ID, car.id());
+            writeString(generator, VIN, car.vin());
+            writeString(generator, MAKE, car.make());
+            writeString(generator, MODEL, car.model());
+            generator.writeFieldName(YEAR);
+            generator.writeNumber(car.year());
+            writeNumber(generator, OWNER_ID, car.ownerId());
+            writeString(generator, OWNER_NAME, car.ownerName());
+            writeString(generator, OWNER_EMAIL, car.ownerEmail());
+            generator.writeEndObject();
+        }
+    }
+
+    static class CarEventDtoSerializer extends StdSerializer<CarEventDto> {
+
+        CarEventDtoSerializer() {
+            super(CarEventDto.class);
+        }
+
+        @Override
+        public void serialize(CarEventDto event, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject(event);
+            writeString(generator, TYPE, event.type() != null ? event.type().name() : null);
+            writeDate(generator, DATE, event.date());
+            writeString(generator, TITLE, event.title());
+            writeString(generator, DETAILS, event.details());
+            writeNumber(generator, SOURCE_ID, event.sourceId());
+            generator.writeEndObject();
+        }
+    }
+
+    static class CarEventResponseSerializer extends StdSerializer<CarController.CarEventResponse> {
+
+        private final CarEventDtoSerializer events = new CarEventDtoSerializer();
+
+        CarEventResponseSerializer() {
+            super(CarController.CarEventResponse.class);
+        }
+
+        @Override
+        public void serialize(CarController.CarEventResponse response, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject(response);
+            writeNumber(generator, CAR_ID, response.carId());
+            generator.writeFieldName(CAR_EVENTS);
+            if (response.carEvents() == null) {
+                generator.writeNull();
+            } else {
+                generator.writeStartArray(response.carEvents(), response.carEvents().size());
+                for (CarEventDto event : response.carEvents()) {
+                    if (event == null) {
+                        generator.writeNull();
+                    } else {
+                        events.serialize(event, generator, provider);
+                    }
+                }
+                generator.writeEndArray();
+            }
+            writeString(generator, NEXT_CURSOR, response.nextCursor());
+            generator.writeEndObject();
+        }
+    }
+
+    static class InsuranceValidityResponseSerializer extends StdSerializer<CarController.InsuranceValidityResponse> {
+
+        InsuranceValidityResponseSerializer() {
+            super(CarController.InsuranceValidityResponse.class);
+        }
+
+        @Override
+        public void serialize(CarController.InsuranceValidityResponse response, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject(response);
+            writeNumber(generator, CAR_ID, response.carId());
+            writeString(generator, DATE, response.date());
+            generator.writeFieldName(VALID);
+            generator.writeBoolean(response.valid());
+            generator.writeEndObject();
+        }
+    }
+
+    static class SavedClaimDtoSerializer extends StdSerializer<SavedClaimDto> {
+
+        SavedClaimDtoSerializer() {
+            super(SavedClaimDto.class);
+        }
+
+        @Override
+        public void serialize(SavedClaimDto claim, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject(claim);
+            writeNumber(generator, ID, claim.id());
+            writeNumber(generator, CAR_ID, claim.carId());
+            generator.writeFieldName(CLAIM_DATE);
+            if (claim.claimDate() == null) {
+                generator.writeNull();
+            } else {
+                // java.util.Date goes through the provider, which applies the configured date format and time zone
+                provider.defaultSerializeDateValue(claim.claimDate(), generator);
+            }
+            writeString(generator, DESCRIPTION, claim.description());
+            generator.writeFieldName(AMOUNT);
+            generator.writeNumber(claim.amount());
+            generator.writeEndObject();
+        }
+    }
+
+    static class SavedPolicyDtoSerializer extends StdSerializer<SavedPolicyDto> {
+
+        SavedPolicyDtoSerializer() {
+            super(SavedPolicyDto.class);
+        }
+
+        @Override
+        public void serialize(SavedPolicyDto policy, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject(policy);
+            writeNumber(generator, ID, policy.id());
+            writeNumber(generator, CAR_ID, policy.carId());
+            writeString(generator, PROVIDER, policy.provider());
+            writeDate(generator, START_DATE, policy.startDate());
+            writeDate(generator, END_DATE, policy.endDate());
+            generator.writeEndObject();
+        }
+    }
+
+    private static void writeNumber(JsonGenerator generator, SerializableString name, Long value) throws IOException {
+        generator.writeFieldName(name);
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+
+    private static void writeString(JsonGenerator generator, SerializableString name, String value) throws IOException {
+        generator.writeFieldName(name);
+        generator.writeString(value);
+    }
+
+    private static void writeDate(JsonGenerator generator, SerializableString name, LocalDate value) throws IOException {
+        generator.writeFieldName(name);
+        generator.writeString(value != null ? value.toString() : null);
+    }
+}
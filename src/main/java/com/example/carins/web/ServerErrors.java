@@ -0,0 +1,50 @@
+package com.example.carins.web;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.filter.ServerHttpObservationFilter;
+
+/**
+ * Builds the 500 responses of the controllers' catch-all handlers. The exception is logged and attached to the
+ * request's observation, so {@code http.server.requests} tags the failure with its exception class instead of
+ * counting a handled response as error-free.
+ */
+final class ServerErrors {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(ServerErrors.class);
+
+    private ServerErrors() {
+    }
+
+    /**
+     * For handlers running on the request thread.
+     */
+    static ResponseEntity<String> internalError(Exception e) {
+        return internalError(e, currentObservation());
+    }
+
+    /**
+     * For handlers completing on another thread, with the observation taken by {@link #currentObservation()} while
+     * still on the request thread.
+     */
+    static ResponseEntity<String> internalError(Throwable e, ServerRequestObservationContext observation) {
+        log.error("Request failed", e);
+        if (observation != null) {
+            observation.setError(e);
+        }
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+    }
+
+    /**
+     * The observation of the request bound to the calling thread, or null outside a request.
+     */
+    static ServerRequestObservationContext currentObservation() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            return ServerHttpObservationFilter.findObservationContext(attributes.getRequest()).orElse(null);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.carins.web.dto;
+
+import java.util.List;
+
+public record CarEventPage(List<CarEventDto> events, String nextCursor) {
+}
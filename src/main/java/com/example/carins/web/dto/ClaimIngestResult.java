@@ -0,0 +1,15 @@
+package com.example.carins.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ClaimIngestResult(long line, Long carId, Long claimId, String error) {
+
+    public static ClaimIngestResult stored(long line, Long carId, Long claimId) {
+        return new ClaimIngestResult(line, carId, claimId, null);
+    }
+
+    public static ClaimIngestResult rejected(long line, Long carId, String error) {
+        return new ClaimIngestResult(line, carId, null, error);
+    }
+}
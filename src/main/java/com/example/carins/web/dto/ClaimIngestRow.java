@@ -0,0 +1,10 @@
+package com.example.carins.web.dto;
+
+import java.util.Date;
+
+public record ClaimIngestRow(Long carId, Date claimDate, String description, double amount) {
+
+    public InsuranceClaimDto toClaimDto() {
+        return new InsuranceClaimDto(claimDate, description, amount);
+    }
+}
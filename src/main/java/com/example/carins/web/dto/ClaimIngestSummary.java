@@ -0,0 +1,4 @@
+package com.example.carins.web.dto;
+
+public record ClaimIngestSummary(long rows, long stored, long rejected, long elapsedMillis, double rowsPerSecond) {
+}
@@ -0,0 +1,15 @@
+package com.example.carins.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDate;
+
+/**
+ * A coverage problem of one car: days between two policies ({@code GAP}), days covered by two policies
+ * ({@code OVERLAP}), or days since the last policy ended ({@code LAPSED}, without {@code otherPolicyId}).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CoverageFinding(Long carId, Type type, LocalDate from, LocalDate to, Long policyId, Long otherPolicyId) {
+
+    public enum Type { GAP, OVERLAP, LAPSED }
+}
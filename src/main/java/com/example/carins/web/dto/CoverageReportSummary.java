@@ -0,0 +1,7 @@
+package com.example.carins.web.dto;
+
+import java.time.LocalDate;
+
+public record CoverageReportSummary(LocalDate asOf, long cars, long policies, long gaps, long overlaps, long lapsed,
+                                    long elapsedMillis) {
+}
@@ -0,0 +1,7 @@
+package com.example.carins.web.dto;
+
+import java.util.List;
+
+public record FleetImportStatus(String jobId, String file, String state, long rowsRead, long carsCreated,
+                                long policiesCreated, long rowsRejected, long elapsedMillis, List<String> errors) {
+}
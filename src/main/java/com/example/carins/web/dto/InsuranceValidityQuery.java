@@ -0,0 +1,4 @@
+package com.example.carins.web.dto;
+
+public record InsuranceValidityQuery(Long carId, String date) {
+}
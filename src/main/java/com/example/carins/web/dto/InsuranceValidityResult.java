@@ -0,0 +1,15 @@
+package com.example.carins.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record InsuranceValidityResult(long index, Long carId, String date, Boolean valid, String error) {
+
+    public static InsuranceValidityResult valid(long index, Long carId, String date, boolean valid) {
+        return new InsuranceValidityResult(index, carId, date, valid, null);
+    }
+
+    public static InsuranceValidityResult error(long index, Long carId, String date, String error) {
+        return new InsuranceValidityResult(index, carId, date, null, error);
+    }
+}
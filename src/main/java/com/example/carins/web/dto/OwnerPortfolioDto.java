@@ -0,0 +1,13 @@
+package com.example.carins.web.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record OwnerPortfolioDto(Long ownerId, String ownerName, LocalDate date, List<PortfolioCar> cars) {
+
+    public record PortfolioCar(Long carId, String vin, String make, String model, int year, ActivePolicy activePolicy) {
+    }
+
+    public record ActivePolicy(Long policyId, String provider, LocalDate startDate, LocalDate endDate) {
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.carins.web.dto;
+
+import java.util.Date;
+
+public record SavedClaimDto(Long id, Long carId, Date claimDate, String description, double amount) {}
@@ -0,0 +1,37 @@
+package com.example.carins.benchmark;
+
+import com.example.carins.CarInsuranceApplication;
+import com.example.carins.service.datagen.DataGenerator;
+import com.example.carins.service.datagen.DataGeneratorInitializer;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+
+/**
+ * Starts the application without a web server on its own in-memory H2 database, filled by the {@code datagen}
+ * profile with the dataset of {@link DataGenerator.Settings#forCars} for the given number of cars. Runs at the
+ * same size measure the same rows.
+ */
+final class BenchmarkDatabase {
+
+    static final long SEED = 42;
+    static final LocalDate REFERENCE_DATE = LocalDate.of(2026, 1, 1);
+
+    private BenchmarkDatabase() {
+    }
+
+    static ConfigurableApplicationContext start(int cars) {
+        DataGenerator.Settings settings = DataGenerator.Settings.forCars(SEED, cars, REFERENCE_DATE);
+        String database = "bench" + cars;
+        return new SpringApplicationBuilder(CarInsuranceApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("datagen")
+                .properties(DataGeneratorInitializer.properties(settings))
+                .properties("spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                        "carins.reactive.url=r2dbc:h2:mem:///" + database + "?options=DB_CLOSE_DELAY=-1",
+                        "logging.level.root=WARN")
+                .run();
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.carins.benchmark;
+
+import com.example.carins.service.CarService;
+import com.example.carins.service.datagen.DataGenerator;
+import com.example.carins.web.dto.CarEventPage;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the read paths of {@link CarService} against an H2 database filled by {@link DataGenerator} at
+ * several fleet sizes. Every call asks about a different car, cycling through a fixed pseudo-random sequence.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CarServiceBenchmark {
+
+    private static final int QUERIES = 4096;
+
+    @Param({"1000", "10000", "100000"})
+    public int cars;
+
+    private ConfigurableApplicationContext context;
+    private CarService carService;
+    private final long[] carIds = new long[QUERIES];
+    private final LocalDate[] dates = new LocalDate[QUERIES];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkDatabase.start(cars);
+        carService = context.getBean(CarService.class);
+        Random random = new Random(42);
+        for (int i = 0; i < QUERIES; i++) {
+            carIds[i] = DataGenerator.FIRST_ID + random.nextInt(cars);
+            dates[i] = BenchmarkDatabase.REFERENCE_DATE.minusYears(3).plusDays(random.nextInt(4 * 365));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean isInsuranceValid() {
+        int i = next++ & (QUERIES - 1);
+        return carService.isInsuranceValid(carIds[i], dates[i]);
+    }
+
+    @Benchmark
+    public CarEventPage getCarEvents() {
+        int i = next++ & (QUERIES - 1);
+        return carService.getCarEvents(carIds[i], null, null, null, 20);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CarServiceBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.carins.benchmark;
+
+import com.example.carins.service.ClaimValidator;
+import com.example.carins.web.dto.CarDto;
+import com.example.carins.web.dto.InsuranceClaimDto;
+import com.example.carins.web.dto.InsurancePolicyDto;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.hibernate.validator.HibernateValidator;
+import org.hibernate.validator.HibernateValidatorConfiguration;
+import org.hibernate.validator.cfg.ConstraintMapping;
+import org.hibernate.validator.cfg.defs.NotNullDef;
+import org.hibernate.validator.cfg.defs.PositiveDef;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the shared {@link ClaimValidator} against building a new {@link ValidatorFactory}
+ * for every call, which is what the validator used to do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClaimValidatorBenchmark {
+
+    private final InsuranceClaimDto claim = new InsuranceClaimDto(new Date(), "Rear bumper", 1200);
+    private final InsurancePolicyDto policy = new InsurancePolicyDto("Allianz", LocalDate.now(), LocalDate.now().plusYears(1));
+    private final CarDto car = new CarDto(null, "WVWZZZ1JZXW000001", "VW", "Golf", 2021, 1L, null, null);
+
+    @Benchmark
+    public Set<ConstraintViolation<InsuranceClaimDto>> sharedFactoryClaim() {
+        return ClaimValidator.validate(claim);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<InsurancePolicyDto>> sharedFactoryPolicy() {
+        return ClaimValidator.validatePolicy(policy);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<CarDto>> sharedFactoryCar() {
+        return ClaimValidator.validateCar(car);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<InsuranceClaimDto>> perCallFactoryClaim() {
+        HibernateValidatorConfiguration configuration = Validation
+                .byProvider(HibernateValidator.class)
+                .configure();
+
+        ConstraintMapping mapping = configuration.createConstraintMapping();
+        mapping
+                .type(InsuranceClaimDto.class)
+                .field("claimDate")
+                .constraint(new NotNullDef())
+                .field("amount")
+                .constraint(new PositiveDef());
+
+        try (ValidatorFactory factory = configuration.addMapping(mapping).buildValidatorFactory()) {
+            return factory.getValidator().validate(claim);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ClaimValidatorBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.carins.benchmark;
+
+import com.example.carins.model.Car;
+import com.example.carins.model.InsuranceClaim;
+import com.example.carins.model.InsurancePolicy;
+import com.example.carins.model.Owner;
+import com.example.carins.service.mapper.Mapper;
+import com.example.carins.web.dto.CarDto;
+import com.example.carins.web.dto.InsuranceClaimDto;
+import com.example.carins.web.dto.InsurancePolicyDto;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the DTO to entity mappings used on every write and the entity to {@link CarDto} mapping used by the
+ * VIN lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    private final InsuranceClaimDto claim = new InsuranceClaimDto(new Date(), "Rear bumper", 1200);
+    private final InsurancePolicyDto policy = new InsurancePolicyDto("Allianz", LocalDate.now(), LocalDate.now().plusYears(1));
+    private final CarDto carDto = new CarDto(null, "WVWZZZ1JZXW000001", "VW", "Golf", 2021, 1L, null, null);
+    private Car car;
+
+    @Setup
+    public void setUp() {
+        car = Mapper.mapToCar(carDto);
+        car.setOwner(new Owner("Ana Pop", "ana.pop@example.com"));
+    }
+
+    @Benchmark
+    public InsuranceClaim mapToInsuranceClaim() {
+        return Mapper.mapToInsuranceClaim(claim);
+    }
+
+    @Benchmark
+    public InsurancePolicy mapToInsurancePolicy() {
+        return Mapper.mapToInsurancePolicy(policy);
+    }
+
+    @Benchmark
+    public Car mapToCar() {
+        return Mapper.mapToCar(carDto);
+    }
+
+    @Benchmark
+    public CarDto mapToCarDto() {
+        return Mapper.mapToCarDto(car);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MapperBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
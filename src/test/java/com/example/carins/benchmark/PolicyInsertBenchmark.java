@@ -0,0 +1,75 @@
+package com.example.carins.benchmark;
+
+import com.example.carins.model.Car;
+import com.example.carins.model.InsurancePolicy;
+import com.example.carins.repo.CarRepository;
+import com.example.carins.service.PolicyWriter;
+import com.example.carins.service.datagen.DataGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+/**
+ * Measures overlap-checked policy inserts by 16 threads spread over 1, 16 or 256 cars. With one car every insert
+ * waits for the car's lock; with more cars the threads mostly hold different stripes and the rate is bounded by
+ * the database alone.
+ * <p>
+ * Inserts go through {@link PolicyWriter} directly: the API only accepts periods containing today, so a car could
+ * take a single policy. Each car instead gets one-day periods walking back in time from long before the generated
+ * policies, which keeps every overlap check to an empty index range.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(16)
+@Fork(1)
+public class PolicyInsertBenchmark {
+
+    private static final int FLEET = 1000;
+    private static final long FIRST_DAY = LocalDate.of(1990, 1, 1).toEpochDay();
+
+    @Param({"1", "16", "256"})
+    public int cars;
+
+    private ConfigurableApplicationContext context;
+    private PolicyWriter policyWriter;
+    private Car[] targets;
+    private final AtomicLong inserts = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkDatabase.start(FLEET);
+        policyWriter = context.getBean(PolicyWriter.class);
+        targets = context.getBean(CarRepository.class)
+                .findAllById(LongStream.range(DataGenerator.FIRST_ID, DataGenerator.FIRST_ID + cars).boxed().toList())
+                .toArray(Car[]::new);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public InsurancePolicy insertPolicy() {
+        long insert = inserts.getAndIncrement();
+        Car car = targets[(int) (insert % cars)];
+        LocalDate day = LocalDate.ofEpochDay(FIRST_DAY - insert / cars);
+        return policyWriter.insert(car.getId(), new InsurancePolicy(car, "Benchmark", day, day));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PolicyInsertBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.carins.benchmark;
+
+import com.example.carins.model.Car;
+import com.example.carins.model.InsuranceClaim;
+import com.example.carins.model.Owner;
+import com.example.carins.web.CarController;
+import com.example.carins.web.ResponseSerializers;
+import com.example.carins.web.dto.CarDto;
+import com.example.carins.web.dto.CarEventDto;
+import com.example.carins.web.dto.CarEventType;
+import com.example.carins.web.dto.SavedClaimDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the response of the claim endpoint as it used to be, a wrapper around the {@link InsuranceClaim} entity
+ * with its car and owner, against the {@link SavedClaimDto} it returns now, and Jackson's reflective serializers
+ * against {@link ResponseSerializers} for a history page and a car page. The mappers are configured as Spring Boot
+ * configures the application's. The size of each response is printed once at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+
+    /**
+     * The body of {@code POST /api/cars/{carId}/claims} before it returned a DTO.
+     */
+    public record EntityClaimResponse(Long carId, InsuranceClaim insuranceClaimDto) {
+    }
+
+    private final ObjectMapper reflective = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+    private final ObjectMapper prebuilt = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .modulesToInstall(new ResponseSerializers()).build();
+
+    private EntityClaimResponse entityClaim;
+    private SavedClaimDto claim;
+    private CarController.CarEventResponse history;
+    private List<CarDto> cars;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        Owner owner = new Owner("Ana Pop", "ana.pop@example.com");
+        ReflectionTestUtils.setField(owner, "id", 1L);
+        Car car = new Car("WVWZZZ1JZXW000001", "VW", "Golf", 2021, owner);
+        ReflectionTestUtils.setField(car, "id", 1000L);
+        Date claimDate = new Date(1738368000000L);
+        InsuranceClaim entity = new InsuranceClaim(car, claimDate, "Rear bumper", 1200);
+        ReflectionTestUtils.setField(entity, "id", 50L);
+        entityClaim = new EntityClaimResponse(1000L, entity);
+        claim = new SavedClaimDto(50L, 1000L, claimDate, "Rear bumper", 1200);
+
+        List<CarEventDto> events = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            events.add(new CarEventDto(i % 3 == 0 ? CarEventType.CLAIM : CarEventType.POLICY_START,
+                    LocalDate.of(2020, 1, 1).plusDays(30L * i), "Policy started", "Allianz", 100L + i));
+        }
+        history = new CarController.CarEventResponse(1000L, events, "MjAyMS0wNy0xOXxQT0xJQ1lfU1RBUlR8MTE5");
+
+        cars = new ArrayList<>();
+        for (long id = 1000; id < 1100; id++) {
+            cars.add(new CarDto(id, "WVWZZZ1JZXW00" + id, "VW", "Golf", 2021, id / 2, "Owner " + id / 2, "owner" + id / 2 + "@example.com"));
+        }
+
+        System.out.printf("%nbytes per response: claim entity %d, claim DTO %d, history %d, car page %d%n",
+                reflective.writeValueAsBytes(entityClaim).length, prebuilt.writeValueAsBytes(claim).length,
+                prebuilt.writeValueAsBytes(history).length, prebuilt.writeValueAsBytes(cars).length);
+    }
+
+    @Benchmark
+    public byte[] claimEntity() throws JsonProcessingException {
+        return reflective.writeValueAsBytes(entityClaim);
+    }
+
+    @Benchmark
+    public byte[] claimDto() throws JsonProcessingException {
+        return prebuilt.writeValueAsBytes(claim);
+    }
+
+    @Benchmark
+    public byte[] historyReflective() throws JsonProcessingException {
+        return reflective.writeValueAsBytes(history);
+    }
+
+    @Benchmark
+    public byte[] historyPrebuilt() throws JsonProcessingException {
+        return prebuilt.writeValueAsBytes(history);
+    }
+
+    @Benchmark
+    public byte[] carPageReflective() throws JsonProcessingException {
+        return reflective.writeValueAsBytes(cars);
+    }
+
+    @Benchmark
+    public byte[] carPagePrebuilt() throws JsonProcessingException {
+        return prebuilt.writeValueAsBytes(cars);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ResponseSerializationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.carins.load;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code CarController} requests driven by {@link OpenModelLoadTest}, each with its name in the mix and report.
+ * Requests target random cars and owners of the generated dataset; writes only add rows, so a run never fails on
+ * data changed by an earlier request.
+ */
+enum LoadOperation {
+
+    INSURANCE_VALID("insurance-valid", 200) {
+        @Override
+        HttpRequest request(Target target, SplittableRandom random) {
+            LocalDate date = target.referenceDate().minusDays(random.nextInt(4 * 365));
+            return get(target, "/api/cars/" + target.carId(random) + "/insurance-valid?date=" + date);
+        }
+    },
+    HISTORY("history", 200) {
+        @Override
+        HttpRequest request(Target target, SplittableRandom random) {
+            return get(target, "/api/cars/" + target.carId(random) + "/history?limit=20");
+        }
+    },
+    CARS_PAGE("cars-page", 200) {
+        @Override
+        HttpRequest request(Target target, SplittableRandom random) {
+            return get(target, "/api/cars?afterId=" + target.carId(random) + "&limit=100");
+        }
+    },
+    VIN_SEARCH("vin-search", 200) {
+        @Override
+        HttpRequest request(Target target, SplittableRandom random) {
+            // generated VINs are a manufacturer code followed by the zero-padded car id
+            String prefix = WMI[random.nextInt(WMI.length)] + String.format("%014d", target.carId(random)).substring(0, 11);
+            return get(target, "/api/cars/by-vin?prefix=" + prefix + "&limit=20");
+        }
+    },
+    CLAIM("claim", 201) {
+        @Override
+        HttpRequest request(Target target, SplittableRandom random) {
+            LocalDate claimDate = target.referenceDate().minusDays(random.nextInt(365));
+            return post(target, "/api/cars/" + target.carId(random) + "/claims",
+                    "{\"claimDate\":\"" + claimDate + "\",\"description\":\"Load test\",\"amount\":"
+                            + (100 + random.nextInt(5000)) + "}");
+        }
+    },
+    POLICY("policy", 201, 409) {
+        @Override
+        HttpRequest request(Target target, SplittableRandom random) {
+            // the policy must start today or earlier and end in the future, whatever the dataset's reference date;
+            // a car insured today already, by the dataset or an earlier request, answers with a conflict
+            LocalDate today = LocalDate.now();
+            return post(target, "/api/cars/" + target.carId(random) + "/policies",
+                    "{\"provider\":\"Load test\",\"startDate\":\"" + today + "\",\"endDate\":\"" + today.plusYears(1) + "\"}");
+        }
+    },
+    CAR("car", 201) {
+        @Override
+        HttpRequest request(Target target, SplittableRandom random) {
+            return post(target, "/api/cars",
+                    "{\"vin\":\"" + target.nextVin() + "\",\"make\":\"Dacia\",\"model\":\"Logan\",\"year\":2020,\"ownerId\":"
+                            + target.ownerId(random) + "}");
+        }
+    };
+
+    private static final String[] WMI = {"UU1", "WVW", "TMB", "VF1", "WF0", "JTD", "WBA"};
+
+    private final String key;
+    private final int[] expectedStatuses;
+
+    LoadOperation(String key, int... expectedStatuses) {
+        this.key = key;
+        this.expectedStatuses = expectedStatuses;
+    }
+
+    String key() {
+        return key;
+    }
+
+    boolean succeeded(int status) {
+        for (int expected : expectedStatuses) {
+            if (status == expected) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    abstract HttpRequest request(Target target, SplittableRandom random);
+
+    static LoadOperation of(String key) {
+        for (LoadOperation operation : values()) {
+            if (operation.key.equals(key)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation '" + key + "'");
+    }
+
+    private static HttpRequest get(Target target, String path) {
+        return HttpRequest.newBuilder(target.uri(path)).timeout(target.timeout()).GET().build();
+    }
+
+    private static HttpRequest post(Target target, String path, String json) {
+        return HttpRequest.newBuilder(target.uri(path))
+                .timeout(target.timeout())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    /**
+     * The running application and the id ranges of its generated dataset.
+     */
+    record Target(String baseUrl, Duration timeout, long firstId, long cars, long owners, LocalDate referenceDate,
+                  String vinPrefix, AtomicLong vinSequence) {
+
+        URI uri(String path) {
+            return URI.create(baseUrl + path);
+        }
+
+        long carId(SplittableRandom random) {
+            return firstId + random.nextLong(cars);
+        }
+
+        long ownerId(SplittableRandom random) {
+            return firstId + random.nextLong(owners);
+        }
+
+        String nextVin() {
+            return vinPrefix + vinSequence.incrementAndGet();
+        }
+    }
+}
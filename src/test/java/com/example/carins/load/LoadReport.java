@@ -0,0 +1,127 @@
+package com.example.carins.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of one {@link OpenModelLoadTest} run, written as JSON so that runs can be compared. Latencies are in
+ * milliseconds. {@code responseTime} is measured from the moment the request was scheduled to be sent, so a server
+ * that falls behind the arrival rate shows up in it; {@code serviceTime} from the moment it was actually sent.
+ */
+record LoadReport(String startedAt, double rate, long seconds, long cars, Map<String, Integer> mix,
+                  Map<String, Endpoint> endpoints, Endpoint total) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    record Endpoint(long requests, long errors, double throughput, Latency responseTime, Latency serviceTime) {
+
+        static Endpoint of(long requests, long errors, long seconds, Histogram responseTime, Histogram serviceTime) {
+            return new Endpoint(requests, errors, round((requests - errors) / (double) seconds),
+                    Latency.of(responseTime), Latency.of(serviceTime));
+        }
+    }
+
+    record Latency(double p50, double p90, double p99, double p999, double max, double mean) {
+
+        /**
+         * Summarizes a histogram of microsecond values.
+         */
+        static Latency of(Histogram micros) {
+            if (micros.getTotalCount() == 0) {
+                return new Latency(0, 0, 0, 0, 0, 0);
+            }
+            return new Latency(millis(micros.getValueAtPercentile(50)), millis(micros.getValueAtPercentile(90)),
+                    millis(micros.getValueAtPercentile(99)), millis(micros.getValueAtPercentile(99.9)),
+                    millis(micros.getMaxValue()), round(micros.getMean() / 1000));
+        }
+    }
+
+    void write(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        MAPPER.writeValue(file.toFile(), this);
+    }
+
+    static LoadReport read(Path file) throws IOException {
+        return MAPPER.readValue(file.toFile(), LoadReport.class);
+    }
+
+    /**
+     * One line per endpoint with this run's throughput and response time percentiles.
+     */
+    List<String> table() {
+        List<String> rows = new ArrayList<>();
+        rows.add(String.format("%-16s %9s %7s %9s %9s %9s %9s %9s", "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+        endpoints.forEach((name, endpoint) -> rows.add(row(name, endpoint)));
+        rows.add(row("total", total));
+        return rows;
+    }
+
+    /**
+     * One line per endpoint present in both runs with the relative change of throughput and response time
+     * percentiles against {@code baseline}; a positive latency change is a slowdown.
+     */
+    List<String> compare(LoadReport baseline) {
+        List<String> rows = new ArrayList<>();
+        rows.add(String.format("%-16s %9s %9s %9s %9s", "endpoint", "req/s", "p50", "p99", "p99.9"));
+        endpoints.forEach((name, endpoint) -> {
+            Endpoint before = baseline.endpoints().get(name);
+            if (before != null) {
+                rows.add(delta(name, endpoint, before));
+            }
+        });
+        rows.add(delta("total", total, baseline.total()));
+        return rows;
+    }
+
+    /**
+     * Relative change of the p99 response time against {@code baseline}, per endpoint present in both runs.
+     */
+    Map<String, Double> p99Change(LoadReport baseline) {
+        Map<String, Double> changes = new LinkedHashMap<>();
+        endpoints.forEach((name, endpoint) -> {
+            Endpoint before = baseline.endpoints().get(name);
+            if (before != null) {
+                changes.put(name, change(endpoint.responseTime().p99(), before.responseTime().p99()));
+            }
+        });
+        return changes;
+    }
+
+    private static String row(String name, Endpoint endpoint) {
+        Latency latency = endpoint.responseTime();
+        return String.format("%-16s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f", name, endpoint.requests(), endpoint.errors(),
+                endpoint.throughput(), latency.p50(), latency.p99(), latency.p999(), latency.max());
+    }
+
+    private static String delta(String name, Endpoint now, Endpoint before) {
+        return String.format("%-16s %+8.1f%% %+8.1f%% %+8.1f%% %+8.1f%%", name,
+                100 * change(now.throughput(), before.throughput()),
+                100 * change(now.responseTime().p50(), before.responseTime().p50()),
+                100 * change(now.responseTime().p99(), before.responseTime().p99()),
+                100 * change(now.responseTime().p999(), before.responseTime().p999()));
+    }
+
+    private static double change(double now, double before) {
+        return before == 0 ? 0 : (now - before) / before;
+    }
+
+    private static double millis(long micros) {
+        return round(micros / 1000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.carins.load;
+
+import com.example.carins.CarInsuranceApplication;
+import com.example.carins.service.datagen.DataGenerator;
+import com.example.carins.service.datagen.DataGeneratorInitializer;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives the {@code CarController} endpoints at a constant arrival rate (an open model: requests are sent on
+ * schedule whether or not earlier ones have completed) against an application filled by the {@code datagen}
+ * profile, and writes per endpoint throughput and HdrHistogram latency percentiles to a JSON report.
+ * <p>
+ * Latency is measured from each request's scheduled send time, not from when it was actually sent, so a server
+ * that stalls is charged for every request that queued behind the stall instead of hiding it (coordinated
+ * omission). The request sequence comes from a seeded random, so two runs with the same settings send the same
+ * requests.
+ * <p>
+ * Run with {@code mvn test -Pload -Dtest=OpenModelLoadTest}. Settings are {@code carins.load.open.*} system properties:
+ * <ul>
+ *     <li>{@code rate} requests per second over all endpoints (100), {@code seconds} measured (30), {@code warmup} seconds (10)</li>
+ *     <li>{@code mix} relative weights per endpoint, e.g. {@code insurance-valid:50,history:20,claim:10}</li>
+ *     <li>{@code cars} generated cars (20000), {@code seed} for the data and the request sequence (42)</li>
+ *     <li>{@code report} the JSON file written ({@code target/load-report.json})</li>
+ *     <li>{@code baseline} an earlier report to print the changes against, and {@code max-p99-regression}
+ *     (e.g. {@code 0.2}) to fail when an endpoint's p99 grew by more than that fraction</li>
+ * </ul>
+ */
+@Tag("load")
+class OpenModelLoadTest {
+
+    private static final String PREFIX = "carins.load.open.";
+    private static final double RATE = Double.parseDouble(System.getProperty(PREFIX + "rate", "100"));
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong(PREFIX + "seconds", 30));
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong(PREFIX + "warmup", 10));
+    private static final String MIX = System.getProperty(PREFIX + "mix",
+            "insurance-valid:50,history:20,cars-page:10,vin-search:5,claim:10,policy:3,car:2");
+    private static final int CARS = Integer.getInteger(PREFIX + "cars", 20_000);
+    private static final long SEED = Long.getLong(PREFIX + "seed", 42);
+    private static final Path REPORT = Path.of(System.getProperty(PREFIX + "report", "target/load-report.json"));
+    private static final String BASELINE = System.getProperty(PREFIX + "baseline");
+    private static final String MAX_P99_REGRESSION = System.getProperty(PREFIX + "max-p99-regression");
+    private static final double MAX_ERROR_RATIO = 0.01;
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final LocalDate REFERENCE_DATE = LocalDate.of(2026, 1, 1);
+    // one hour in microseconds; slower responses are recorded as one hour
+    private static final long HIGHEST_LATENCY = TimeUnit.HOURS.toMicros(1);
+
+    @Test
+    void constantArrivalRate() throws Exception {
+        Map<LoadOperation, Integer> mix = parseMix(MIX);
+        DataGenerator.Settings settings = DataGenerator.Settings.forCars(SEED, CARS, REFERENCE_DATE);
+
+        LoadReport report;
+        try (ConfigurableApplicationContext context = start(settings)) {
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            LoadOperation.Target target = new LoadOperation.Target("http://localhost:" + port, REQUEST_TIMEOUT,
+                    DataGenerator.FIRST_ID, settings.cars(), settings.owners(), settings.referenceDate(),
+                    "LOAD" + Long.toString(System.currentTimeMillis(), 36).toUpperCase(), new AtomicLong());
+
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+                 HttpClient client = HttpClient.newBuilder()
+                         .version(HttpClient.Version.HTTP_1_1)
+                         .connectTimeout(Duration.ofSeconds(10))
+                         .executor(executor)
+                         .build()) {
+                run(client, target, mix, new SplittableRandom(SEED + 1), WARMUP);
+                Instant startedAt = Instant.now();
+                Map<LoadOperation, Stats> stats = run(client, target, mix, new SplittableRandom(SEED), DURATION);
+                report = report(startedAt, settings, mix, stats);
+            }
+        }
+
+        report.write(REPORT);
+        System.out.println(String.join(System.lineSeparator(), report.table()));
+        System.out.println("Report written to " + REPORT.toAbsolutePath());
+
+        Assertions.assertTrue(report.total().requests() > 0, "no request was sent");
+        Assertions.assertTrue(report.total().errors() <= MAX_ERROR_RATIO * report.total().requests(),
+                report.total().errors() + " of " + report.total().requests() + " requests failed");
+        if (BASELINE != null) {
+            compare(report, LoadReport.read(Path.of(BASELINE)));
+        }
+    }
+
+    private static ConfigurableApplicationContext start(DataGenerator.Settings settings) {
+        return new SpringApplicationBuilder(CarInsuranceApplication.class)
+                .profiles("datagen")
+                .properties(DataGeneratorInitializer.properties(settings))
+                .properties("server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:carins-load;DB_CLOSE_DELAY=-1",
+                        "carins.reactive.url=r2dbc:h2:mem:///carins-load?options=DB_CLOSE_DELAY=-1",
+                        "logging.level.root=WARN")
+                .run();
+    }
+
+    /**
+     * Sends one request every {@code 1 / RATE} seconds for {@code duration}, picking the endpoint by weight, then
+     * waits for the requests still in flight. The sender never waits for a response; when it falls behind schedule
+     * it sends the late requests immediately, and their latency still counts from the scheduled time.
+     */
+    private static Map<LoadOperation, Stats> run(HttpClient client, LoadOperation.Target target, Map<LoadOperation, Integer> mix,
+                                                 SplittableRandom random, Duration duration) throws Exception {
+        Map<LoadOperation, Stats> stats = new EnumMap<>(LoadOperation.class);
+        mix.keySet().forEach(operation -> stats.put(operation, new Stats()));
+        LoadOperation[] wheel = weightedWheel(mix);
+
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / RATE);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        Phaser inFlight = new Phaser(1);
+        for (long scheduled = start; scheduled < end; scheduled += interval) {
+            long wait;
+            while ((wait = scheduled - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            LoadOperation operation = wheel[random.nextInt(wheel.length)];
+            HttpRequest request = operation.request(target, random);
+            Stats operationStats = stats.get(operation);
+            long intended = scheduled;
+            long sent = System.nanoTime();
+            inFlight.register();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        long done = System.nanoTime();
+                        operationStats.record(intended, sent, done, failure == null && operation.succeeded(response.statusCode()));
+                        inFlight.arriveAndDeregister();
+                    });
+        }
+        inFlight.awaitAdvanceInterruptibly(inFlight.arrive(), REQUEST_TIMEOUT.toSeconds() + 10, TimeUnit.SECONDS);
+        return stats;
+    }
+
+    private static LoadReport report(Instant startedAt, DataGenerator.Settings settings, Map<LoadOperation, Integer> mix,
+                                     Map<LoadOperation, Stats> stats) {
+        long seconds = DURATION.toSeconds();
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        Map<String, LoadReport.Endpoint> endpoints = new LinkedHashMap<>();
+        Stats total = new Stats();
+        mix.forEach((operation, weight) -> {
+            Stats operationStats = stats.get(operation);
+            weights.put(operation.key(), weight);
+            endpoints.put(operation.key(), operationStats.toEndpoint(seconds));
+            total.add(operationStats);
+        });
+        return new LoadReport(startedAt.toString(), RATE, seconds, settings.cars(), weights, endpoints, total.toEndpoint(seconds));
+    }
+
+    private static void compare(LoadReport report, LoadReport baseline) {
+        System.out.println("Change against " + BASELINE + " (" + baseline.startedAt() + ")");
+        System.out.println(String.join(System.lineSeparator(), report.compare(baseline)));
+        if (MAX_P99_REGRESSION != null) {
+            double limit = Double.parseDouble(MAX_P99_REGRESSION);
+            report.p99Change(baseline).forEach((endpoint, change) -> Assertions.assertTrue(change <= limit,
+                    String.format("p99 of %s grew by %.1f%%, more than the allowed %.1f%%", endpoint, 100 * change, 100 * limit)));
+        }
+    }
+
+    /**
+     * Parses {@code name:weight} pairs separated by commas, keeping their order.
+     */
+    static Map<LoadOperation, Integer> parseMix(String mix) {
+        Map<LoadOperation, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected name:weight but got '" + entry + "'");
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                weights.put(LoadOperation.of(parts[0].trim()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("The mix has no operation with a positive weight");
+        }
+        return weights;
+    }
+
+    /**
+     * Each operation repeated as often as its weight, so one random index picks an operation by weight.
+     */
+    private static LoadOperation[] weightedWheel(Map<LoadOperation, Integer> mix) {
+        return mix.entrySet().stream()
+                .flatMap(entry -> Collections.nCopies(entry.getValue(), entry.getKey()).stream())
+                .toArray(LoadOperation[]::new);
+    }
+
+    /**
+     * Latencies of one operation in microseconds, recorded from the HTTP client's threads. Failed requests are
+     * counted and kept out of the histograms.
+     */
+    private static final class Stats {
+
+        private final Histogram responseTime = new ConcurrentHistogram(HIGHEST_LATENCY, 3);
+        private final Histogram serviceTime = new ConcurrentHistogram(HIGHEST_LATENCY, 3);
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        void record(long intended, long sent, long done, boolean succeeded) {
+            requests.increment();
+            if (!succeeded) {
+                errors.increment();
+                return;
+            }
+            responseTime.recordValue(Math.min(HIGHEST_LATENCY, TimeUnit.NANOSECONDS.toMicros(done - intended)));
+            serviceTime.recordValue(Math.min(HIGHEST_LATENCY, TimeUnit.NANOSECONDS.toMicros(done - sent)));
+        }
+
+        void add(Stats other) {
+            responseTime.add(other.responseTime);
+            serviceTime.add(other.serviceTime);
+            requests.add(other.requests.sum());
+            errors.add(other.errors.sum());
+        }
+
+        LoadReport.Endpoint toEndpoint(long seconds) {
+            return LoadReport.Endpoint.of(requests.sum(), errors.sum(), seconds, responseTime, serviceTime);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.carins.load;
+
+import com.example.carins.CarInsuranceApplication;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compares throughput and p99 latency of the insurance-valid and history endpoints, blocking and reactive, with
+ * requests running on platform threads and on virtual threads, at increasing client concurrency. Starts the application once per
+ * mode on a random port and prints one table row per endpoint and concurrency level.
+ * <p>
+ * Run with {@code mvn test -Pload}; {@code -Dcarins.load.concurrency=16,64,256,1024} and
+ * {@code -Dcarins.load.seconds=5} change the levels and the measured time per level.
+ */
+@Tag("load")
+class ThreadModeLoadTest {
+
+    private static final int[] CONCURRENCY = Arrays.stream(System.getProperty("carins.load.concurrency", "16,64,256,1024").split(","))
+            .mapToInt(level -> Integer.parseInt(level.trim()))
+            .toArray();
+    private static final Duration LEVEL_DURATION = Duration.ofSeconds(Long.getLong("carins.load.seconds", 5));
+    private static final Duration WARMUP = Duration.ofSeconds(3);
+
+    private static final String[] ENDPOINTS = {
+            "/api/cars/1/insurance-valid?date=2025-06-01",
+            "/api/cars/1/history",
+            "/api/reactive/cars/1/insurance-valid?date=2025-06-01",
+            "/api/reactive/cars/1/history"
+    };
+
+    @Test
+    void comparePlatformAndVirtualThreads() throws Exception {
+        List<String> rows = new ArrayList<>();
+        rows.add(String.format("%-8s %-55s %6s %10s %10s %10s %10s %7s",
+                "threads", "endpoint", "conc", "requests", "req/s", "p50 ms", "p99 ms", "errors"));
+        for (boolean virtual : new boolean[]{false, true}) {
+            try (ConfigurableApplicationContext context = start(virtual)) {
+                int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+                for (String endpoint : ENDPOINTS) {
+                    URI uri = URI.create("http://localhost:" + port + endpoint);
+                    run(uri, CONCURRENCY[0], WARMUP);
+                    for (int concurrency : CONCURRENCY) {
+                        Result result = run(uri, concurrency, LEVEL_DURATION);
+                        rows.add(String.format("%-8s %-55s %6d %10d %10.0f %10.2f %10.2f %7d",
+                                virtual ? "virtual" : "platform", endpoint, concurrency, result.requests(),
+                                result.requests() / (LEVEL_DURATION.toNanos() / 1e9),
+                                result.percentileMillis(0.50), result.percentileMillis(0.99), result.errors()));
+                        Assertions.assertTrue(result.requests() > 0, "no request completed at concurrency " + concurrency);
+                    }
+                }
+            }
+        }
+        System.out.println(String.join(System.lineSeparator(), rows));
+    }
+
+    private static ConfigurableApplicationContext start(boolean virtual) {
+        return new SpringApplicationBuilder(CarInsuranceApplication.class)
+                .properties("server.port=0",
+                        "spring.threads.virtual.enabled=" + virtual,
+                        "logging.level.root=WARN")
+                .run();
+    }
+
+    /**
+     * Keeps {@code concurrency} requests in flight for {@code duration}, each client on its own virtual thread so
+     * that the client side never becomes the bottleneck.
+     */
+    private static Result run(URI uri, int concurrency, Duration duration) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build();
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        List<Future<long[]>> clients = new ArrayList<>(concurrency);
+        int[] errors = new int[concurrency];
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                int clientIndex = i;
+                clients.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors[clientIndex]++;
+                                continue;
+                            }
+                        } catch (Exception e) {
+                            errors[clientIndex]++;
+                            continue;
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - start;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+
+            List<long[]> perClient = new ArrayList<>(concurrency);
+            for (Future<long[]> future : clients) {
+                perClient.add(future.get());
+            }
+            long[] all = perClient.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            return new Result(all, Arrays.stream(errors).sum());
+        } finally {
+            client.close();
+        }
+    }
+
+    private record Result(long[] sortedLatencies, int errors) {
+
+        long requests() {
+            return sortedLatencies.length;
+        }
+
+        double percentileMillis(double percentile) {
+            if (sortedLatencies.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.min(sortedLatencies.length - 1, Math.ceil(percentile * sortedLatencies.length) - 1);
+            return sortedLatencies[Math.max(0, index)] / 1e6;
+        }
+    }
+}
@@ -1,15 +1,29 @@
 package com.example.carins.service;
 
 import com.example.carins.exception.CarNotFoundException;
+import com.example.carins.exception.OwnerNotFoundException;
+import com.example.carins.exception.PolicyOverlapException;
 import com.example.carins.model.Car;
 import com.example.carins.model.InsuranceClaim;
 import com.example.carins.model.InsurancePolicy;
 import com.example.carins.model.Owner;
 import com.example.carins.repo.CarRepository;
 import com.example.carins.repo.InsuranceClaimRepository;
-import com.example.carins.repo.InsurancePolicyRepository;
+import com.example.carins.repo.OwnerRepository;
+import com.example.carins.repo.projection.CarEventRow;
+import com.example.carins.repo.projection.PortfolioRow;
+import com.example.carins.service.cache.ReferenceCache;
+import com.example.carins.service.index.CoverageBitmapIndex;
+import com.example.carins.service.index.CoverageIndex;
+import com.example.carins.service.index.VinIndex;
+import com.example.carins.web.dto.CarDto;
 import com.example.carins.web.dto.CarEventDto;
+import com.example.carins.web.dto.CarEventPage;
+import com.example.carins.web.dto.CarEventType;
 import com.example.carins.web.dto.InsuranceClaimDto;
+import com.example.carins.web.dto.InsurancePolicyDto;
+import com.example.carins.web.dto.OwnerPortfolioDto;
+import com.example.carins.web.dto.SavedPolicyDto;
 import jakarta.validation.ConstraintViolationException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,6 +33,8 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 
 import java.time.LocalDate;
 import java.util.Collections;
@@ -27,6 +43,7 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 
 
@@ -36,9 +53,23 @@ class CarServiceTest {
     @Mock
     CarRepository carRepository;
     @Mock
-    InsurancePolicyRepository policyRepository;
+    OwnerRepository ownerRepository;
     @Mock
     InsuranceClaimRepository claimRepository;
+    @Mock
+    ReferenceCache referenceCache;
+    @Mock
+    CoverageIndex coverageIndex;
+    @Mock
+    CoverageBitmapIndex coverageBitmapIndex;
+    @Mock
+    VinIndex vinIndex;
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+    @Mock
+    ClaimTotalsService claimTotalsService;
+    @Mock
+    PolicyWriter policyWriter;
     @InjectMocks
     CarService carService;
 
@@ -55,20 +86,39 @@ class CarServiceTest {
         Assertions.assertEquals(1, cars.size());
     }
 
+    @Test
+    void When_PageRequested_ExpectListCars_QueryAfterGivenId() {
+        CarDto car = new CarDto(11L, "4Y1SL65848Z411439", "Honda", "Civic", 2021, 1L, "John Doe", "john.doe@mail.example.com");
+        Mockito.when(carRepository.findCarDtosAfter(10L, Limit.of(50))).thenReturn(List.of(car));
+
+        Assertions.assertEquals(List.of(car), carService.listCars(10L, 50));
+    }
+
+    @Test
+    void When_PageLimitOutOfRange_ExpectListCars_ThrowIllegalArgumentException() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> carService.listCars(null, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> carService.listCars(null, CarService.MAX_PAGE_SIZE + 1));
+    }
+
     @Test
     void When_CarHasActivePolicyOnDate_ExpectIsInsuranceValid_ReturnTrue() {
-        Mockito.when(policyRepository.findByCarId(anyLong())).thenReturn(Collections.singletonList(new InsurancePolicy(new Car("4Y1SL65848Z411439",
-                "Honda", "Civic", 2021, new Owner("John Doe", "john.doe@mail.example.com")), "SRL INSURANCE",
-                LocalDate.parse("2024-02-01"), LocalDate.parse("2025-02-02"))));
-        Mockito.when(policyRepository.existsActiveOnDate(anyLong(), any())).thenReturn(true);
+        Mockito.when(coverageIndex.lookup(anyLong(), any())).thenReturn(CoverageIndex.Lookup.COVERED);
 
         boolean isValid = carService.isInsuranceValid(1L, LocalDate.parse("2024-03-03"));
         Assertions.assertTrue(isValid);
+        Mockito.verifyNoInteractions(carRepository);
+    }
+
+    @Test
+    void When_CarHasNoActivePolicyOnDate_ExpectIsInsuranceValid_ReturnFalse() {
+        Mockito.when(coverageIndex.lookup(anyLong(), any())).thenReturn(CoverageIndex.Lookup.NOT_COVERED);
+
+        Assertions.assertFalse(carService.isInsuranceValid(1L, LocalDate.parse("2024-03-03")));
     }
 
     @Test
     void When_CarDoesNotExist_ExpectIsInsuranceValid_ThrowCarNotFoundException() {
-        Mockito.when(policyRepository.findByCarId(anyLong())).thenReturn(Collections.emptyList());
+        Mockito.when(coverageIndex.lookup(anyLong(), any())).thenReturn(CoverageIndex.Lookup.UNKNOWN_CAR);
 
         Assertions.assertThrows(CarNotFoundException.class, () -> carService.isInsuranceValid(1L, LocalDate.parse("2024-03-03")));
     }
@@ -88,20 +138,119 @@ class CarServiceTest {
         Assertions.assertThrows(IllegalArgumentException.class, () -> carService.isInsuranceValid(1L, LocalDate.parse("2500-03-03")));
     }
 
+    @Test
+    void When_VinIsNotIndexed_ExpectFindCarByVin_ThrowCarNotFoundException() {
+        Mockito.when(vinIndex.find("VIN404")).thenReturn(null);
+
+        Assertions.assertThrows(CarNotFoundException.class, () -> carService.findCarByVin("VIN404"));
+        Mockito.verifyNoInteractions(referenceCache, carRepository);
+    }
+
+    @Test
+    void When_VinHasLowerCaseAndSpaces_ExpectAddNewCar_StoreItUpperCased() {
+        Mockito.when(referenceCache.findOwner(1L)).thenReturn(Optional.of(new Owner("Ana Pop", "ana.pop@example.com")));
+        Mockito.when(carRepository.save(any(Car.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        CarDto saved = carService.addNewCar(new CarDto(null, " wvwzzz1kz ", "VW", "Golf", 2021, 1L, null, null));
+
+        Assertions.assertEquals("WVWZZZ1KZ", saved.vin());
+        Mockito.verify(carRepository).save(Mockito.argThat(car -> car.getVin().equals("WVWZZZ1KZ")));
+    }
+
     @Test
     void When_DateIsNull_ExpectIsInsuranceValid_ThrowIllegalArgumentException() {
         Assertions.assertThrows(IllegalArgumentException.class, () -> carService.isInsuranceValid(1L, null));
     }
 
+    @Test
+    void When_CarHasNoPolicies_ExpectGetCoverage_WholeRangeUninsured() {
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = LocalDate.of(2025, 1, 31);
+        Mockito.when(coverageBitmapIndex.report(1L, from, to)).thenReturn(Optional.empty());
+        Mockito.when(referenceCache.carExists(1L)).thenReturn(true);
+
+        CoverageBitmapIndex.Report report = carService.getCoverage(1L, from, to);
+
+        Assertions.assertEquals(31, report.uninsuredDays());
+        Assertions.assertEquals(List.of(new CoverageBitmapIndex.Gap(from, to)), report.gaps());
+    }
+
+    @Test
+    void When_CarUnknownOrRangeReversed_ExpectGetCoverage_Throw() {
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = LocalDate.of(2025, 1, 31);
+        Mockito.when(coverageBitmapIndex.report(99L, from, to)).thenReturn(Optional.empty());
+
+        Assertions.assertThrows(CarNotFoundException.class, () -> carService.getCoverage(99L, from, to));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> carService.getCoverage(1L, to, from));
+    }
+
+    @Test
+    void When_CarsHaveSeveralOrNoActivePolicies_ExpectOwnerPortfolio_OneEntryPerCarWithLatestPolicy() {
+        LocalDate date = LocalDate.of(2025, 6, 1);
+        Mockito.when(ownerRepository.findPortfolio(1L, date)).thenReturn(List.of(
+                new PortfolioRow(1L, "Ana Pop", 1L, "VIN12345", "Dacia", "Logan", 2018, 5L, "Groupama", LocalDate.of(2025, 5, 1), null),
+                new PortfolioRow(1L, "Ana Pop", 1L, "VIN12345", "Dacia", "Logan", 2018, 2L, "Allianz", LocalDate.of(2025, 1, 1), LocalDate.of(2026, 1, 1)),
+                new PortfolioRow(1L, "Ana Pop", 3L, "VIN33333", "VW", "Golf", 2021, null, null, null, null)));
+
+        OwnerPortfolioDto portfolio = carService.getOwnerPortfolio(1L, date);
+
+        Assertions.assertEquals("Ana Pop", portfolio.ownerName());
+        Assertions.assertEquals(List.of(1L, 3L), portfolio.cars().stream().map(OwnerPortfolioDto.PortfolioCar::carId).toList());
+        Assertions.assertEquals(5L, portfolio.cars().get(0).activePolicy().policyId());
+        Assertions.assertNull(portfolio.cars().get(1).activePolicy());
+    }
+
+    @Test
+    void When_OwnerHasNoCars_ExpectOwnerPortfolio_EmptyList() {
+        LocalDate date = LocalDate.of(2025, 6, 1);
+        Mockito.when(ownerRepository.findPortfolio(1L, date)).thenReturn(List.of(
+                new PortfolioRow(1L, "Ana Pop", null, null, null, null, null, null, null, null, null)));
+
+        Assertions.assertTrue(carService.getOwnerPortfolio(1L, date).cars().isEmpty());
+    }
+
+    @Test
+    void When_OwnerDoesNotExist_ExpectOwnerPortfolio_ThrowOwnerNotFoundException() {
+        Mockito.when(ownerRepository.findPortfolio(any(), any())).thenReturn(List.of());
+
+        Assertions.assertThrows(OwnerNotFoundException.class, () -> carService.getOwnerPortfolio(99L, LocalDate.of(2025, 6, 1)));
+    }
+
+    @Test
+    void When_ValidPolicyForExistingCar_ExpectInsertNewInsurancePolicy_WrittenUnderCarLock() {
+        Car car = new Car("4Y1SL65848Z411439", "Honda", "Civic", 2021, new Owner());
+        Mockito.when(referenceCache.findCar(1L)).thenReturn(Optional.of(car));
+        Mockito.when(policyWriter.insert(Mockito.eq(1L), any())).thenAnswer(invocation -> invocation.getArgument(1));
+        LocalDate today = LocalDate.now();
+
+        SavedPolicyDto saved = carService.insertNewInsurancePolicy(1L, new InsurancePolicyDto("Allianz", today, today.plusYears(1)));
+
+        Mockito.verify(policyWriter).insert(Mockito.eq(1L), Mockito.argThat(policy -> policy.getCar() == car));
+        Assertions.assertEquals(new SavedPolicyDto(null, 1L, "Allianz", today, today.plusYears(1)), saved);
+    }
+
+    @Test
+    void When_PolicyOverlapsExistingOne_ExpectInsertNewInsurancePolicy_ThrowPolicyOverlapException() {
+        Mockito.when(referenceCache.findCar(1L)).thenReturn(Optional.of(new Car("4Y1SL65848Z411439", "Honda", "Civic", 2021, new Owner())));
+        Mockito.when(policyWriter.insert(Mockito.eq(1L), any())).thenThrow(new PolicyOverlapException(1L, 5L));
+        LocalDate today = LocalDate.now();
+
+        Assertions.assertThrows(PolicyOverlapException.class, () -> carService
+                .insertNewInsurancePolicy(1L, new InsurancePolicyDto("Allianz", today, today.plusYears(1))));
+    }
 
     @Test
     void When_ValidClaimForExistingCar_ExpectCreateInsuranceClaim_PersistAndReturnClaim() {
-        Mockito.when(carRepository.findById(anyLong())).thenReturn(Optional.of(new Car("4Y1SL65848Z411439",
-                "Honda", "Civic", 2021, new Owner("John Doe", "john.doe@mail.example.com"))));
+        Owner owner = Mockito.mock(Owner.class);
+        Mockito.when(owner.getId()).thenReturn(7L);
+        Mockito.when(referenceCache.findCar(anyLong())).thenReturn(Optional.of(new Car("4Y1SL65848Z411439",
+                "Honda", "Civic", 2021, owner)));
         Mockito.when(claimRepository.save(any())).thenReturn(new InsuranceClaim());
         InsuranceClaimDto insuranceClaimDto = new InsuranceClaimDto(new Date(), "ACCIDENT", 20000);
 
         Assertions.assertNotNull(carService.createInsuranceClaim(1L, insuranceClaimDto));
+        Mockito.verify(claimTotalsService).add(any());
     }
 
     @Test
@@ -127,7 +276,7 @@ class CarServiceTest {
 
     @Test
     void When_CarExistsButHasNoClaimsOrPolicies_Expect_ReturnEmptyList() {
-        Mockito.when(carRepository.existsById(anyLong())).thenReturn(true);
+        Mockito.when(referenceCache.carExists(anyLong())).thenReturn(true);
 
         List<CarEventDto> events = carService.getCarEvents(1L);
         Assertions.assertEquals(0, events.size());
@@ -135,16 +284,49 @@ class CarServiceTest {
 
     @Test
     void When_CarHasPoliciesWithStartAndEndDates_Expect_ReturnBothPolicyEvents() {
-        Mockito.when(carRepository.existsById(anyLong())).thenReturn(true);
-        Mockito.when(policyRepository.findAllByCarIdOrderByStartDate(anyLong())).thenReturn(Collections
-                .singletonList(new InsurancePolicy(new Car("4Y1SL65848Z411439",
-                        "Honda", "Civic", 2021, new Owner("John Doe", "john.doe@mail.example.com")), "SRL INSURANCE",
-                        LocalDate.parse("2024-02-01"), LocalDate.parse("2025-02-02"))));
-
-        Mockito.when(claimRepository.findAllByCarIdOrderByDate(anyLong())).thenReturn(Collections.singletonList(new InsuranceClaim(new Car("4Y1SL65848Z411439",
-                "Honda", "Civic", 2021, new Owner("John Doe", "john.doe@mail.example.com")), new Date(), "INSURANCE", 15000)));
+        Mockito.when(carRepository.findHistory(anyLong(), any(), any(), any(), any(), any(), anyInt())).thenReturn(List.of(
+                new EventRow("POLICY_START", LocalDate.parse("2024-02-01"), "SRL INSURANCE", 1L),
+                new EventRow("CLAIM", LocalDate.parse("2024-06-01"), "INSURANCE", 7L),
+                new EventRow("POLICY_END", LocalDate.parse("2025-02-02"), "SRL INSURANCE", 1L)));
 
         List<CarEventDto> events = carService.getCarEvents(1L);
         Assertions.assertEquals(3, events.size());
+        Assertions.assertEquals(CarEventType.CLAIM, events.get(1).type());
+        Assertions.assertEquals("Insurance claim", events.get(1).title());
+        Mockito.verify(referenceCache, Mockito.never()).carExists(anyLong());
+    }
+
+    @Test
+    void When_HistoryHasMoreEventsThanLimit_ExpectGetCarEvents_ReturnPageWithCursor() {
+        Mockito.when(carRepository.findHistory(anyLong(), any(), any(), any(), any(), any(), Mockito.eq(3))).thenReturn(List.of(
+                new EventRow("POLICY_START", LocalDate.parse("2024-02-01"), "SRL INSURANCE", 1L),
+                new EventRow("CLAIM", LocalDate.parse("2024-06-01"), "INSURANCE", 7L),
+                new EventRow("POLICY_END", LocalDate.parse("2025-02-02"), "SRL INSURANCE", 1L)));
+
+        CarEventPage page = carService.getCarEvents(1L, null, null, null, 2);
+        Assertions.assertEquals(2, page.events().size());
+        Assertions.assertNotNull(page.nextCursor());
+
+        carService.getCarEvents(1L, null, null, page.nextCursor(), 2);
+        Mockito.verify(carRepository).findHistory(1L, LocalDate.of(1, 1, 1), LocalDate.of(9999, 12, 31),
+                LocalDate.parse("2024-06-01"), "CLAIM", 7L, 3);
+    }
+
+    @Test
+    void When_HistoryCursorIsMalformed_ExpectGetCarEvents_ThrowIllegalArgumentException() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> carService.getCarEvents(1L, null, null, "not-a-cursor", 10));
+    }
+
+    @Test
+    void When_HistoryFromIsAfterTo_ExpectGetCarEvents_ThrowIllegalArgumentException() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> carService
+                .getCarEvents(1L, LocalDate.parse("2025-01-01"), LocalDate.parse("2024-01-01"), null, 10));
+    }
+
+    private record EventRow(String type, LocalDate eventDate, String details, Long sourceId) implements CarEventRow {
+        public String getType() { return type; }
+        public LocalDate getEventDate() { return eventDate; }
+        public String getDetails() { return details; }
+        public Long getSourceId() { return sourceId; }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,95 @@
+package com.example.carins.service;
+
+import com.example.carins.model.Car;
+import com.example.carins.repo.CarRepository;
+import com.example.carins.repo.InsuranceClaimRepository;
+import com.example.carins.repo.projection.CarOwner;
+import com.example.carins.service.event.ClaimCreatedEvent;
+import com.example.carins.web.dto.ClaimIngestResult;
+import com.example.carins.web.dto.ClaimIngestSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+
+@ExtendWith(MockitoExtension.class)
+class ClaimIngestionServiceTest {
+
+    @Mock
+    CarRepository carRepository;
+    @Mock
+    InsuranceClaimRepository claimRepository;
+    @Mock
+    ClaimTotalsService claimTotalsService;
+    @Mock
+    EntityManager entityManager;
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    ClaimIngestionService ingestionService;
+
+    @BeforeEach
+    void setUp() {
+        ingestionService = new ClaimIngestionService(carRepository, claimRepository, claimTotalsService, entityManager,
+                eventPublisher, transactionManager, new ObjectMapper());
+    }
+
+    @Test
+    void When_LinesMixValidAndInvalidClaims_ExpectIngest_StoreValidAndRejectRestInline() {
+        Mockito.when(carRepository.findOwnerIds(anyCollection())).thenReturn(List.of(new CarOwner(1L, 7L)));
+        Mockito.when(carRepository.getReferenceById(anyLong())).thenReturn(new Car());
+
+        List<ClaimIngestResult> results = new ArrayList<>();
+        ClaimIngestSummary summary = ingestionService.ingest(List.of(
+                "{\"carId\":1,\"claimDate\":\"2025-01-01\",\"description\":\"dent\",\"amount\":100}",
+                "",
+                "{\"carId\":2,\"claimDate\":\"2025-01-01\",\"description\":\"dent\",\"amount\":100}",
+                "{\"carId\":1,\"claimDate\":null,\"amount\":100}",
+                "{not json",
+                "{\"claimDate\":\"2025-01-01\",\"amount\":100}").iterator(), results::add);
+
+        Assertions.assertEquals(5, summary.rows());
+        Assertions.assertEquals(1, summary.stored());
+        Assertions.assertEquals(4, summary.rejected());
+        Assertions.assertEquals(List.of(1L, 3L, 4L, 5L, 6L), results.stream().map(ClaimIngestResult::line).toList());
+        Assertions.assertNull(results.get(0).error());
+        Assertions.assertEquals("Car with id 2 does not exist.", results.get(1).error());
+        Assertions.assertEquals(ValidationMessages.CAR_ID_REQUIRED, results.get(4).error());
+        Mockito.verify(claimRepository).saveAll(Mockito.argThat(claims -> ((List<?>) claims).size() == 1));
+        Mockito.verify(eventPublisher).publishEvent(Mockito.any(ClaimCreatedEvent.class));
+    }
+
+    @Test
+    void When_LinesExceedChunkSize_ExpectIngest_ResolveCarsAndSaveOncePerChunk() {
+        Mockito.when(carRepository.findOwnerIds(anyCollection())).thenReturn(List.of(new CarOwner(1L, 7L)));
+        Mockito.when(carRepository.getReferenceById(anyLong())).thenReturn(new Car());
+
+        List<String> lines = IntStream.range(0, ClaimIngestionService.CHUNK_SIZE + 1)
+                .mapToObj(i -> "{\"carId\":1,\"claimDate\":\"2025-01-01\",\"amount\":" + (i + 1) + "}")
+                .toList();
+
+        ClaimIngestSummary summary = ingestionService.ingest(lines.iterator(), result -> { });
+
+        Assertions.assertEquals(lines.size(), summary.stored());
+        Mockito.verify(carRepository, Mockito.times(2)).findOwnerIds(anyCollection());
+        Mockito.verify(claimRepository, Mockito.times(2)).saveAll(anyList());
+        Mockito.verify(claimTotalsService, Mockito.times(2)).add(Mockito.any());
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.carins.service;
+
+import com.example.carins.exception.CarNotFoundException;
+import com.example.carins.exception.OwnerNotFoundException;
+import com.example.carins.repo.ClaimTotalsRepository;
+import com.example.carins.repo.projection.ClaimTotal;
+import com.example.carins.web.dto.CarDto;
+import com.example.carins.web.dto.InsuranceClaimDto;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.IllegalTransactionStateException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs against the application database: totals must equal a {@code group by} over the claims table after
+ * concurrent writers, and {@link ClaimTotalsRepository#rebuild()} must reproduce them.
+ */
+@SpringBootTest
+class ClaimTotalsServiceTest {
+
+    static final AtomicInteger cars = new AtomicInteger();
+
+    @Autowired
+    CarService carService;
+    @Autowired
+    ClaimTotalsService claimTotalsService;
+    @Autowired
+    ClaimTotalsRepository claimTotalsRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void When_ClaimsForSameCarArriveConcurrently_Expect_NoLostIncrements() throws Exception {
+        Long first = newCar();
+        Long second = newCar();
+        int threads = 8;
+        int claimsPerThread = 20;
+        List<Callable<Void>> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Long carId = t % 4 == 0 ? second : first;
+            writers.add(() -> {
+                for (int i = 0; i < claimsPerThread; i++) {
+                    carService.createInsuranceClaim(carId, claim("2025-03-15", 10.25));
+                }
+                return null;
+            });
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (Future<Void> writer : executor.invokeAll(writers)) {
+                writer.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Assertions.assertEquals(new ClaimTotal(120, new BigDecimal("1230.00")), claimTotalsService.getCarTotal(first));
+        Assertions.assertEquals(new ClaimTotal(40, new BigDecimal("410.00")), claimTotalsService.getCarTotal(second));
+        assertTotalsMatchClaims();
+    }
+
+    @Test
+    void When_TotalsRebuilt_Expect_SameRowsAsIncrementalUpdates() {
+        Long carId = newCar();
+        carService.createInsuranceClaim(carId, claim("2024-12-31", 99.999));
+        carService.createInsuranceClaim(carId, claim("2025-01-01", 0.004));
+        List<Map<String, Object>> incremental = snapshot();
+
+        claimTotalsRepository.rebuild();
+
+        Assertions.assertEquals(incremental, snapshot());
+        Assertions.assertEquals(new ClaimTotal(2, new BigDecimal("100.00")), claimTotalsService.getCarTotal(carId));
+    }
+
+    @Test
+    void When_MonthHasClaimsOfSeveralCars_Expect_SlotsSummed() {
+        ClaimTotal before = claimTotalsService.getMonthTotal("2023-07");
+        carService.createInsuranceClaim(newCar(), claim("2023-07-01", 5));
+        carService.createInsuranceClaim(newCar(), claim("2023-07-31", 7));
+
+        ClaimTotal after = claimTotalsService.getMonthTotal("2023-07");
+
+        Assertions.assertEquals(before.claimCount() + 2, after.claimCount());
+        Assertions.assertEquals(before.totalAmount().add(new BigDecimal("12.00")), after.totalAmount());
+    }
+
+    @Test
+    void When_MonthHasNoClaims_Expect_ZeroTotals() {
+        Assertions.assertEquals(ClaimTotal.NONE, claimTotalsService.getMonthTotal("1999-01"));
+    }
+
+    @Test
+    void When_MonthOrIdsInvalid_Expect_Rejected() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> claimTotalsService.getMonthTotal("2025-13"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> claimTotalsService.getMonthTotal("2025-01-01"));
+        Assertions.assertThrows(CarNotFoundException.class, () -> claimTotalsService.getCarTotal(-1L));
+        Assertions.assertThrows(OwnerNotFoundException.class, () -> claimTotalsService.getOwnerTotal(-1L));
+    }
+
+    @Test
+    void When_AddedOutsideTransaction_Expect_Rejected() {
+        Assertions.assertThrows(IllegalTransactionStateException.class, () -> claimTotalsService.add(
+                new ClaimTotalsRepository.Changes().add(1L, 1L, YearMonth.of(2025, 1), 1)));
+    }
+
+    private void assertTotalsMatchClaims() {
+        Assertions.assertEquals(
+                jdbcTemplate.queryForList("select car_id, count(*) as claim_count, sum(cast(amount as numeric(19, 2))) as total_amount " +
+                        "from insuranceclaim group by car_id order by car_id"),
+                jdbcTemplate.queryForList("select car_id, claim_count, total_amount from car_claim_total order by car_id"));
+        Assertions.assertEquals(
+                jdbcTemplate.queryForList("select c.owner_id, count(*) as claim_count, sum(cast(cl.amount as numeric(19, 2))) as total_amount " +
+                        "from insuranceclaim cl join car c on c.id = cl.car_id group by c.owner_id order by c.owner_id"),
+                jdbcTemplate.queryForList("select owner_id, claim_count, total_amount from owner_claim_total order by owner_id"));
+    }
+
+    private List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        rows.addAll(jdbcTemplate.queryForList("select * from car_claim_total order by car_id"));
+        rows.addAll(jdbcTemplate.queryForList("select * from owner_claim_total order by owner_id"));
+        rows.addAll(jdbcTemplate.queryForList("select * from month_claim_total order by claim_month, slot"));
+        return rows;
+    }
+
+    private Long newCar() {
+        String vin = "VINTOTAL" + cars.incrementAndGet();
+        return carService.addNewCar(new CarDto(null, vin, "Dacia", "Logan", 2020, 1L, null, null)).id();
+    }
+
+    private static InsuranceClaimDto claim(String date, double amount) {
+        Date claimDate = Date.from(LocalDate.parse(date).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        return new InsuranceClaimDto(claimDate, "Scratch", amount);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.carins.service;
+
+import com.example.carins.repo.InsurancePolicyRepository;
+import com.example.carins.repo.projection.IdRange;
+import com.example.carins.repo.projection.PolicySpan;
+import com.example.carins.web.dto.CoverageFinding;
+import com.example.carins.web.dto.CoverageReportSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+
+class CoverageGapServiceTest {
+
+    static final LocalDate AS_OF = LocalDate.parse("2025-06-01");
+
+    InsurancePolicyRepository policyRepository;
+    CoverageGapService coverageGapService;
+
+    @BeforeEach
+    void setUp() {
+        policyRepository = Mockito.mock(InsurancePolicyRepository.class);
+        coverageGapService = new CoverageGapService(policyRepository, Mockito.mock(PlatformTransactionManager.class),
+                new ObjectMapper(), new SimpleMeterRegistry(), 3, 2, 2, "target/reports");
+    }
+
+    @AfterEach
+    void tearDown() {
+        coverageGapService.shutdown();
+    }
+
+    @Test
+    void When_PoliciesLeaveGapsOrOverlap_ExpectSweep_ReportEachAgainstFurthestReachingPolicy() {
+        List<CoverageFinding> findings = new ArrayList<>();
+
+        CoverageGapService.sweep(List.of(
+                policy(1, 7, "2024-01-01", "2024-12-31"),
+                policy(2, 7, "2024-06-01", "2024-07-31"),
+                policy(3, 7, "2025-02-01", "2025-03-31"),
+                policy(4, 7, null, null),
+                policy(5, 7, "2025-03-01", "2025-04-30")), AS_OF.toEpochDay(), findings);
+
+        Assertions.assertEquals(List.of(
+                new CoverageFinding(7L, CoverageFinding.Type.OVERLAP, date("2024-06-01"), date("2024-07-31"), 1L, 2L),
+                new CoverageFinding(7L, CoverageFinding.Type.GAP, date("2025-01-01"), date("2025-01-31"), 1L, 3L),
+                new CoverageFinding(7L, CoverageFinding.Type.OVERLAP, date("2025-03-01"), date("2025-03-31"), 3L, 5L),
+                new CoverageFinding(7L, CoverageFinding.Type.LAPSED, date("2025-05-01"), AS_OF, 5L, null)), findings);
+    }
+
+    @Test
+    void When_OpenEndedPolicyCoversTheRest_ExpectSweep_OnlyOverlapWithoutEnd() {
+        List<CoverageFinding> findings = new ArrayList<>();
+
+        CoverageGapService.sweep(List.of(
+                policy(1, 7, "2024-01-01", null),
+                policy(2, 7, "2025-01-01", null)), AS_OF.toEpochDay(), findings);
+
+        Assertions.assertEquals(List.of(new CoverageFinding(7L, CoverageFinding.Type.OVERLAP, date("2025-01-01"), null, 1L, 2L)), findings);
+    }
+
+    @Test
+    void When_FleetSplitIntoRanges_ExpectRun_EveryCarSweptOnceWithFindingsTogether() {
+        // cars 1..20 each have a gap and a lapse; ranges of two cars are swept in parallel
+        Mockito.when(policyRepository.findCarIdRange()).thenReturn(new IdRange(1L, 20L));
+        Mockito.when(policyRepository.streamSpansOfCars(anyLong(), anyLong())).thenAnswer(invocation -> {
+            long from = invocation.getArgument(0);
+            long to = invocation.getArgument(1);
+            return LongStream.range(from, to).boxed().flatMap(carId -> List.of(
+                    policy(carId * 10, carId, "2024-01-01", "2024-06-30"),
+                    policy(carId * 10 + 1, carId, "2024-08-01", "2024-12-31")).stream());
+        });
+        List<CoverageFinding> findings = Collections.synchronizedList(new ArrayList<>());
+
+        CoverageReportSummary summary = coverageGapService.run(AS_OF, findings::add);
+
+        Assertions.assertEquals(20, summary.cars());
+        Assertions.assertEquals(40, summary.policies());
+        Assertions.assertEquals(20, summary.gaps());
+        Assertions.assertEquals(20, summary.lapsed());
+        Assertions.assertEquals(40, findings.size());
+        for (int i = 0; i < findings.size(); i += 2) {
+            Assertions.assertEquals(findings.get(i).carId(), findings.get(i + 1).carId());
+        }
+    }
+
+    @Test
+    void When_ReaderFails_ExpectRun_CancelSweepAndFreeWorkers() {
+        Mockito.when(policyRepository.findCarIdRange()).thenReturn(new IdRange(1L, 200L));
+        Mockito.when(policyRepository.streamSpansOfCars(anyLong(), anyLong())).thenAnswer(invocation -> LongStream
+                .range(invocation.getArgument(0), invocation.<Long>getArgument(1))
+                .mapToObj(carId -> policy(carId, carId, "2024-01-01", "2024-06-30")));
+
+        Assertions.assertThrows(IllegalStateException.class, () -> coverageGapService.run(AS_OF, finding -> {
+            throw new IllegalStateException("client went away");
+        }));
+        // workers blocked on the full queue give up, so the next run gets the whole pool
+        Assertions.assertEquals(200, coverageGapService.run(AS_OF, finding -> { }).cars());
+    }
+
+    private static PolicySpan policy(long id, long carId, String start, String end) {
+        return new PolicySpan(id, carId, start != null ? date(start) : null, end != null ? date(end) : null);
+    }
+
+    private static LocalDate date(String value) {
+        return LocalDate.parse(value);
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.carins.service;
+
+import com.example.carins.exception.ImportJobNotFoundException;
+import com.example.carins.service.diagnostics.SqlStatementCounter;
+import com.example.carins.service.index.CoverageIndex;
+import com.example.carins.service.index.VinIndex;
+import com.example.carins.web.dto.FleetImportStatus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.StringReader;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs imports of in-memory CSV against the application database, in chunks small enough to span several.
+ */
+@SpringBootTest
+class FleetImportServiceTest {
+
+    static final String HEADER = "vin,make,model,year,ownerId,provider,startDate,endDate\n";
+    static final LocalDate TODAY = LocalDate.now();
+
+    @Autowired
+    FleetImportService importService;
+    @Autowired
+    VinIndex vinIndex;
+    @Autowired
+    CoverageIndex coverageIndex;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void When_LineHasQuotedFields_ExpectSplitCsvLine_KeepCommasAndQuotesInsideThem() {
+        List<String> fields = FleetImportService.splitCsvLine("VIN1, \"Ford, Inc\",\"Focus \"\"ST\"\"\",2020,1,,2024-01-01,");
+
+        Assertions.assertEquals(List.of("VIN1", "Ford, Inc", "Focus \"ST\"", "2020", "1", "", "2024-01-01", ""), fields);
+    }
+
+    @Test
+    void When_RowOverlapsSavedOrEarlierPolicy_Expect_RowRejectedAndOthersImported() {
+        // imported periods must contain today, like the API's, so rows for one car always overlap each other
+        LocalDate today = LocalDate.now();
+        String csv = HEADER
+                + "VINOVERLAP1,Dacia,Logan,2020,1,Allianz," + today.minusYears(1) + "," + today.plusYears(1) + "\n"
+                + "VINOVERLAP1,Dacia,Logan,2020,1,Groupama," + today + "," + today.plusYears(2) + "\n"
+                + "VINOVERLAP2,Dacia,Logan,2020,1,Groupama," + today + "," + today.plusYears(2) + "\n"
+                + "VIN12345,Dacia,Logan,2018,1,Groupama,2025-12-01," + today.plusYears(1) + "\n";
+
+        FleetImportStatus status = importService.importNow("overlap.csv", new StringReader(csv), 10);
+
+        Long carId = jdbcTemplate.queryForObject("select id from car where vin = 'VINOVERLAP1'", Long.class);
+        Long savedPolicyId = jdbcTemplate.queryForObject("select id from insurancepolicy where car_id = ?", Long.class, carId);
+        Assertions.assertEquals("COMPLETED", status.state());
+        Assertions.assertEquals(2, status.policiesCreated());
+        Assertions.assertEquals(2, status.rowsRejected());
+        // policy 2 of car 1 runs from 2025-01-01 to 2026-01-01
+        Assertions.assertEquals(List.of(
+                "line 3: The policy overlaps policy " + savedPolicyId + " of car with id " + carId + ".",
+                "line 5: The policy overlaps policy 2 of car with id 1."), status.errors());
+        Assertions.assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from insurancepolicy where car_id = 1 and start_date = DATE '2025-12-01'", Integer.class));
+    }
+
+    @Test
+    void When_VinDiffersOnlyInCase_Expect_RowAddedToExistingCar() {
+        String csv = HEADER
+                + "vincase1,Dacia,Logan,2020,1\n"
+                + "VINCase1,Dacia,Logan,2020,1\n";
+
+        FleetImportStatus status = importService.importNow("case.csv", new StringReader(csv), 10);
+
+        Assertions.assertEquals(1, status.carsCreated());
+        Assertions.assertEquals(List.of("VINCASE1"), jdbcTemplate.queryForList(
+                "select vin from car where upper(vin) = 'VINCASE1'", String.class));
+    }
+
+    @Test
+    void When_RowsSpanSeveralChunks_Expect_BatchInsertsPerChunkAndLookupsCachedForTheJob() {
+        String csv = HEADER
+                + policyRow("VINCHUNK1") + policyRow("VINCHUNK2") + policyRow("VINCHUNK3")
+                + policyRow("VINCHUNK4") + policyRow("VINCHUNK5")
+                + "VINCHUNK1,Dacia,Logan,2020,1\n";
+
+        try (SqlStatementCounter.Recording recording = SqlStatementCounter.start()) {
+            FleetImportStatus status = importService.importNow("chunks.csv", new StringReader(csv), 3);
+
+            Assertions.assertEquals("COMPLETED", status.state());
+            Assertions.assertEquals(6, status.rowsRead());
+            Assertions.assertEquals(5, status.carsCreated());
+            Assertions.assertEquals(5, status.policiesCreated());
+            Assertions.assertEquals(0, status.rowsRejected());
+            // one JDBC batch per table and chunk
+            Assertions.assertEquals(2, executions(recording, "insert into car "), recording::describe);
+            Assertions.assertEquals(2, executions(recording, "insert into insurancepolicy "), recording::describe);
+            // unknown VINs are looked up once per chunk, the owner once for the whole job
+            Assertions.assertEquals(2, executions(recording, "where c1_0.vin in"), recording::describe);
+            Assertions.assertEquals(1, executions(recording, "from owner"), recording::describe);
+            // pooled sequences hand out 50 ids per fetch
+            Assertions.assertTrue(executions(recording, "next value for car_seq") <= 1, recording::describe);
+            Assertions.assertTrue(executions(recording, "next value for policy_seq") <= 1, recording::describe);
+        }
+        Assertions.assertEquals(5, jdbcTemplate.queryForObject("select count(*) from car where vin like 'VINCHUNK%'", Integer.class));
+    }
+
+    @Test
+    void When_RowsAreInvalid_Expect_EachRejectedWithItsLineAndOthersImported() {
+        String csv = HEADER
+                + "VINREJECT1,Dacia,Logan,2020,999\n"
+                + "VINREJECT2,Dacia,Logan,1980,1\n"
+                + "VINREJECT3,Dacia\n"
+                + "VINREJECT4,Dacia,Logan,2020,1,Allianz,not-a-date," + TODAY.plusYears(1) + "\n"
+                + "VINREJECT5,Dacia,Logan,2020,1\n";
+
+        FleetImportStatus status = importService.importNow("invalid.csv", new StringReader(csv), 10);
+
+        Assertions.assertEquals(1, status.carsCreated());
+        Assertions.assertEquals(4, status.rowsRejected());
+        List<String> errors = status.errors();
+        Assertions.assertEquals(4, errors.size());
+        Assertions.assertEquals("line 2: Owner with id 999 does not exist.", errors.get(0));
+        Assertions.assertTrue(errors.get(1).startsWith("line 3: ") && errors.get(1).contains("1991"), errors.get(1));
+        Assertions.assertEquals("line 4: Expected 5 or 8 columns but found 2.", errors.get(2));
+        Assertions.assertTrue(errors.get(3).startsWith("line 5: The line could not be parsed"), errors.get(3));
+    }
+
+    @Test
+    void When_ChunkFailsToCommit_Expect_ChunkRolledBackWithoutEventsAndItsVinsLookedUpAgain() {
+        String tooLong = "M".repeat(300);
+        String csv = HEADER
+                + "VINROLL1,Dacia,Logan,2020,1\n"
+                + "VINROLL2,Dacia," + tooLong + ",2020,1\n"
+                + policyRow("VINROLL1");
+
+        FleetImportStatus status = importService.importNow("rollback.csv", new StringReader(csv), 2);
+
+        Assertions.assertEquals("COMPLETED", status.state());
+        Assertions.assertEquals(1, status.carsCreated());
+        Assertions.assertEquals(1, status.policiesCreated());
+        Assertions.assertEquals(2, status.rowsRejected());
+        Assertions.assertTrue(status.errors().get(0).startsWith("lines 2-3 were not imported: "), status.errors().get(0));
+        // the second chunk must not reuse the rolled-back id of VINROLL1
+        Long carId = jdbcTemplate.queryForObject("select id from car where vin = 'VINROLL1'", Long.class);
+        Assertions.assertEquals(0, jdbcTemplate.queryForObject("select count(*) from car where vin = 'VINROLL2'", Integer.class));
+        // the indexes only hear of committed chunks
+        Assertions.assertEquals(carId, vinIndex.find("VINROLL1"));
+        Assertions.assertNull(vinIndex.find("VINROLL2"));
+        Assertions.assertEquals(CoverageIndex.Lookup.COVERED, coverageIndex.lookup(carId, TODAY));
+    }
+
+    @Test
+    void When_ChunkSpansSeveralBatches_Expect_FailedBatchRolledBackAloneAndCommittedCarsChecked() {
+        String csv = HEADER
+                + policyRow("VINBATCH1")
+                + "VINBATCH2,Dacia,Logan,2020,1\n"
+                + "VINBATCH3,Dacia," + "M".repeat(300) + ",2020,1\n"
+                + "VINBATCH4,Dacia,Logan,2020,1\n"
+                + policyRow("VINBATCH1")
+                + policyRow("VINBATCH2");
+
+        FleetImportStatus status = importService.importNow("batches.csv", new StringReader(csv), 10, 2);
+
+        Long carId = jdbcTemplate.queryForObject("select id from car where vin = 'VINBATCH1'", Long.class);
+        Long policyId = jdbcTemplate.queryForObject("select id from insurancepolicy where car_id = ?", Long.class, carId);
+        Assertions.assertEquals("COMPLETED", status.state());
+        Assertions.assertEquals(2, status.carsCreated());
+        Assertions.assertEquals(2, status.policiesCreated());
+        Assertions.assertEquals(3, status.rowsRejected());
+        Assertions.assertTrue(status.errors().get(0).startsWith("lines 4-5 were not imported: "), status.errors().get(0));
+        // the first batch committed before the third one loaded the car's policies
+        Assertions.assertEquals("line 6: The policy overlaps policy " + policyId + " of car with id " + carId + ".",
+                status.errors().get(1));
+        Assertions.assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from car where vin in ('VINBATCH3', 'VINBATCH4')", Integer.class));
+    }
+
+    @Test
+    void When_JobFinishedBeforeRetention_Expect_StatusNoLongerReported() {
+        FleetImportStatus status = importService.importNow("retention.csv", new StringReader(HEADER), 10);
+        Assertions.assertEquals(status.jobId(), importService.status(status.jobId()).jobId());
+
+        importService.pruneFinishedJobs(System.nanoTime() + Duration.ofDays(2).toNanos());
+
+        Assertions.assertThrows(ImportJobNotFoundException.class, () -> importService.status(status.jobId()));
+    }
+
+    private static String policyRow(String vin) {
+        return vin + ",Dacia,Logan,2020,1,Allianz," + TODAY.minusMonths(1) + "," + TODAY.plusYears(1) + "\n";
+    }
+
+    private static long executions(SqlStatementCounter.Recording recording, String fragment) {
+        return recording.statements().entrySet().stream()
+                .filter(entry -> entry.getKey().contains(fragment))
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+    }
+}
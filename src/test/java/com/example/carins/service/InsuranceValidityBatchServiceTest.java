@@ -0,0 +1,70 @@
+package com.example.carins.service;
+
+import com.example.carins.repo.CarRepository;
+import com.example.carins.repo.projection.PolicyInterval;
+import com.example.carins.web.dto.InsuranceValidityQuery;
+import com.example.carins.web.dto.InsuranceValidityResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+
+@ExtendWith(MockitoExtension.class)
+class InsuranceValidityBatchServiceTest {
+
+    @Mock
+    CarRepository carRepository;
+    @InjectMocks
+    InsuranceValidityBatchService batchService;
+
+    @Test
+    void When_BatchMixesValidAndInvalidPairs_ExpectEvaluate_ReportErrorsInlineAndKeepInputOrder() {
+        Mockito.when(carRepository.findPolicyIntervalsByCarIds(anyCollection())).thenReturn(List.of(
+                new PolicyInterval(1L, LocalDate.parse("2024-01-01"), LocalDate.parse("2025-01-01"))));
+
+        List<InsuranceValidityResult> results = new ArrayList<>();
+        batchService.evaluate(List.of(
+                new InsuranceValidityQuery(1L, "2024-06-01"),
+                new InsuranceValidityQuery(2L, "2024-06-01"),
+                new InsuranceValidityQuery(99L, "2024-06-01"),
+                new InsuranceValidityQuery(1L, "2024-13-01"),
+                new InsuranceValidityQuery(1L, "1899-01-01"),
+                new InsuranceValidityQuery(null, "2024-06-01"),
+                new InsuranceValidityQuery(1L, "2025-06-01")).iterator(), results::add);
+
+        Assertions.assertEquals(7, results.size());
+        Assertions.assertEquals(List.of(0L, 1L, 2L, 3L, 4L, 5L, 6L), results.stream().map(InsuranceValidityResult::index).toList());
+        Assertions.assertTrue(results.get(0).valid());
+        // car 2 has no policies, which the single check answers with 404
+        Assertions.assertEquals("Car with id 2 does not exist.", results.get(1).error());
+        Assertions.assertEquals("Car with id 99 does not exist.", results.get(2).error());
+        Assertions.assertEquals(ValidationMessages.INVALID_DATE_FORMAT, results.get(3).error());
+        Assertions.assertEquals(ValidationMessages.DATE_TOO_EARLY, results.get(4).error());
+        Assertions.assertEquals(ValidationMessages.CAR_ID_REQUIRED, results.get(5).error());
+        Assertions.assertFalse(results.get(6).valid());
+        Mockito.verify(carRepository, Mockito.times(1)).findPolicyIntervalsByCarIds(anyCollection());
+    }
+
+    @Test
+    void When_BatchExceedsChunkSize_ExpectEvaluate_QueryOncePerChunk() {
+        List<InsuranceValidityQuery> queries = IntStream.range(0, InsuranceValidityBatchService.CHUNK_SIZE * 2 + 1)
+                .mapToObj(i -> new InsuranceValidityQuery((long) i % 10, "2024-06-01"))
+                .toList();
+
+        List<InsuranceValidityResult> results = new ArrayList<>();
+        batchService.evaluate(queries.iterator(), results::add);
+
+        Assertions.assertEquals(queries.size(), results.size());
+        Mockito.verify(carRepository, Mockito.times(3)).findPolicyIntervalsByCarIds(anyCollection());
+    }
+}
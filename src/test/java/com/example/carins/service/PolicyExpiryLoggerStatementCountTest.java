@@ -0,0 +1,102 @@
+package com.example.carins.service;
+
+import com.example.carins.model.Car;
+import com.example.carins.model.InsurancePolicy;
+import com.example.carins.model.JobCheckpoint;
+import com.example.carins.repo.InsurancePolicyRepository;
+import com.example.carins.repo.JobCheckpointRepository;
+import com.example.carins.service.cache.ReferenceCache;
+import com.example.carins.service.diagnostics.SqlBudget;
+import com.example.carins.service.event.PolicyExpiredEvent;
+import com.example.carins.service.expiry.PolicyExpiryWheel;
+import com.example.carins.web.dto.CarDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.example.carins.service.diagnostics.SqlStatements.assertStatementCount;
+
+/**
+ * Exact SQL statement counts of the policy expiry job against the application database, with chunks of two.
+ */
+@SpringBootTest
+class PolicyExpiryLoggerStatementCountTest {
+
+    @Autowired
+    InsurancePolicyRepository policyRepository;
+    @Autowired
+    JobCheckpointRepository checkpointRepository;
+    @Autowired
+    PolicyExpiryWheel expiryWheel;
+    @Autowired
+    CarService carService;
+    @Autowired
+    PolicyWriter policyWriter;
+    @Autowired
+    ReferenceCache referenceCache;
+
+    final List<Object> published = new ArrayList<>();
+    PolicyExpiryLogger expiryLogger;
+    JobCheckpoint storedMark;
+
+    @BeforeEach
+    void setUp() {
+        expiryLogger = new PolicyExpiryLogger(policyRepository, checkpointRepository, expiryWheel, published::add,
+                new SimpleMeterRegistry(), 2, 2, false);
+        storedMark = checkpointRepository.findById(PolicyExpiryLogger.CHECKPOINT).orElse(null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        expiryLogger.shutdown();
+        if (storedMark != null) {
+            checkpointRepository.save(storedMark);
+        }
+    }
+
+    @Test
+    void When_CatchingUpBeforeTheWheel_Expect_OneReadPerChunkAndOneCheckpointSavePerDay() throws Exception {
+        // long before the wheel was loaded, and before any other test's policies
+        LocalDate ended = LocalDate.of(2001, 1, 3);
+        Set<Long> policyIds = Set.of(expiredPolicy("VINEXPIRY1", ended), expiredPolicy("VINEXPIRY2", ended),
+                expiredPolicy("VINEXPIRY3", ended));
+        checkpointRepository.save(new JobCheckpoint(PolicyExpiryLogger.CHECKPOINT, ended.minusDays(2)));
+
+        // checkpoint read; 2001-01-02 and 2001-01-04 one empty read each, 2001-01-03 a full and a partial chunk;
+        // a select and an update per saved day
+        assertStatementCount(11, () -> Assertions.assertEquals(3, expiryLogger.processThrough(ended.plusDays(2))));
+
+        Assertions.assertEquals(policyIds, published.stream()
+                .map(event -> ((PolicyExpiredEvent) event).policyId())
+                .collect(Collectors.toSet()));
+    }
+
+    @Test
+    void When_WheelHeldTheEndDate_Expect_NightlyRunWithinItsBudget() throws Exception {
+        LocalDate wheelStart = expiryWheel.firstEndDate();
+        checkpointRepository.save(new JobCheckpoint(PolicyExpiryLogger.CHECKPOINT, wheelStart.minusDays(1)));
+        int budget = PolicyExpiryLogger.class.getMethod("logRecentlyExpiredPolicies").getAnnotation(SqlBudget.class).value();
+
+        assertStatementCount(budget, () -> Assertions.assertEquals(0, expiryLogger.processThrough(wheelStart.plusDays(1))));
+
+        Assertions.assertTrue(published.isEmpty());
+        Assertions.assertEquals(wheelStart, checkpointRepository.findById(PolicyExpiryLogger.CHECKPOINT).orElseThrow().getProcessedThrough());
+    }
+
+    private Long expiredPolicy(String vin, LocalDate endDate) {
+        Long carId = carService.addNewCar(new CarDto(null, vin, "Dacia", "Logan", 2000, 1L, null, null)).id();
+        // the API only accepts periods containing today, so past periods are written directly
+        Car car = referenceCache.findCar(carId).orElseThrow();
+        return policyWriter.insert(carId, new InsurancePolicy(car, "Allianz", endDate.minusYears(1), endDate)).getId();
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.carins.service;
+
+import com.example.carins.model.JobCheckpoint;
+import com.example.carins.repo.InsurancePolicyRepository;
+import com.example.carins.repo.JobCheckpointRepository;
+import com.example.carins.repo.projection.ExpiredPolicy;
+import com.example.carins.service.event.PolicyExpiredEvent;
+import com.example.carins.service.expiry.PolicyExpiryWheel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+
+@ExtendWith(MockitoExtension.class)
+class PolicyExpiryLoggerTest {
+
+    private static final LocalDate TODAY = LocalDate.parse("2025-03-10");
+
+    @Mock
+    InsurancePolicyRepository insuranceRepository;
+    @Mock
+    JobCheckpointRepository checkpointRepository;
+    @Mock
+    PolicyExpiryWheel expiryWheel;
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    PolicyExpiryLogger expiryLogger;
+
+    @BeforeEach
+    void setUp() {
+        expiryLogger = new PolicyExpiryLogger(insuranceRepository, checkpointRepository, expiryWheel, eventPublisher,
+                meterRegistry, 2, 2, false);
+        Mockito.lenient().when(checkpointRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        // the wheel was loaded today, so every earlier end date is left to the job
+        Mockito.lenient().when(expiryWheel.firstEndDate()).thenReturn(TODAY);
+    }
+
+    @AfterEach
+    void tearDown() {
+        expiryLogger.shutdown();
+    }
+
+    @Test
+    void When_RunsWereMissed_ExpectProcessThrough_PublishEveryLapsedDateInChunksAndAdvanceMark() {
+        LocalDate missed = TODAY.minusDays(2);
+        Mockito.when(checkpointRepository.findById(PolicyExpiryLogger.CHECKPOINT))
+                .thenReturn(Optional.of(new JobCheckpoint(PolicyExpiryLogger.CHECKPOINT, TODAY.minusDays(4))));
+        Mockito.when(insuranceRepository.findExpiredPolicies(any(), anyLong(), any())).thenReturn(List.of());
+        Mockito.when(insuranceRepository.findExpiredPolicies(eq(missed), eq(0L), any())).thenReturn(List.of(
+                new ExpiredPolicy(1L, 1L, missed), new ExpiredPolicy(2L, 1L, missed)));
+        Mockito.when(insuranceRepository.findExpiredPolicies(eq(missed), eq(2L), any())).thenReturn(List.of(
+                new ExpiredPolicy(5L, 2L, missed)));
+
+        long processed = expiryLogger.processThrough(TODAY);
+
+        Assertions.assertEquals(3, processed);
+        Mockito.verify(insuranceRepository).findExpiredPolicies(TODAY.minusDays(3), 0L, Limit.of(2));
+        Mockito.verify(insuranceRepository).findExpiredPolicies(TODAY.minusDays(1), 0L, Limit.of(2));
+        Mockito.verify(eventPublisher).publishEvent(new PolicyExpiredEvent(1L, 1L, missed));
+        Mockito.verify(eventPublisher).publishEvent(new PolicyExpiredEvent(2L, 1L, missed));
+        Mockito.verify(eventPublisher).publishEvent(new PolicyExpiredEvent(5L, 2L, missed));
+        ArgumentCaptor<JobCheckpoint> saved = ArgumentCaptor.forClass(JobCheckpoint.class);
+        Mockito.verify(checkpointRepository, Mockito.times(3)).save(saved.capture());
+        Assertions.assertEquals(TODAY.minusDays(1), saved.getValue().getProcessedThrough());
+        Assertions.assertEquals(3, meterRegistry.get("carins.policy.expiry.rows").counter().count());
+        Assertions.assertEquals(0, meterRegistry.get("carins.policy.expiry.lag.days").gauge().value());
+        Assertions.assertEquals(1, meterRegistry.get("carins.policy.expiry.runs").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void When_PolicyEndsToday_ExpectProcessThrough_LeaveItForTomorrow() {
+        Mockito.when(checkpointRepository.findById(PolicyExpiryLogger.CHECKPOINT))
+                .thenReturn(Optional.of(new JobCheckpoint(PolicyExpiryLogger.CHECKPOINT, TODAY.minusDays(1))));
+
+        Assertions.assertEquals(0, expiryLogger.processThrough(TODAY));
+        Mockito.verifyNoInteractions(insuranceRepository, eventPublisher);
+        Mockito.verify(checkpointRepository, Mockito.never()).save(any());
+    }
+
+    @Test
+    void When_WheelHeldTheEndDates_ExpectProcessThrough_OnlyMoveTheMark() {
+        Mockito.when(expiryWheel.firstEndDate()).thenReturn(TODAY.minusDays(1));
+        Mockito.when(checkpointRepository.findById(PolicyExpiryLogger.CHECKPOINT))
+                .thenReturn(Optional.of(new JobCheckpoint(PolicyExpiryLogger.CHECKPOINT, TODAY.minusDays(3))));
+        Mockito.when(insuranceRepository.findExpiredPolicies(eq(TODAY.minusDays(2)), eq(0L), any())).thenReturn(List.of(
+                new ExpiredPolicy(1L, 1L, TODAY.minusDays(2))));
+
+        Assertions.assertEquals(1, expiryLogger.processThrough(TODAY));
+        Mockito.verify(insuranceRepository, Mockito.times(1)).findExpiredPolicies(any(), anyLong(), any());
+        Mockito.verify(eventPublisher, Mockito.times(1)).publishEvent(any(Object.class));
+        ArgumentCaptor<JobCheckpoint> saved = ArgumentCaptor.forClass(JobCheckpoint.class);
+        Mockito.verify(checkpointRepository, Mockito.times(2)).save(saved.capture());
+        Assertions.assertEquals(TODAY.minusDays(1), saved.getValue().getProcessedThrough());
+    }
+
+    @Test
+    void When_ReadFails_ExpectProcessThrough_RecordFailedRunAndKeepMark() {
+        Mockito.when(checkpointRepository.findById(PolicyExpiryLogger.CHECKPOINT)).thenReturn(Optional.empty());
+        Mockito.when(insuranceRepository.findExpiredPolicies(any(), anyLong(), any())).thenThrow(new IllegalStateException("database down"));
+
+        Assertions.assertThrows(IllegalStateException.class, () -> expiryLogger.processThrough(TODAY));
+        Mockito.verify(checkpointRepository, Mockito.never()).save(any());
+        Assertions.assertEquals(1, meterRegistry.get("carins.policy.expiry.runs").tag("outcome", "failure").timer().count());
+        Assertions.assertEquals(0, meterRegistry.get("carins.policy.expiry.runs").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void When_NoMarkIsStored_ExpectProcessThrough_ProcessOnlyYesterday() {
+        LocalDate yesterday = TODAY.minusDays(1);
+        Mockito.when(checkpointRepository.findById(PolicyExpiryLogger.CHECKPOINT)).thenReturn(Optional.empty());
+        Mockito.when(insuranceRepository.findExpiredPolicies(eq(yesterday), eq(0L), any())).thenReturn(List.of(
+                new ExpiredPolicy(1L, 1L, yesterday)));
+
+        Assertions.assertEquals(1, expiryLogger.processThrough(TODAY));
+        Mockito.verify(insuranceRepository, Mockito.times(1)).findExpiredPolicies(any(), anyLong(), any());
+        Mockito.verify(checkpointRepository, Mockito.times(1)).save(any());
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.carins.service;
+
+import com.example.carins.exception.PolicyOverlapException;
+import com.example.carins.model.Car;
+import com.example.carins.model.InsurancePolicy;
+import com.example.carins.service.cache.ReferenceCache;
+import com.example.carins.service.index.CoverageIndex;
+import com.example.carins.web.dto.CarDto;
+import com.example.carins.web.dto.InsurancePolicyDto;
+import com.example.carins.web.dto.SavedPolicyDto;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs against the application database: however requests for one car interleave, its policies must never share
+ * a day.
+ */
+@SpringBootTest
+class PolicyWriterTest {
+
+    static final AtomicInteger cars = new AtomicInteger();
+    static final LocalDate TODAY = LocalDate.now();
+
+    @Autowired
+    CarService carService;
+    @Autowired
+    PolicyWriter policyWriter;
+    @Autowired
+    ReferenceCache referenceCache;
+    @Autowired
+    CoverageIndex coverageIndex;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void When_OverlappingPoliciesInsertedConcurrently_Expect_ExactlyOneSaved() throws Exception {
+        Long carId = newCar().id();
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Callable<SavedPolicyDto>> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            // every period contains today, so any two of them overlap
+            InsurancePolicyDto policy = policy(TODAY.minusDays(t), TODAY.plusDays(1 + t));
+            writers.add(() -> {
+                start.await();
+                return carService.insertNewInsurancePolicy(carId, policy);
+            });
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        int saved = 0;
+        int rejected = 0;
+        try {
+            List<Future<SavedPolicyDto>> results = new ArrayList<>();
+            for (Callable<SavedPolicyDto> writer : writers) {
+                results.add(executor.submit(writer));
+            }
+            start.countDown();
+            for (Future<SavedPolicyDto> result : results) {
+                try {
+                    result.get();
+                    saved++;
+                } catch (ExecutionException e) {
+                    Assertions.assertInstanceOf(PolicyOverlapException.class, e.getCause());
+                    rejected++;
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Assertions.assertEquals(1, saved);
+        Assertions.assertEquals(threads - 1, rejected);
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject("select count(*) from insurancepolicy where car_id = ?", Integer.class, carId));
+    }
+
+    @Test
+    void When_PeriodsOnlyTouch_Expect_BothSavedAndSharedDayRejected() {
+        // the API only accepts periods containing today, so past periods are written directly
+        Car car = referenceCache.findCar(newCar().id()).orElseThrow();
+        InsurancePolicy earlier = policyWriter.insert(car.getId(), new InsurancePolicy(car, "Allianz", date("2020-01-01"), date("2020-12-31")));
+        policyWriter.insert(car.getId(), new InsurancePolicy(car, "Allianz", date("2021-01-01"), date("2021-12-31")));
+
+        PolicyOverlapException overlap = Assertions.assertThrows(PolicyOverlapException.class, () -> policyWriter
+                .insert(car.getId(), new InsurancePolicy(car, "Groupama", date("2019-06-01"), date("2020-01-01"))));
+        Assertions.assertEquals(earlier.getId(), overlap.getConflictingPolicyId());
+        Assertions.assertEquals(CoverageIndex.Lookup.COVERED, coverageIndex.lookup(car.getId(), date("2021-06-01")));
+    }
+
+    @Test
+    void When_OtherCarsAreInsuredForSamePeriod_Expect_NoConflict() {
+        Long first = newCar().id();
+        Long second = newCar().id();
+
+        carService.insertNewInsurancePolicy(first, policy(TODAY, TODAY.plusYears(1)));
+        carService.insertNewInsurancePolicy(second, policy(TODAY, TODAY.plusYears(1)));
+
+        Assertions.assertThrows(PolicyOverlapException.class,
+                () -> carService.insertNewInsurancePolicy(second, policy(TODAY.minusDays(3), TODAY.plusDays(3))));
+    }
+
+    private CarDto newCar() {
+        String vin = "VINPOLICY" + cars.incrementAndGet();
+        return carService.addNewCar(new CarDto(null, vin, "Dacia", "Logan", 2020, 1L, null, null));
+    }
+
+    private static InsurancePolicyDto policy(LocalDate start, LocalDate end) {
+        return new InsurancePolicyDto("Allianz", start, end);
+    }
+
+    private static LocalDate date(String value) {
+        return LocalDate.parse(value);
+    }
+}
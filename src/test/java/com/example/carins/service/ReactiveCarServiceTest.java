@@ -0,0 +1,68 @@
+package com.example.carins.service;
+
+import com.example.carins.exception.CarNotFoundException;
+import com.example.carins.web.dto.CarEventDto;
+import com.example.carins.web.dto.CarEventPage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@SpringBootTest
+class ReactiveCarServiceTest {
+
+    @Autowired
+    ReactiveCarService reactiveCarService;
+    @Autowired
+    CarService carService;
+
+    @Test
+    void When_SameReadsRunOnBothStacks_ExpectReactiveCarService_ReturnSameResults() {
+        Assertions.assertEquals(carService.listCars(0L, CarService.MAX_PAGE_SIZE), reactiveCarService.streamCars().collectList().block());
+
+        for (String date : new String[]{"2024-06-01", "2025-06-01", "2026-06-01"}) {
+            LocalDate day = LocalDate.parse(date);
+            Assertions.assertEquals(carService.isInsuranceValid(1L, day), reactiveCarService.isInsuranceValid(1L, day).block());
+        }
+
+        CarEventPage blockingPage = carService.getCarEvents(1L, null, null, null, 2);
+        CarEventPage reactivePage = reactiveCarService.getCarEvents(1L, null, null, null, 2).block();
+        Assertions.assertEquals(blockingPage, reactivePage);
+        Assertions.assertNotNull(reactivePage.nextCursor());
+        Assertions.assertEquals(carService.getCarEvents(1L, null, null, blockingPage.nextCursor(), 2),
+                reactiveCarService.getCarEvents(1L, null, null, reactivePage.nextCursor(), 2).block());
+    }
+
+    @Test
+    void When_HistoryIsPagedOneEventAtATime_Expect_SameEventsAsWholeHistoryOnBothStacks() {
+        // policy 1 of car 1 ends on the day policy 2 starts, so pages must break ties between the sources
+        List<CarEventDto> history = carService.getCarEvents(1L);
+        List<CarEventDto> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            CarEventPage page = carService.getCarEvents(1L, null, null, cursor, 1);
+            Assertions.assertEquals(page, reactiveCarService.getCarEvents(1L, null, null, cursor, 1).block());
+            paged.addAll(page.events());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        Assertions.assertTrue(history.size() >= 4);
+        Assertions.assertEquals(history, paged);
+    }
+
+    @Test
+    void When_CarDoesNotExistOrInputIsInvalid_ExpectReactiveCarService_SignalSameErrors() {
+        Assertions.assertThrows(CarNotFoundException.class,
+                () -> reactiveCarService.isInsuranceValid(99L, LocalDate.of(2025, 6, 1)).block());
+        Assertions.assertThrows(CarNotFoundException.class,
+                () -> reactiveCarService.getCarEvents(99L, null, null, null, 10).block());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> reactiveCarService.isInsuranceValid(1L, LocalDate.of(1900, 1, 1)).block());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> reactiveCarService.getCarEvents(1L, null, null, null, 0).block());
+    }
+}
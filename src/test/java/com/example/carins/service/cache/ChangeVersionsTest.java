@@ -0,0 +1,46 @@
+package com.example.carins.service.cache;
+
+import com.example.carins.service.event.CarCreatedEvent;
+import com.example.carins.service.event.ClaimCreatedEvent;
+import com.example.carins.service.event.PolicyCreatedEvent;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+class ChangeVersionsTest {
+
+    @Test
+    void When_CarGetsClaimOrPolicy_Expect_OnlyItsHistoryTagChanges() {
+        ChangeVersions versions = new ChangeVersions(1024);
+        String fleet = versions.fleetTag();
+        String car = versions.carTag(5L);
+        String other = versions.carTag(6L);
+
+        versions.onClaimCreated(new ClaimCreatedEvent(1L, 5L));
+        String afterClaim = versions.carTag(5L);
+        versions.onPolicyCreated(new PolicyCreatedEvent(2L, 5L, LocalDate.now(), LocalDate.now().plusYears(1)));
+
+        Assertions.assertNotEquals(car, afterClaim);
+        Assertions.assertNotEquals(afterClaim, versions.carTag(5L));
+        Assertions.assertEquals(other, versions.carTag(6L));
+        Assertions.assertEquals(fleet, versions.fleetTag());
+        Assertions.assertTrue(car.startsWith("\"") && car.endsWith("\""), "strong tags are quoted");
+    }
+
+    @Test
+    void When_CarAdded_Expect_FleetTagChanges() {
+        ChangeVersions versions = new ChangeVersions(1024);
+        String fleet = versions.fleetTag();
+
+        versions.onCarCreated(new CarCreatedEvent(7L, "VIN7"));
+
+        Assertions.assertNotEquals(fleet, versions.fleetTag());
+    }
+
+    @Test
+    void When_ApplicationRestarts_Expect_OldTagsNeverMatch() {
+        Assertions.assertNotEquals(new ChangeVersions(1024).carTag(5L), new ChangeVersions(1024).carTag(5L));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ChangeVersions(1000));
+    }
+}
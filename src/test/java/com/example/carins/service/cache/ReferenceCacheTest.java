@@ -0,0 +1,52 @@
+package com.example.carins.service.cache;
+
+import com.example.carins.model.Car;
+import com.example.carins.repo.CarRepository;
+import com.example.carins.repo.OwnerRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest
+class ReferenceCacheTest {
+
+    @Autowired
+    ReferenceCache referenceCache;
+    @Autowired
+    CarRepository carRepository;
+    @Autowired
+    OwnerRepository ownerRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void When_CarIsReadTwice_ExpectFindCar_ServeCachedGraphWithOwner() {
+        Car first = referenceCache.findCar(1L).orElseThrow();
+        Car second = referenceCache.findCar(1L).orElseThrow();
+
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals("Ana Pop", second.getOwner().getName());
+        Assertions.assertTrue(referenceCache.findCar(-1L).isEmpty());
+    }
+
+    @Test
+    void When_CarOwnerChanges_ExpectFindCar_ServeNewOwnerAfterCommit() {
+        Assertions.assertEquals(2L, referenceCache.findCar(2L).orElseThrow().getOwner().getId());
+
+        changeOwner(2L, 1L);
+        try {
+            Assertions.assertEquals(1L, referenceCache.findCar(2L).orElseThrow().getOwner().getId());
+        } finally {
+            changeOwner(2L, 2L);
+        }
+        Assertions.assertEquals(2L, referenceCache.findCar(2L).orElseThrow().getOwner().getId());
+    }
+
+    private void changeOwner(Long carId, Long ownerId) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                carRepository.findById(carId).orElseThrow().setOwner(ownerRepository.getReferenceById(ownerId)));
+    }
+}
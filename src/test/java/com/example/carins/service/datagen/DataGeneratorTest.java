@@ -0,0 +1,106 @@
+package com.example.carins.service.datagen;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+class DataGeneratorTest {
+
+    private static final LocalDate REFERENCE_DATE = LocalDate.of(2026, 1, 1);
+
+    @Test
+    void When_SettingsAreTheSame_ExpectGenerate_WriteTheSameRows() {
+        DataGenerator.Settings settings = DataGenerator.Settings.forCars(7, 2_000, REFERENCE_DATE);
+        RecordingSink first = new RecordingSink();
+        RecordingSink second = new RecordingSink();
+        RecordingSink otherSeed = new RecordingSink();
+
+        DataGenerator.generate(settings, first);
+        DataGenerator.generate(settings, second);
+        DataGenerator.generate(DataGenerator.Settings.forCars(8, 2_000, REFERENCE_DATE), otherSeed);
+
+        Assertions.assertEquals(first.rows, second.rows);
+        Assertions.assertNotEquals(first.rows, otherSeed.rows);
+    }
+
+    @Test
+    void When_Generating_ExpectGenerate_WriteConsistentHistoriesCloseToTheRequestedCounts() {
+        DataGenerator.Settings settings = new DataGenerator.Settings(42, 5_000, 10_000, 25_000, 15_000, 0.1, REFERENCE_DATE);
+        RecordingSink sink = new RecordingSink();
+
+        DataGenerator.Counts counts = DataGenerator.generate(settings, sink);
+
+        Assertions.assertEquals(5_000, counts.owners());
+        Assertions.assertEquals(10_000, counts.cars());
+        Assertions.assertEquals(25_000, counts.policies(), 25_000 * 0.05);
+        Assertions.assertEquals(15_000, counts.claims(), 15_000 * 0.1);
+        Assertions.assertEquals(counts.cars(), sink.vins.size(), "VINs must be unique");
+
+        long multiPolicyCars = 0;
+        long longTermCars = 0;
+        for (List<LocalDate[]> history : sink.policiesByCar.values()) {
+            for (int i = 0; i < history.size(); i++) {
+                Assertions.assertFalse(history.get(i)[1].isBefore(history.get(i)[0]));
+                if (i > 0) {
+                    Assertions.assertTrue(history.get(i)[0].isAfter(history.get(i - 1)[1]), "policies of a car must not overlap");
+                }
+            }
+            multiPolicyCars += history.size() > 1 ? 1 : 0;
+            longTermCars += history.get(history.size() - 1)[1].isAfter(REFERENCE_DATE.plusYears(3)) ? 1 : 0;
+        }
+        Assertions.assertTrue(multiPolicyCars > counts.cars() / 2);
+        Assertions.assertTrue(longTermCars > counts.cars() / 20 && longTermCars < counts.cars() / 5);
+        // claims cluster on a minority of cars
+        Assertions.assertTrue(sink.claimedCars.size() < counts.cars() / 2);
+    }
+
+    private static final class RecordingSink implements RowSink {
+
+        final List<String> rows = new ArrayList<>();
+        final Set<String> vins = new HashSet<>();
+        final Map<Long, List<LocalDate[]>> policiesByCar = new HashMap<>();
+        final Set<Long> claimedCars = new HashSet<>();
+        final Set<Long> owners = new HashSet<>();
+        final Set<Long> cars = new HashSet<>();
+
+        @Override
+        public void owner(long id, String name, String email) {
+            rows.add(id + name + email);
+            owners.add(id);
+        }
+
+        @Override
+        public void car(long id, String vin, String make, String model, int year, long ownerId) {
+            Assertions.assertTrue(owners.contains(ownerId));
+            rows.add(id + vin + make + model + year + ownerId);
+            vins.add(vin);
+            cars.add(id);
+        }
+
+        @Override
+        public void policy(long id, long carId, String provider, LocalDate startDate, LocalDate endDate) {
+            Assertions.assertTrue(cars.contains(carId));
+            rows.add(id + "/" + carId + provider + startDate + endDate);
+            policiesByCar.computeIfAbsent(carId, key -> new ArrayList<>()).add(new LocalDate[]{startDate, endDate});
+        }
+
+        @Override
+        public void claim(long id, long carId, LocalDate claimDate, String description, double amount) {
+            Assertions.assertTrue(cars.contains(carId));
+            Assertions.assertTrue(amount > 0);
+            rows.add(id + "/" + carId + claimDate + description + amount);
+            claimedCars.add(carId);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
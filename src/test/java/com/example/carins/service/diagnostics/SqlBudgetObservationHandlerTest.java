@@ -0,0 +1,89 @@
+package com.example.carins.service.diagnostics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.scheduling.support.ScheduledTaskObservationContext;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+class SqlBudgetObservationHandlerTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    SqlBudgetObservationHandler handler = new SqlBudgetObservationHandler(meterRegistry, 3);
+
+    @Test
+    void When_RequestStaysWithinAnnotatedBudget_Expect_CountRecordedAndNothingExceeded() throws Exception {
+        ServerRequestObservationContext context = request("oneQuery");
+
+        run(context, 1);
+
+        Assertions.assertEquals(1, meterRegistry.get("carins.sql.statements").tag("operation", "GET /api/things/{id}").summary().totalAmount());
+        Assertions.assertNull(meterRegistry.find("carins.sql.budget.exceeded").counter());
+    }
+
+    @Test
+    void When_RequestRunsOverAnnotatedBudget_Expect_ExceededCounted() throws Exception {
+        ServerRequestObservationContext context = request("oneQuery");
+
+        run(context, 2);
+
+        Assertions.assertEquals(1, meterRegistry.get("carins.sql.budget.exceeded").tag("operation", "GET /api/things/{id}").counter().count());
+    }
+
+    @Test
+    void When_JobIsNotAnnotated_Expect_DefaultBudget() throws Exception {
+        ScheduledTaskObservationContext context = new ScheduledTaskObservationContext(this, Handlers.class.getMethod("unannotated"));
+
+        run(context, 3);
+        Assertions.assertNull(meterRegistry.find("carins.sql.budget.exceeded").counter());
+        run(context, 4);
+
+        String operation = "SqlBudgetObservationHandlerTest.unannotated";
+        Assertions.assertEquals(2, meterRegistry.get("carins.sql.statements").tag("operation", operation).summary().count());
+        Assertions.assertEquals(1, meterRegistry.get("carins.sql.budget.exceeded").tag("operation", operation).counter().count());
+    }
+
+    @Test
+    void When_StatementRunsOutsideScope_Expect_NotCounted() throws Exception {
+        ServerRequestObservationContext context = request("oneQuery");
+        handler.onStart(context);
+        SqlStatementCounter.statementExecuted("select 1");
+        handler.onStop(context);
+
+        Assertions.assertEquals(0, meterRegistry.get("carins.sql.statements").summary().totalAmount());
+    }
+
+    private void run(Observation.Context context, int statements) {
+        handler.onStart(context);
+        handler.onScopeOpened(context);
+        for (int i = 0; i < statements; i++) {
+            SqlStatementCounter.statementExecuted("select " + i);
+        }
+        handler.onScopeClosed(context);
+        handler.onStop(context);
+    }
+
+    private static ServerRequestObservationContext request(String handlerMethod) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/things/1");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE,
+                new HandlerMethod(new Handlers(), Handlers.class.getMethod(handlerMethod)));
+        ServerRequestObservationContext context = new ServerRequestObservationContext(request, new MockHttpServletResponse());
+        context.setPathPattern("/api/things/{id}");
+        return context;
+    }
+
+    static class Handlers {
+
+        @SqlBudget(1)
+        public void oneQuery() {
+        }
+
+        public void unannotated() {
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.carins.service.diagnostics;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+class SqlStatementCounterTest {
+
+    @Test
+    void When_RecordingsAreNested_Expect_StatementCountedInEveryBoundRecording() {
+        try (SqlStatementCounter.Recording outer = SqlStatementCounter.start()) {
+            SqlStatementCounter.statementExecuted("select 1");
+            try (SqlStatementCounter.Recording inner = SqlStatementCounter.start()) {
+                SqlStatementCounter.statementExecuted("select 2");
+                SqlStatementCounter.statementExecuted("select 2");
+                Assertions.assertEquals(2, inner.count());
+                Assertions.assertEquals(Map.of("select 2", 2L), inner.statements());
+            }
+            SqlStatementCounter.statementExecuted("select 3");
+            Assertions.assertEquals(4, outer.count());
+            Assertions.assertTrue(outer.describe().startsWith("4 statements" + System.lineSeparator() + "  2x select 2"));
+        }
+    }
+
+    @Test
+    void When_RecordingIsClosedOrBoundElsewhere_Expect_StatementNotCounted() throws Exception {
+        SqlStatementCounter.Recording recording = SqlStatementCounter.start();
+        recording.close();
+        SqlStatementCounter.statementExecuted("select 1");
+        Assertions.assertEquals(0, recording.count());
+
+        SqlStatementCounter.Recording shared = new SqlStatementCounter.Recording();
+        Thread worker = Thread.ofPlatform().start(() -> {
+            try (SqlStatementCounter.Binding ignored = shared.bind()) {
+                SqlStatementCounter.statementExecuted("select 1");
+            }
+            SqlStatementCounter.statementExecuted("select 2");
+        });
+        worker.join();
+        SqlStatementCounter.statementExecuted("select 3");
+        Assertions.assertEquals(Map.of("select 1", 1L), shared.statements());
+    }
+}
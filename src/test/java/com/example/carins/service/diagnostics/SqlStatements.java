@@ -0,0 +1,36 @@
+package com.example.carins.service.diagnostics;
+
+import org.junit.jupiter.api.Assertions;
+
+import java.util.Map;
+
+/**
+ * Asserts how many SQL statements a piece of work runs, so that an added query or an N+1 regression fails the
+ * build. Id sequence fetches are left out of the count: the pooled generators fetch once per 50 inserts, so whether
+ * a given insert fetches depends on what ran before it.
+ */
+public final class SqlStatements {
+
+    private SqlStatements() {
+    }
+
+    public static void assertStatementCount(int expected, ThrowingRunnable work) throws Exception {
+        try (SqlStatementCounter.Recording recording = SqlStatementCounter.start()) {
+            work.run();
+            Assertions.assertEquals(expected, countWithoutSequences(recording), recording::describe);
+        }
+    }
+
+    static long countWithoutSequences(SqlStatementCounter.Recording recording) {
+        long sequenceFetches = recording.statements().entrySet().stream()
+                .filter(entry -> entry.getKey().contains("next value for"))
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+        return recording.count() - sequenceFetches;
+    }
+
+    @FunctionalInterface
+    public interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.carins.service.expiry;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class TimingWheelTest {
+
+    @Test
+    void When_DeadlinesSpanAllLevels_ExpectAdvanceTo_FireEachExactlyAtItsTick() {
+        long start = 1_000_003;
+        TimingWheel wheel = new TimingWheel(start, 60, 60, 24, 64);
+        Random random = new Random(42);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            long deadline = start + 1 + (long) (random.nextDouble() * (3 * 24 * 3600));
+            deadlines.add(deadline);
+            Assertions.assertTrue(wheel.add(deadline, i, deadline));
+        }
+        Assertions.assertEquals(2000, wheel.size());
+
+        List<Long> firedAtWrongTick = new ArrayList<>();
+        int[] fired = {0};
+        for (long tick = start + 1; tick <= start + 3 * 24 * 3600 + 1; tick += 7) {
+            long now = tick;
+            wheel.advanceTo(now, (deadline, policyId, carId) -> {
+                fired[0]++;
+                if (deadline > now || deadline <= now - 7 || carId != deadline) {
+                    firedAtWrongTick.add(policyId);
+                }
+            });
+        }
+
+        Assertions.assertEquals(2000, fired[0]);
+        Assertions.assertEquals(List.of(), firedAtWrongTick);
+        Assertions.assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void When_DeadlineIsNotAhead_ExpectAdd_RejectAndKeepWheelEmpty() {
+        TimingWheel wheel = new TimingWheel(100, 60, 60);
+
+        Assertions.assertFalse(wheel.add(100, 1, 1));
+        Assertions.assertFalse(wheel.add(99, 2, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> wheel.add(100 + 3600, 3, 1));
+        Assertions.assertEquals(0, wheel.size());
+    }
+}
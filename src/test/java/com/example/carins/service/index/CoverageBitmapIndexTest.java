@@ -0,0 +1,94 @@
+package com.example.carins.service.index;
+
+import com.example.carins.repo.InsurancePolicyRepository;
+import com.example.carins.repo.projection.PolicyInterval;
+import com.example.carins.service.event.PolicyCreatedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+class CoverageBitmapIndexTest {
+
+    InsurancePolicyRepository policyRepository;
+    SimpleMeterRegistry meterRegistry;
+    CoverageBitmapIndex bitmapIndex;
+
+    @BeforeEach
+    void setUp() {
+        policyRepository = Mockito.mock(InsurancePolicyRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        bitmapIndex = new CoverageBitmapIndex(policyRepository, Mockito.mock(PlatformTransactionManager.class), meterRegistry);
+    }
+
+    @Test
+    void When_Rebuilt_ExpectReport_CountDaysAndListGaps() {
+        Mockito.when(policyRepository.streamAllIntervals()).thenReturn(Stream.of(
+                new PolicyInterval(1L, LocalDate.parse("2024-01-01"), LocalDate.parse("2024-12-31")),
+                new PolicyInterval(1L, LocalDate.parse("2025-02-01"), LocalDate.parse("2025-12-31")),
+                new PolicyInterval(2L, null, null)));
+
+        bitmapIndex.rebuild();
+
+        CoverageBitmapIndex.Report report = bitmapIndex.report(1L, LocalDate.parse("2024-06-01"), LocalDate.parse("2026-01-10")).orElseThrow();
+        Assertions.assertFalse(report.continuous());
+        Assertions.assertEquals(List.of(
+                new CoverageBitmapIndex.Gap(LocalDate.parse("2025-01-01"), LocalDate.parse("2025-01-31")),
+                new CoverageBitmapIndex.Gap(LocalDate.parse("2026-01-01"), LocalDate.parse("2026-01-10"))), report.gaps());
+        Assertions.assertEquals(41, report.uninsuredDays());
+        Assertions.assertEquals(214 + 334, report.coveredDays());
+
+        Assertions.assertTrue(bitmapIndex.report(1L, LocalDate.parse("2024-01-01"), LocalDate.parse("2024-12-31")).orElseThrow().continuous());
+        Assertions.assertEquals(31, bitmapIndex.report(2L, LocalDate.parse("2025-01-01"), LocalDate.parse("2025-01-31")).orElseThrow().uninsuredDays());
+        Assertions.assertTrue(bitmapIndex.report(3L, LocalDate.parse("2025-01-01"), LocalDate.parse("2025-01-31")).isEmpty());
+        Assertions.assertTrue(meterRegistry.get("carins.coverage.bitmap.bytes").gauge().value() > 0);
+    }
+
+    @Test
+    void When_OpenEndedPolicyCreated_ExpectReport_CoverEveryLaterDay() {
+        bitmapIndex.onPolicyCreated(new PolicyCreatedEvent(10L, 5L, LocalDate.parse("2025-01-01"), LocalDate.parse("2025-06-30")));
+        bitmapIndex.onPolicyCreated(new PolicyCreatedEvent(11L, 5L, LocalDate.parse("2025-07-01"), null));
+
+        CoverageBitmapIndex.Report report = bitmapIndex.report(5L, LocalDate.parse("2024-12-31"), LocalDate.parse("2070-01-01")).orElseThrow();
+        Assertions.assertEquals(List.of(new CoverageBitmapIndex.Gap(LocalDate.parse("2024-12-31"), LocalDate.parse("2024-12-31"))), report.gaps());
+        Assertions.assertEquals(1, report.uninsuredDays());
+    }
+
+    @Test
+    void When_RandomIntervals_ExpectBitOperations_MatchDayByDayCheck() {
+        SplittableRandom random = new SplittableRandom(7);
+        long[] bitmap = {0, CoverageBitmapIndex.NEVER};
+        long[] intervals = new long[0];
+        for (int i = 0; i < 20; i++) {
+            long start = random.nextLong(-200, 2000);
+            long end = start + random.nextLong(0, 150);
+            bitmap = CoverageBitmapIndex.set(bitmap, start, end);
+            intervals = CoverageIndex.insert(intervals, start, end);
+        }
+        bitmap = CoverageBitmapIndex.openFrom(bitmap, 2100);
+        intervals = CoverageIndex.insert(intervals, 2100, Long.MAX_VALUE);
+
+        for (int i = 0; i < 200; i++) {
+            long from = random.nextLong(-300, 2300);
+            long to = from + random.nextLong(0, 400);
+            long covered = 0;
+            long firstGap = CoverageBitmapIndex.NEVER;
+            for (long day = from; day <= to; day++) {
+                if (CoverageIndex.covers(intervals, day)) {
+                    covered++;
+                } else if (firstGap == CoverageBitmapIndex.NEVER) {
+                    firstGap = day;
+                }
+            }
+            Assertions.assertEquals(covered, CoverageBitmapIndex.coveredDays(bitmap, from, to));
+            Assertions.assertEquals(firstGap, CoverageBitmapIndex.nextDay(bitmap, from, to, false));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.carins.service.index;
+
+import com.example.carins.repo.InsurancePolicyRepository;
+import com.example.carins.repo.projection.PolicyInterval;
+import com.example.carins.service.event.PolicyCreatedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+class CoverageIndexTest {
+
+    InsurancePolicyRepository policyRepository;
+    SimpleMeterRegistry meterRegistry;
+    CoverageIndex coverageIndex;
+
+    @BeforeEach
+    void setUp() {
+        policyRepository = Mockito.mock(InsurancePolicyRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        coverageIndex = new CoverageIndex(policyRepository, Mockito.mock(PlatformTransactionManager.class), meterRegistry);
+    }
+
+    @Test
+    void When_Rebuilt_ExpectLookup_AnswerFromRepositorySnapshot() {
+        Mockito.when(policyRepository.streamAllIntervals()).thenReturn(Stream.of(
+                new PolicyInterval(1L, LocalDate.parse("2024-01-01"), LocalDate.parse("2025-01-01")),
+                new PolicyInterval(1L, LocalDate.parse("2025-01-01"), LocalDate.parse("2026-01-01")),
+                new PolicyInterval(2L, LocalDate.parse("2025-03-01"), LocalDate.parse("2025-09-30"))));
+
+        coverageIndex.rebuild();
+
+        Assertions.assertEquals(CoverageIndex.Lookup.COVERED, coverageIndex.lookup(1L, LocalDate.parse("2024-06-01")));
+        Assertions.assertEquals(CoverageIndex.Lookup.COVERED, coverageIndex.lookup(1L, LocalDate.parse("2026-01-01")));
+        Assertions.assertEquals(CoverageIndex.Lookup.NOT_COVERED, coverageIndex.lookup(1L, LocalDate.parse("2026-01-02")));
+        Assertions.assertEquals(CoverageIndex.Lookup.NOT_COVERED, coverageIndex.lookup(2L, LocalDate.parse("2025-02-01")));
+        Assertions.assertEquals(CoverageIndex.Lookup.UNKNOWN_CAR, coverageIndex.lookup(3L, LocalDate.parse("2025-02-01")));
+        Assertions.assertEquals(1.0, meterRegistry.get("carins.coverage.index.rebuilds").timer().count());
+    }
+
+    @Test
+    void When_PolicyCreated_ExpectLookup_SeeNewInterval() {
+        coverageIndex.onPolicyCreated(new PolicyCreatedEvent(10L, 5L, LocalDate.parse("2025-01-01"), LocalDate.parse("2025-06-30")));
+        coverageIndex.onPolicyCreated(new PolicyCreatedEvent(11L, 5L, LocalDate.parse("2026-01-01"), null));
+
+        Assertions.assertEquals(CoverageIndex.Lookup.COVERED, coverageIndex.lookup(5L, LocalDate.parse("2025-06-30")));
+        Assertions.assertEquals(CoverageIndex.Lookup.NOT_COVERED, coverageIndex.lookup(5L, LocalDate.parse("2025-07-01")));
+        Assertions.assertEquals(CoverageIndex.Lookup.COVERED, coverageIndex.lookup(5L, LocalDate.parse("2070-01-01")));
+        Assertions.assertEquals(3.0, meterRegistry.get("carins.coverage.index.lookups").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void When_IntervalsOverlapOrTouch_ExpectInsert_MergeThem() {
+        long[] intervals = CoverageIndex.insert(null, 10, 20);
+        intervals = CoverageIndex.insert(intervals, 30, 40);
+        intervals = CoverageIndex.insert(intervals, 0, 5);
+        Assertions.assertArrayEquals(new long[]{0, 5, 10, 20, 30, 40}, intervals);
+
+        intervals = CoverageIndex.insert(intervals, 21, 29);
+        Assertions.assertArrayEquals(new long[]{0, 5, 10, 40}, intervals);
+
+        intervals = CoverageIndex.insert(intervals, 3, 12);
+        Assertions.assertArrayEquals(new long[]{0, 40}, intervals);
+    }
+}
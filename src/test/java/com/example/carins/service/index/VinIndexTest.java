@@ -0,0 +1,61 @@
+package com.example.carins.service.index;
+
+import com.example.carins.repo.CarRepository;
+import com.example.carins.repo.projection.CarVin;
+import com.example.carins.service.event.CarCreatedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+class VinIndexTest {
+
+    CarRepository carRepository;
+    VinIndex vinIndex;
+
+    @BeforeEach
+    void setUp() {
+        carRepository = Mockito.mock(CarRepository.class);
+        vinIndex = new VinIndex(carRepository, Mockito.mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void When_RebuiltAndCarsAdded_ExpectLookups_MergeSegmentAndDeltaInVinOrder() {
+        Mockito.when(carRepository.streamAllVins()).thenReturn(Stream.of(
+                new CarVin("WVWZZZ1KZ6W000003", 3L),
+                new CarVin("UU1LSDAC512345678", 1L),
+                new CarVin("wvwzzz1kz6w000001", 2L)));
+        vinIndex.rebuild();
+        vinIndex.onCarCreated(new CarCreatedEvent(4L, "WVWZZZ1KZ6W000002"));
+
+        Assertions.assertEquals(2L, vinIndex.find("WVWZZZ1KZ6W000001"));
+        Assertions.assertEquals(4L, vinIndex.find(" wvwzzz1kz6w000002 "));
+        Assertions.assertNull(vinIndex.find("WVWZZZ1KZ6W00000"));
+        Assertions.assertEquals(List.of(
+                new CarVin("WVWZZZ1KZ6W000001", 2L),
+                new CarVin("WVWZZZ1KZ6W000002", 4L),
+                new CarVin("WVWZZZ1KZ6W000003", 3L)), vinIndex.findByPrefix("wvw", 10));
+        Assertions.assertEquals(List.of(new CarVin("WVWZZZ1KZ6W000001", 2L)), vinIndex.findByPrefix("WVW", 1));
+        Assertions.assertEquals(List.of(), vinIndex.findByPrefix("X", 10));
+    }
+
+    @Test
+    void When_DeltaOutgrowsThreshold_ExpectAdd_FoldIntoPackedSegment() {
+        int cars = VinIndex.MIN_DELTA_TO_MERGE * 2 + 7;
+        for (int i = 0; i < cars; i++) {
+            vinIndex.add(new CarVin(String.format("1HGCM82633A%06d", i), (long) i));
+        }
+
+        Assertions.assertEquals(cars, vinIndex.size());
+        Assertions.assertEquals(4097L, vinIndex.find("1HGCM82633A004097"));
+        Assertions.assertEquals(10, vinIndex.findByPrefix("1HGCM82633A00409", 100).size());
+        // 17 key bytes, a 4-byte offset and an 8-byte id per car once packed
+        long packed = (cars - 7) * 29L + 4;
+        Assertions.assertTrue(vinIndex.footprintBytes() < packed + 7 * 200);
+    }
+}
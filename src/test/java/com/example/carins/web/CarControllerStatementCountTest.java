@@ -0,0 +1,138 @@
+package com.example.carins.web;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.carins.service.diagnostics.SqlStatements.assertStatementCount;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Exact SQL statement counts of the {@link CarController} endpoints, including serializing the response. Each
+ * endpoint is called once beforehand so that the reference cache is warm, as it is in a running application.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class CarControllerStatementCountTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    static final AtomicInteger warmUps = new AtomicInteger();
+
+    @BeforeEach
+    void warmUp() throws Exception {
+        mockMvc.perform(get("/api/cars/by-vin/VIN12345"));
+        mockMvc.perform(get("/api/cars/by-vin/VIN67890"));
+        mockMvc.perform(claim());
+        mockMvc.perform(car("VINWARM" + warmUps.incrementAndGet()));
+    }
+
+    @Test
+    void When_ReadingFromIndexes_Expect_NoStatements() throws Exception {
+        assertStatementCount(0, () -> mockMvc.perform(get("/api/cars/1/insurance-valid").param("date", "2025-06-01"))
+                .andExpect(status().isOk()));
+        assertStatementCount(0, () -> mockMvc.perform(get("/api/cars/by-vin/VIN12345")).andExpect(status().isOk()));
+        assertStatementCount(0, () -> mockMvc.perform(get("/api/cars/by-vin").param("prefix", "VIN")).andExpect(status().isOk()));
+        assertStatementCount(0, () -> mockMvc.perform(get("/api/cars/1/coverage").param("from", "2024-01-01").param("to", "2025-12-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.continuous").value(true)));
+    }
+
+    @Test
+    void When_ReadingHistoryOrPage_Expect_OneStatement() throws Exception {
+        assertStatementCount(1, () -> mockMvc.perform(get("/api/cars/1/history")).andExpect(status().isOk()));
+        assertStatementCount(1, () -> mockMvc.perform(get("/api/cars/1/history").param("limit", "1")).andExpect(status().isOk()));
+        assertStatementCount(1, () -> mockMvc.perform(get("/api/cars").param("afterId", "0").param("limit", "10"))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void When_ReadingOwnerPortfolio_Expect_OneStatement() throws Exception {
+        assertStatementCount(1, () -> mockMvc.perform(get("/api/owners/1/portfolio").param("date", "2025-06-01"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cars[0].activePolicy.provider").value("Groupama")));
+        assertStatementCount(1, () -> mockMvc.perform(get("/api/owners/999999/portfolio")).andExpect(status().isNotFound()));
+    }
+
+    @Test
+    void When_ReadingClaimTotals_Expect_OneStatement() throws Exception {
+        assertStatementCount(1, () -> mockMvc.perform(get("/api/cars/1/claims/totals")).andExpect(status().isOk()));
+        assertStatementCount(1, () -> mockMvc.perform(get("/api/claims/totals/2025-02")).andExpect(status().isOk()));
+    }
+
+    @Test
+    void When_CreatingAndSerializingEntities_Expect_OnlyTheWrites() throws Exception {
+        // the insert and the car, owner and month totals
+        assertStatementCount(4, () -> mockMvc.perform(claim()).andExpect(status().isCreated()));
+        assertStatementCount(1, () -> mockMvc.perform(car("VINCOUNT1")).andExpect(status().isCreated()));
+        // the overlap check and the insert
+        assertStatementCount(2, () -> mockMvc.perform(policy(2, "2025-10-01", "2099-01-01")).andExpect(status().isCreated()));
+        assertStatementCount(1, () -> mockMvc.perform(policy(2, "2025-12-01", "2099-06-01")).andExpect(status().isConflict()));
+    }
+
+    @Test
+    void When_PollingWithCurrentETag_Expect_NotModifiedWithoutStatements() throws Exception {
+        String history = mockMvc.perform(get("/api/cars/1/history")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String cars = mockMvc.perform(get("/api/cars").param("afterId", "0").param("limit", "10")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        double hits = meterRegistry.counter("carins.etag.requests", "resource", "history", "result", "hit").count();
+
+        assertStatementCount(0, () -> mockMvc.perform(get("/api/cars/1/history").header(HttpHeaders.IF_NONE_MATCH, history))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, history)));
+        assertStatementCount(0, () -> mockMvc.perform(get("/api/cars").param("afterId", "0").param("limit", "10")
+                        .header(HttpHeaders.IF_NONE_MATCH, cars))
+                .andExpect(status().isNotModified()));
+        Assertions.assertEquals(hits + 1, meterRegistry.counter("carins.etag.requests", "resource", "history", "result", "hit").count());
+
+        mockMvc.perform(claim()).andExpect(status().isCreated());
+        mockMvc.perform(car("VINETAG1")).andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/cars/1/history").header(HttpHeaders.IF_NONE_MATCH, history))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, Matchers.not(history)));
+        mockMvc.perform(get("/api/cars").header(HttpHeaders.IF_NONE_MATCH, cars))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void When_RequestCompletes_Expect_StatementsPublishedPerRoute() throws Exception {
+        mockMvc.perform(get("/api/cars/1/history")).andExpect(status().isOk());
+
+        Assertions.assertTrue(meterRegistry.get("carins.sql.statements")
+                .tag("operation", "GET /api/cars/{carId}/history")
+                .summary().count() >= 1);
+    }
+
+    private static RequestBuilder claim() {
+        return post("/api/cars/1/claims").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"claimDate\":\"2025-02-01\",\"description\":\"Scratch\",\"amount\":100}");
+    }
+
+    private static RequestBuilder policy(long carId, String startDate, String endDate) {
+        return post("/api/cars/" + carId + "/policies").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"provider\":\"Allianz\",\"startDate\":\"" + startDate + "\",\"endDate\":\"" + endDate + "\"}");
+    }
+
+    private static RequestBuilder car(String vin) {
+        return post("/api/cars").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"vin\":\"" + vin + "\",\"make\":\"Dacia\",\"model\":\"Logan\",\"year\":2020,\"ownerId\":1}");
+    }
+}
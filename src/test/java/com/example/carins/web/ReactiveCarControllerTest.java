@@ -0,0 +1,94 @@
+package com.example.carins.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The reactive endpoints must answer exactly like their blocking counterparts in {@link CarController}.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ReactiveCarControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    void When_CarHasNoPolicies_ExpectInsuranceValid_ReturnNotFoundOnBothStacksAndInBatch() throws Exception {
+        String body = mockMvc.perform(post("/api/cars").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"vin\":\"VINUNINSURED1\",\"make\":\"Dacia\",\"model\":\"Logan\",\"year\":2020,\"ownerId\":1}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        String carId = body.replaceAll(".*\"id\":(\\d+).*", "$1");
+        String today = LocalDate.now().toString();
+
+        String blocking = mockMvc.perform(get("/api/cars/" + carId + "/insurance-valid").param("date", today))
+                .andExpect(status().isNotFound())
+                .andReturn().getResponse().getContentAsString();
+        MvcResult reactive = mockMvc.perform(get("/api/reactive/cars/" + carId + "/insurance-valid").param("date", today))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(reactive))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string(blocking));
+        String batch = streamedContent(post("/api/insurance-valid/batch").contentType(MediaType.APPLICATION_NDJSON)
+                .content("{\"carId\":" + carId + ",\"date\":\"" + today + "\"}\n"));
+        assertEquals(blocking, objectMapper.readTree(batch).get("error").asText());
+    }
+
+    @Test
+    void When_CarIsInsured_ExpectInsuranceValid_ReturnSameBodyOnBothStacks() throws Exception {
+        String blocking = mockMvc.perform(get("/api/cars/1/insurance-valid").param("date", "2025-06-01"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.valid").value(true))
+                .andReturn().getResponse().getContentAsString();
+        MvcResult reactive = mockMvc.perform(get("/api/reactive/cars/1/insurance-valid").param("date", "2025-06-01"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(reactive))
+                .andExpect(status().isOk())
+                .andExpect(content().string(blocking));
+    }
+
+    @Test
+    void When_CarsRequestedAsNdjson_ExpectReactiveCars_StreamOneLinePerCar() throws Exception {
+        int cars = objectMapper.readTree(streamedContent(get("/api/cars"))).size();
+
+        String[] lines = streamedContent(get("/api/reactive/cars").accept(MediaType.APPLICATION_NDJSON)).trim().split("\n");
+        assertEquals(cars, lines.length);
+        assertEquals(1, objectMapper.readTree(lines[0]).get("id").asLong());
+    }
+
+    @Test
+    void When_CarsRequestedAsJson_ExpectReactiveCars_ReturnNotAcceptable() throws Exception {
+        mockMvc.perform(get("/api/reactive/cars").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotAcceptable());
+    }
+
+    private String streamedContent(MockHttpServletRequestBuilder builder) throws Exception {
+        MvcResult result = mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult();
+        return result.getResponse().getContentAsString();
+    }
+}
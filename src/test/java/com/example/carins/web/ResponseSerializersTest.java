@@ -0,0 +1,61 @@
+package com.example.carins.web;
+
+import com.example.carins.web.dto.CarDto;
+import com.example.carins.web.dto.CarEventDto;
+import com.example.carins.web.dto.CarEventType;
+import com.example.carins.web.dto.SavedClaimDto;
+import com.example.carins.web.dto.SavedPolicyDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The hand-written serializers must write exactly what Jackson's own serializers write for the same records.
+ */
+class ResponseSerializersTest {
+
+    // configured as Spring Boot configures the application's mapper
+    final ObjectMapper reflective = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+    final ObjectMapper prebuilt = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .modulesToInstall(new ResponseSerializers()).build();
+
+    @Test
+    void When_RecordsHaveValuesOrNulls_Expect_SameJsonAsReflectiveSerializers() throws Exception {
+        List<Object> values = List.of(
+                new CarDto(1L, "VIN12345", "Dacia", "Logan \"Prestige\"", 2018, 1L, "Ana Pop", "ana@example.com"),
+                new CarDto(null, null, null, null, 0, null, null, null),
+                new CarEventDto(CarEventType.POLICY_END, LocalDate.of(2025, 1, 1), "Policy ended", "Allianz – ü", 3L),
+                new CarEventDto(null, null, null, null, null),
+                new CarController.CarEventResponse(1L, List.of(
+                        new CarEventDto(CarEventType.CLAIM, LocalDate.of(2024, 6, 1), "Claim", "Scratch", 9L)), "MjAyNC0wNi0wMToy"),
+                new CarController.CarEventResponse(1L, Arrays.asList(null, new CarEventDto(null, null, null, null, null)), null),
+                new CarController.CarEventResponse(null, null, null),
+                new CarController.InsuranceValidityResponse(1L, "2025-06-01", true),
+                new SavedClaimDto(50L, 1L, new Date(1738368000000L), "Scratch", 100.5),
+                new SavedClaimDto(null, null, null, null, 0),
+                new SavedPolicyDto(10L, 2L, "Allianz", LocalDate.of(2025, 10, 1), LocalDate.of(2099, 1, 1)),
+                new SavedPolicyDto(null, null, null, null, null));
+
+        for (Object value : values) {
+            Assertions.assertEquals(reflective.writeValueAsString(value), prebuilt.writeValueAsString(value), value.toString());
+        }
+    }
+
+    @Test
+    void When_ListOfCarsWritten_Expect_PrebuiltSerializerUsedForElements() throws Exception {
+        List<CarDto> cars = List.of(new CarDto(1L, "VIN12345", "Dacia", "Logan", 2018, 1L, "Ana Pop", "ana@example.com"));
+
+        Assertions.assertEquals(reflective.writeValueAsString(cars), prebuilt.writeValueAsString(cars));
+        Assertions.assertInstanceOf(ResponseSerializers.CarDtoSerializer.class,
+                prebuilt.getSerializerProviderInstance().findValueSerializer(CarDto.class));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.carins.web;
+
+import com.example.carins.service.CarService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ServerErrorsTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    MeterRegistry meterRegistry;
+    @MockitoBean
+    CarService carService;
+
+    @Test
+    void When_HandlerCatchesException_Expect_RequestTimerTaggedWithException() throws Exception {
+        Mockito.when(carService.listCars(any(), anyInt())).thenThrow(new IllegalStateException("connection refused"));
+
+        mockMvc.perform(get("/api/cars").param("afterId", "0").param("limit", "10"))
+                .andExpect(status().isInternalServerError());
+
+        Assertions.assertEquals(1, meterRegistry.get("http.server.requests")
+                .tag("uri", "/api/cars")
+                .tag("status", "500")
+                .tag("exception", "IllegalStateException")
+                .timer().count());
+    }
+
+    @Test
+    void When_RequestSucceeds_Expect_RequestTimerWithoutException() throws Exception {
+        Mockito.when(carService.listCars(any(), anyInt())).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/cars").param("afterId", "0").param("limit", "10"))
+                .andExpect(status().isOk());
+
+        Assertions.assertTrue(meterRegistry.get("http.server.requests")
+                .tag("uri", "/api/cars")
+                .tag("status", "200")
+                .tag("exception", "none")
+                .timer().count() >= 1);
+    }
+
+    @Test
+    void When_ApplicationStarts_Expect_RepositoryAndHibernateMetrics() {
+        Assertions.assertNotNull(meterRegistry.find("spring.data.repository.invocations")
+                .tag("repository", "JobCheckpointRepository")
+                .timer());
+        Assertions.assertNotNull(meterRegistry.find("hibernate.statements").functionCounter());
+        Assertions.assertNotNull(meterRegistry.find("hibernate.flushes").functionCounter());
+    }
+}